@@ -0,0 +1,80 @@
+package Benchmarks;
+
+import Model.AddressParser.Address;
+import Model.AddressParser.AddressParser;
+import Model.Model;
+import Model.SortedAddressArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses addresses and suggests addresses for partly typed input, like the search fields do on every key press
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressBenchmark {
+    private static final int INPUTS = 256; // Inputs used in turn, a power of two
+
+    @Param({"100", "1000"})
+    public int side;
+
+    private SortedAddressArrayList addresses;
+    private String[] inputs = new String[INPUTS];
+    private String[] prefixes = new String[INPUTS];
+    private int next;
+
+    /**
+     * Loads the map and makes random full addresses and prefixes of street names
+     * @throws Exception if the map cannot be loaded
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkMaps.load(side);
+        addresses = Model.getInstance().getOSMAddresses();
+
+        Random random = new Random(40);
+        for (int i = 0; i < INPUTS; i++) {
+            int row = random.nextInt(side);
+            int house = random.nextInt(side / 5) + 1;
+            int column = (house - 1) * 5;
+            String street = OSMGenerator.street(row);
+            inputs[i] = street + " " + house + ", " + OSMGenerator.postcode(row, column) + " " + OSMGenerator.city(row, column);
+            prefixes[i] = street.substring(0, 1 + random.nextInt(street.length()));
+        }
+    }
+
+    /**
+     * Parses the next full address and looks it up
+     * @return Address
+     */
+    @Benchmark
+    public Address parse() {
+        return AddressParser.parse(inputs[next++ & (INPUTS - 1)], addresses);
+    }
+
+    /**
+     * Suggests addresses for the next prefix
+     * @return List of Address
+     */
+    @Benchmark
+    public List<Address> recommendedAddresses() {
+        return addresses.recommendedAddresses(prefixes[next++ & (INPUTS - 1)], false);
+    }
+}
@@ -0,0 +1,91 @@
+package Benchmarks;
+
+import Model.AddressParser.Address;
+import Model.AddressParser.AddressParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the hand-written address scanner to the regex the AddressParser used before
+ * Run with: gradlew jmh -Pbenchmark=AddressParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressParserBenchmark {
+    private static final Pattern pattern = Pattern.compile("^ *(?<street>[0-9]{0,3}[\\p{L} .\\-]+)? *(?<house>[0-9]{1,3}[A-z]*)? *(?<postcode>[0-9]{1,4})? *(?<city>[\\p{L} .\\-]+)? *$");
+
+    private String[] inputs = {
+            "Rued Langgaards Vej 7, 2300 København S",
+            "langagervej 25 2500 valby",
+            "Langdalen 11",
+            "H.C. Andersens Boulevard 27A, 1553 København V",
+            "10. Februar Vej 3",
+            "Sønder Boulevard",
+            "2300",
+            "#Not an address!"
+    };
+
+    /**
+     * Parses the inputs with the hand-written scanner
+     * @param blackhole Blackhole
+     */
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        for (String input : inputs) {
+            blackhole.consume(AddressParser.parseAddress(input));
+        }
+    }
+
+    /**
+     * Parses the inputs the way the AddressParser did before the scanner
+     * @param blackhole Blackhole
+     */
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String input : inputs) {
+            blackhole.consume(regexParse(input));
+        }
+    }
+
+
+    private Address regexParse(String input) {
+        Matcher matcher = pattern.matcher(input.replaceAll(",", ""));
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Address(upperCaseEveryFirstLetter(matcher.group("street")),
+                upperCaseEveryFirstLetter(matcher.group("house")),
+                upperCaseEveryFirstLetter(matcher.group("postcode")),
+                upperCaseEveryFirstLetter(matcher.group("city")));
+    }
+
+    private String upperCaseEveryFirstLetter(String input) {
+        if (input == null) {
+            return input;
+        }
+        String[] words = input.split("\\s");
+        String capitalizeWord = "";
+        for (String w : words) {
+            String first = w.substring(0, 1);
+            String afterfirst = w.substring(1);
+            capitalizeWord += first.toUpperCase() + afterfirst + " ";
+        }
+        return capitalizeWord.trim();
+    }
+}
@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import Model.Model;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Generates the maps the benchmarks run on, so the results can be reproduced without the embedded maps or network access
+ * A map is a square grid of streets written by the OSMGenerator, with addresses, landuse and buildings between the streets.
+ * A grid of 100 by 100 nodes is a small synthetic map, a grid of 1000 by 1000 nodes has about as many nodes and ways as Fyn
+ */
+public class BenchmarkMaps {
+    /**
+     * Loads the grid map with the given side into the Model, the map is written to the temporary directory the first time
+     * @param side int number of nodes along each side of the grid
+     * @throws Exception if the map cannot be written or loaded
+     */
+    public static void load(int side) throws Exception {
+        Model.getInstance().load(file(side));
+    }
+
+    /**
+     * Returns the file of the grid map with the given side, writing it if it does not exist
+     * @param side int number of nodes along each side of the grid
+     * @return File
+     * @throws IOException if the map cannot be written
+     */
+    public static File file(int side) throws IOException {
+        File file = new File(System.getProperty("java.io.tmpdir"), "benchmark-map-grid-" + side + ".osm");
+        if (!file.exists()) {
+            File partial = new File(file.getPath() + ".part");
+            grid(side).write(partial);
+            if (!partial.renameTo(file)) {
+                throw new IOException("Could not write " + file);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Returns the generator of the grid map with the given side
+     * @param side int number of nodes along each side of the grid
+     * @return OSMGenerator
+     */
+    public static OSMGenerator grid(int side) {
+        return new OSMGenerator(OSMGenerator.Layout.GRID, side, side);
+    }
+}
@@ -0,0 +1,76 @@
+package Benchmarks;
+
+import Model.BinHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the loaded map as a .bin file and loads it again
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BinHandlerBenchmark {
+    @Param({"100", "1000"})
+    public int side;
+
+    private File file;
+
+    /**
+     * Loads the map and saves it once, so there is a file to load
+     * @throws Exception if the map cannot be loaded or saved
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkMaps.load(side);
+        file = File.createTempFile("benchmark-grid-" + side, ".bin");
+        BinHandler.save(file.getPath());
+    }
+
+    /**
+     * Deletes the saved file
+     */
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Saves the map
+     * @return long size of the saved file
+     */
+    @Benchmark
+    public long save() {
+        BinHandler.save(file.getPath());
+        return file.length();
+    }
+
+    /**
+     * Loads the saved map
+     * @throws Exception if the file cannot be loaded
+     */
+    @Benchmark
+    public void load() throws Exception {
+        try (InputStream in = new FileInputStream(file)) {
+            BinHandler.load(in);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Benchmarks;
+
+import Model.Pathfinding.IndexMinPQ;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the priority queue used by Dijkstra with random distances and empties it again
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexMinPQBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private double[] distances;
+
+    /**
+     * Draws the random distances
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(40);
+        distances = new double[size];
+        for (int i = 0; i < size; i++) {
+            distances[i] = random.nextDouble() * 1000;
+        }
+    }
+
+    /**
+     * Inserts every vertex and deletes them in order of distance
+     * @return int sum of the vertices in the order deleted, so nothing is optimized away
+     */
+    @Benchmark
+    public int insertAndDeleteMin() {
+        IndexMinPQ pq = new IndexMinPQ(size);
+        for (int i = 0; i < size; i++) {
+            pq.insert(i, distances[i]);
+        }
+        int order = 0;
+        while (!pq.isEmpty()) {
+            order = order * 31 + pq.deleteMin();
+        }
+        return order;
+    }
+}
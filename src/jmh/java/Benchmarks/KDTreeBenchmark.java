@@ -0,0 +1,87 @@
+package Benchmarks;
+
+import Model.MapComponents.Highway;
+import Model.MapData;
+import Model.Model;
+import Model.Tree.KDTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches the highway KDTree of a generated map the way a view and a click on the map do
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KDTreeBenchmark {
+    private static final int QUERIES = 1024; // Views and points searched in turn, a power of two
+    private static final double ZOOM = 20000;
+
+    @Param({"100", "1000"})
+    public int side;
+
+    private KDTree highways;
+    private float[][] views = new float[QUERIES][];
+    private float[][] points = new float[QUERIES][];
+    private int next;
+
+    /**
+     * Loads the map and picks random views of 1000 by 600 pixels and random points within it
+     * @throws Exception if the map cannot be loaded
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkMaps.load(side);
+        Model model = Model.getInstance();
+        highways = model.getHighwayTree();
+
+        Random random = new Random(40);
+        float width = (float) (1000 / ZOOM);
+        float height = (float) (600 / ZOOM);
+        for (int i = 0; i < QUERIES; i++) {
+            float x = model.getMinLon() + random.nextFloat() * (model.getMaxLon() - model.getMinLon());
+            float y = model.getMinLat() + random.nextFloat() * (model.getMaxLat() - model.getMinLat());
+            views[i] = new float[] {x - width / 2, y - height / 2, x + width / 2, y + height / 2};
+            points[i] = new float[] {x, y};
+        }
+    }
+
+    /**
+     * Searches the next view for highways of at least a pixel
+     * @return List of MapData found
+     */
+    @Benchmark
+    public List<MapData> rectSearch() {
+        float[] view = views[next++ & (QUERIES - 1)];
+        List<MapData> found = new ArrayList<>();
+        highways.rectSearch(view[0], view[1], view[2], view[3], (float) (1 / ZOOM), found);
+        return found;
+    }
+
+    /**
+     * Finds the highway nearest to the next point
+     * @return Highway
+     */
+    @Benchmark
+    public Highway nearestNeighbor() {
+        float[] point = points[next++ & (QUERIES - 1)];
+        return highways.nearestNeighbor(point[0], point[1]);
+    }
+}
@@ -0,0 +1,62 @@
+package Benchmarks;
+
+import Model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads generated .osm maps of growing size, to see how parsing, building the KDTrees and the graph scale with the map
+ * Larger maps can be written with the generateOSM task and given as a parameter: -p nodes=10000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx8G")
+public class LoadBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public long nodes;
+
+    @Param({"GRID", "RADIAL"})
+    public OSMGenerator.Layout layout;
+
+    private File file;
+
+    /**
+     * Writes the map to the temporary directory if it has not been written before
+     * @throws Exception if the map cannot be written
+     */
+    @Setup
+    public void setup() throws Exception {
+        file = new File(System.getProperty("java.io.tmpdir"), "benchmark-map-" + layout.name().toLowerCase() + "-" + nodes + ".osm");
+        if (!file.exists()) {
+            File partial = new File(file.getPath() + ".part");
+            OSMGenerator.withNodes(layout, nodes).write(partial);
+            if (!partial.renameTo(file)) {
+                throw new IllegalStateException("Could not write " + file);
+            }
+        }
+    }
+
+    /**
+     * Loads the map into the Model
+     * @throws Exception if the map cannot be loaded
+     */
+    @Benchmark
+    public void load() throws Exception {
+        Model.getInstance().load(file);
+    }
+}
@@ -0,0 +1,623 @@
+package Benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes synthetic .osm files of any size, from ten thousand to hundreds of millions of nodes
+ * The map is a lattice of streets, either a grid or rings and spokes around a center, with addresses, places,
+ * points of interest, buildings, landuse, water, a river, a railway, roundabouts, relations and a coastline around it all,
+ * so every kind of element OSMHandler.loadOSM reads is in the file. The file is written as it is generated and every id
+ * is computed from the position in the lattice, so the memory used does not grow with the size of the map
+ * Can be run from the command line: OSMGenerator output-file nodes [grid|radial]
+ */
+public class OSMGenerator {
+    public static final double STEP = 0.0005; // Degrees between neighboring nodes of the lattice, about 50 meters
+    public static final double MIN_LAT = 55;
+    public static final double MIN_LON = 10;
+    private static final int SEGMENT = 10; // Edges in every way of a street, and the size of the landuse blocks
+    private static final int CITY_SIZE = 100; // Rows and columns of every city
+    private static final double NODES_PER_CELL = 2.25; // Nodes written for every node of the lattice, used to size the lattice
+
+    /**
+     * The shape of the street lattice
+     */
+    public enum Layout {
+        GRID, // Rows and columns of straight streets
+        RADIAL // Rows are rings around the center and columns are spokes from the center, joined by a roundabout
+    }
+
+    private Layout layout;
+    private int rows;
+    private int columns;
+
+    // First ids of the kinds of nodes, the nodes of the lattice come first
+    private long roundaboutNodes;
+    private long addressNodes;
+    private long placeNodes;
+    private long pointNodes;
+    private long buildingNodes;
+    private long coastNodes;
+    private long islandNodes;
+    private long nodes;
+    private long ways;
+
+    private int coastPoints;
+    private int roundaboutRows;
+    private int roundaboutColumns;
+    private int addressesPerRow;
+    private int buildingRows;
+    private int buildingColumns;
+
+    /**
+     * Constructor for OSMGenerator
+     * @param layout Layout of the streets
+     * @param rows int rows of the lattice, the rings of a radial lattice
+     * @param columns int columns of the lattice, the spokes of a radial lattice
+     */
+    public OSMGenerator(Layout layout, int rows, int columns) {
+        this.layout = layout;
+        this.rows = rows;
+        this.columns = columns;
+
+        // Roundabouts are at every tenth crossing of the grid, the radial lattice has one at the center
+        roundaboutRows = layout == Layout.GRID && rows >= 7 ? (rows - 7) / SEGMENT + 1 : 0;
+        roundaboutColumns = layout == Layout.GRID && columns >= 7 ? (columns - 7) / SEGMENT + 1 : 0;
+        addressesPerRow = (lastColumn() - 1) / 5 + 1;
+        buildingRows = (rows - 2) / 2 + 1;
+        buildingColumns = (lastColumn() - 1) / 2 + 1;
+        coastPoints = layout == Layout.GRID ? 2 * (rows + 6) + 2 * (columns + 6) : columns;
+
+        roundaboutNodes = (long) rows * columns + (layout == Layout.RADIAL ? 1 : 0);
+        addressNodes = roundaboutNodes + 4L * roundaboutRows * roundaboutColumns;
+        placeNodes = addressNodes + (long) rows * addressesPerRow;
+        pointNodes = placeNodes + (long) blocks(rows, CITY_SIZE) * blocks(columns, CITY_SIZE);
+        buildingNodes = pointNodes + (long) blocks(rows, 20) * blocks(columns, 20);
+        coastNodes = buildingNodes + 4L * buildingRows * buildingColumns;
+        islandNodes = coastNodes + coastPoints;
+        nodes = islandNodes + 12;
+    }
+
+    /**
+     * Returns a generator whose map has about the given number of nodes
+     * @param layout Layout of the streets
+     * @param nodes long number of nodes wanted
+     * @return OSMGenerator
+     */
+    public static OSMGenerator withNodes(Layout layout, long nodes) {
+        double cells = Math.max(100, nodes / NODES_PER_CELL);
+        if (layout == Layout.GRID) {
+            int side = (int) Math.round(Math.sqrt(cells));
+            return new OSMGenerator(layout, side, side);
+        }
+        // The spokes are spread so the outer ring has about four steps between them
+        int rings = (int) Math.round(Math.sqrt(cells * 2 / Math.PI));
+        int spokes = Math.max(20, (int) Math.round(Math.PI * rings / 2 / SEGMENT) * SEGMENT);
+        return new OSMGenerator(layout, rings, spokes);
+    }
+
+    /**
+     * Getter for the number of nodes written
+     * @return long
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Getter for the number of ways written, known once the map has been written
+     * @return long
+     */
+    public long getWays() {
+        return ways;
+    }
+
+    /**
+     * Returns the name of the street along the given row
+     * @param row int
+     * @return String
+     */
+    public static String street(int row) {
+        return "Vej " + row;
+    }
+
+    /**
+     * Returns the name of the city the given position of the lattice is in
+     * @param row int
+     * @param column int
+     * @return String
+     */
+    public static String city(int row, int column) {
+        return "By " + row / CITY_SIZE + "-" + column / CITY_SIZE;
+    }
+
+    /**
+     * Returns the postcode of the given position of the lattice
+     * @param row int
+     * @param column int
+     * @return String
+     */
+    public static String postcode(int row, int column) {
+        return String.valueOf(1000 + (row / CITY_SIZE * 37 + column / CITY_SIZE) % 9000);
+    }
+
+    /**
+     * Returns the latitude of the position in the lattice
+     * @param row double, may be between two rows
+     * @param column double, may be between two columns
+     * @return double
+     */
+    public double lat(double row, double column) {
+        if (layout == Layout.GRID) {
+            return MIN_LAT + (row + 3) * STEP;
+        }
+        double radius = (row + 1) * STEP;
+        return centerLat() + radius * Math.sin(2 * Math.PI * column / columns);
+    }
+
+    /**
+     * Returns the longitude of the position in the lattice
+     * @param row double, may be between two rows
+     * @param column double, may be between two columns
+     * @return double
+     */
+    public double lon(double row, double column) {
+        if (layout == Layout.GRID) {
+            return MIN_LON + (column + 3) * STEP;
+        }
+        // Stretched so the rings are round in the coordinates of the map, where the longitude is scaled by 0.56
+        double radius = (row + 1) * STEP;
+        return centerLon() + radius * Math.cos(2 * Math.PI * column / columns) / 0.56;
+    }
+
+    /**
+     * Writes the map to the file
+     * @param file File
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the map as OSM XML
+     * @param out Writer
+     * @throws IOException if the map cannot be written
+     */
+    public void write(Writer out) throws IOException {
+        ways = 0;
+        writeBounds(out);
+        writeNodes(out);
+        writeStreets(out);
+        writeAreas(out);
+        writeCoast(out);
+        writeRelations(out);
+        out.write("</osm>\n");
+    }
+
+
+    // Columns that have a column after them, spokes wrap around so every spoke has one
+    private int lastColumn() {
+        return layout == Layout.GRID ? columns - 1 : columns;
+    }
+
+    private static int blocks(int length, int size) {
+        return (length + size - 1) / size;
+    }
+
+    // Id of the node of the lattice, columns wrap around in a radial lattice
+    private long id(int row, int column) {
+        return (long) row * columns + Math.floorMod(column, columns);
+    }
+
+    // Id of the node at the center of a radial lattice
+    private long center() {
+        return (long) rows * columns;
+    }
+
+    private double centerLat() {
+        return MIN_LAT + (rows + 12) * STEP;
+    }
+
+    private double centerLon() {
+        return MIN_LON + (rows + 12) * STEP / 0.56;
+    }
+
+    // Position of the point of the coastline, which runs outside the lattice
+    private double[] coastPoint(int point) {
+        if (layout == Layout.RADIAL) {
+            return new double[] {lat(rows + 2, point), lon(rows + 2, point)};
+        }
+        int width = columns + 6;
+        int height = rows + 6;
+        if (point < width) {
+            return new double[] {lat(-3, point - 3), lon(-3, point - 3)};
+        }
+        point -= width;
+        if (point < height) {
+            return new double[] {lat(point - 3, columns + 3), lon(point - 3, columns + 3)};
+        }
+        point -= height;
+        if (point < width) {
+            return new double[] {lat(rows + 3, columns + 3 - point), lon(rows + 3, columns + 3 - point)};
+        }
+        point -= width;
+        return new double[] {lat(rows + 3 - point, -3), lon(rows + 3 - point, -3)};
+    }
+
+    // Position of the point of the island, which lies off the coast
+    private double[] islandPoint(int point) {
+        double angle = 2 * Math.PI * point / 12;
+        if (layout == Layout.RADIAL) {
+            return new double[] {lat(rows + 8, 0) + 2 * STEP * Math.sin(angle), lon(rows + 8, 0) + 2 * STEP * Math.cos(angle) / 0.56};
+        }
+        double row = rows + 8 + 2 * Math.sin(angle);
+        double column = columns / 2.0 + 2 * Math.cos(angle);
+        return new double[] {lat(row, column), lon(row, column)};
+    }
+
+    private void writeBounds(Writer out) throws IOException {
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+        for (int point = 0; point < coastPoints + 12; point++) {
+            double[] position = point < coastPoints ? coastPoint(point) : islandPoint(point - coastPoints);
+            minLat = Math.min(minLat, position[0]);
+            maxLat = Math.max(maxLat, position[0]);
+            minLon = Math.min(minLon, position[1]);
+            maxLon = Math.max(maxLon, position[1]);
+        }
+        out.write("<osm><bounds minlat=\"" + minLat + "\" minlon=\"" + minLon + "\" maxlat=\"" + maxLat + "\" maxlon=\"" + maxLon + "\"/>\n");
+    }
+
+    private void writeNodes(Writer out) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                node(out, id(row, column), lat(row, column), lon(row, column));
+            }
+        }
+        if (layout == Layout.RADIAL) {
+            node(out, center(), centerLat(), centerLon());
+        }
+
+        // The corners of the roundabouts between the ends of the streets meeting at them
+        long id = roundaboutNodes;
+        for (int i = 0; i < roundaboutRows; i++) {
+            for (int j = 0; j < roundaboutColumns; j++) {
+                int row = i * SEGMENT + 5;
+                int column = j * SEGMENT + 5;
+                node(out, id++, lat(row - 0.7, column + 0.7), lon(row - 0.7, column + 0.7));
+                node(out, id++, lat(row + 0.7, column + 0.7), lon(row + 0.7, column + 0.7));
+                node(out, id++, lat(row + 0.7, column - 0.7), lon(row + 0.7, column - 0.7));
+                node(out, id++, lat(row - 0.7, column - 0.7), lon(row - 0.7, column - 0.7));
+            }
+        }
+
+        // An address halfway between the nodes of every fifth column, the city and postcode come before the street
+        for (int row = 0; row < rows; row++) {
+            for (int k = 0; k < addressesPerRow; k++) {
+                int column = k * 5;
+                nodeStart(out, id++, lat(row + 0.1, column + 0.5), lon(row + 0.1, column + 0.5));
+                tag(out, "addr:city", city(row, column));
+                tag(out, "addr:housenumber", String.valueOf(k + 1));
+                tag(out, "addr:postcode", postcode(row, column));
+                tag(out, "addr:street", street(row));
+                out.write("</node>\n");
+            }
+        }
+
+        // A place in the middle of every city, the name comes before the place
+        String[] places = {"city", "town", "village", "hamlet"};
+        for (int i = 0; i < blocks(rows, CITY_SIZE); i++) {
+            for (int j = 0; j < blocks(columns, CITY_SIZE); j++) {
+                int row = Math.min(rows - 1, i * CITY_SIZE + CITY_SIZE / 2);
+                int column = Math.min(columns - 1, j * CITY_SIZE + CITY_SIZE / 2);
+                nodeStart(out, id++, lat(row + 0.5, column + 0.5), lon(row + 0.5, column + 0.5));
+                tag(out, "name", city(row, column));
+                tag(out, "place", places[(i + j) % places.length]);
+                out.write("</node>\n");
+            }
+        }
+
+        // A point of interest in every square of 20 by 20 nodes
+        String[][] points = {{"amenity", "fuel"}, {"amenity", "restaurant"}, {"amenity", "fast_food"}, {"amenity", "cafe"},
+                {"amenity", "bank"}, {"shop", "clothes"}, {"shop", "houseware"}};
+        for (int i = 0; i < blocks(rows, 20); i++) {
+            for (int j = 0; j < blocks(columns, 20); j++) {
+                String[] point = points[(i * 3 + j) % points.length];
+                nodeStart(out, id++, lat(i * 20 + 0.5, j * 20 + 0.5), lon(i * 20 + 0.5, j * 20 + 0.5));
+                tag(out, point[0], point[1]);
+                out.write("</node>\n");
+            }
+        }
+
+        // The corners of a building in every other cell
+        for (int i = 0; i < buildingRows; i++) {
+            for (int j = 0; j < buildingColumns; j++) {
+                double row = i * 2;
+                double column = j * 2;
+                node(out, id++, lat(row + 0.3, column + 0.3), lon(row + 0.3, column + 0.3));
+                node(out, id++, lat(row + 0.3, column + 0.7), lon(row + 0.3, column + 0.7));
+                node(out, id++, lat(row + 0.7, column + 0.7), lon(row + 0.7, column + 0.7));
+                node(out, id++, lat(row + 0.7, column + 0.3), lon(row + 0.7, column + 0.3));
+            }
+        }
+
+        for (int point = 0; point < coastPoints; point++) {
+            double[] position = coastPoint(point);
+            node(out, id++, position[0], position[1]);
+        }
+        for (int point = 0; point < 12; point++) {
+            double[] position = islandPoint(point);
+            node(out, id++, position[0], position[1]);
+        }
+    }
+
+    private void writeStreets(Writer out) throws IOException {
+        // Streets along the rows, rings in a radial lattice
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < lastColumn(); column += SEGMENT) {
+                wayStart(out);
+                for (int i = column; i <= Math.min(lastColumn(), column + SEGMENT); i++) {
+                    nd(out, id(row, i));
+                }
+                if (layout == Layout.RADIAL && row == 0) {
+                    tag(out, "junction", "roundabout");
+                }
+                streetTags(out, row, street(row));
+                out.write("</way>\n");
+            }
+        }
+
+        // Streets along the columns, spokes from the center in a radial lattice
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows - 1; row += SEGMENT) {
+                wayStart(out);
+                if (layout == Layout.RADIAL && row == 0) {
+                    nd(out, center());
+                }
+                for (int i = row; i <= Math.min(rows - 1, row + SEGMENT); i++) {
+                    nd(out, id(i, column));
+                }
+                streetTags(out, column + 1, "Gade " + column);
+                if (column % 3 == 0) {
+                    tag(out, "oneway", column % 6 == 0 ? "yes" : "-1");
+                }
+                out.write("</way>\n");
+            }
+        }
+
+        long id = roundaboutNodes;
+        for (int i = 0; i < roundaboutRows; i++) {
+            for (int j = 0; j < roundaboutColumns; j++) {
+                int row = i * SEGMENT + 5;
+                int column = j * SEGMENT + 5;
+                wayStart(out);
+                nd(out, id(row - 1, column));
+                nd(out, id++);
+                nd(out, id(row, column + 1));
+                nd(out, id++);
+                nd(out, id(row + 1, column));
+                nd(out, id++);
+                nd(out, id(row, column - 1));
+                nd(out, id++);
+                nd(out, id(row - 1, column));
+                tag(out, "highway", "tertiary");
+                tag(out, "junction", "roundabout");
+                tag(out, "name", "Rundkørsel " + i + "-" + j);
+                out.write("</way>\n");
+            }
+        }
+    }
+
+    // Tags a street by its number, so every kind of highway and access HighwayDecoder reads is in the map
+    private void streetTags(Writer out, int number, String name) throws IOException {
+        if (number % 100 == 0) {
+            tag(out, "highway", "motorway");
+            tag(out, "maxspeed", "130");
+        } else if (number % 50 == 0) {
+            tag(out, "highway", "primary");
+            tag(out, "maxspeed", "80");
+        } else if (number % 10 == 0) {
+            tag(out, "highway", "tertiary");
+        } else {
+            switch (number % 10) {
+                case 1:
+                    tag(out, "highway", "secondary");
+                    break;
+                case 2:
+                    tag(out, "highway", "living_street");
+                    break;
+                case 3:
+                    tag(out, "highway", "cycleway");
+                    tag(out, "bicycle", "yes");
+                    tag(out, "foot", "permissive");
+                    break;
+                case 4:
+                    tag(out, "highway", "service");
+                    tag(out, "access", "private");
+                    break;
+                case 6:
+                    tag(out, "highway", "track");
+                    tag(out, "motor_vehicle", "no");
+                    tag(out, "motorcar", "no");
+                    break;
+                case 7:
+                    tag(out, "highway", "footway");
+                    tag(out, "foot", "yes");
+                    tag(out, "bicycle", "no");
+                    break;
+                case 8:
+                    tag(out, "highway", "unclassified");
+                    tag(out, "maxspeed", "50");
+                    break;
+                default:
+                    tag(out, "highway", "residential");
+            }
+        }
+        tag(out, "name", name);
+    }
+
+    private void writeAreas(Writer out) throws IOException {
+        // Landuse covering blocks of ten by ten cells, every fifth block is left for the relations
+        String[][] landuse = {{"landuse", "forest"}, {"landuse", "meadow"}, {"landuse", "farmyard"}, {"landuse", "residential"},
+                {"leisure", "park"}, {"natural", "water"}, {"natural", "heath"}, {"natural", "grassland"},
+                {"landuse", "reservoir"}, {"natural", "wetland"}, {"natural", "grass"}};
+        for (int row = 0; row + SEGMENT < rows; row += SEGMENT) {
+            for (int column = 0; column + SEGMENT < columns; column += SEGMENT) {
+                int block = row / SEGMENT * 7 + column / SEGMENT * 3;
+                if (block % 5 == 0) {
+                    continue;
+                }
+                String[] kind = landuse[block % landuse.length];
+                wayStart(out);
+                nd(out, id(row, column));
+                nd(out, id(row, column + SEGMENT));
+                nd(out, id(row + SEGMENT, column + SEGMENT));
+                nd(out, id(row + SEGMENT, column));
+                nd(out, id(row, column));
+                tag(out, kind[0], kind[1]);
+                out.write("</way>\n");
+            }
+        }
+
+        long id = buildingNodes;
+        for (long building = 0; building < (long) buildingRows * buildingColumns; building++) {
+            wayStart(out);
+            for (int i = 0; i <= 4; i++) {
+                nd(out, id + i % 4);
+            }
+            id += 4;
+            tag(out, "building", "yes");
+            out.write("</way>\n");
+        }
+
+        // A river along a third of the columns and a railway along a third of the rows
+        for (int row = 0; row < rows - 1; row += SEGMENT) {
+            wayStart(out);
+            for (int i = row; i <= Math.min(rows - 1, row + SEGMENT); i++) {
+                nd(out, id(i, columns / 3));
+            }
+            tag(out, "waterway", "river");
+            out.write("</way>\n");
+        }
+        for (int column = 0; column < lastColumn(); column += SEGMENT) {
+            wayStart(out);
+            for (int i = column; i <= Math.min(lastColumn(), column + SEGMENT); i++) {
+                nd(out, id(rows / 3, i));
+            }
+            tag(out, "railway", "rail");
+            out.write("</way>\n");
+        }
+    }
+
+    // The coastline split in four ways which OSMHandler joins into one island, and a small island in one way
+    private void writeCoast(Writer out) throws IOException {
+        int quarter = coastPoints / 4;
+        for (int part = 0; part < 4; part++) {
+            int end = part == 3 ? coastPoints : (part + 1) * quarter;
+            wayStart(out);
+            for (int point = part * quarter; point <= end; point++) {
+                nd(out, coastNodes + point % coastPoints);
+            }
+            tag(out, "natural", "coastline");
+            out.write("</way>\n");
+        }
+
+        wayStart(out);
+        for (int point = 0; point <= 12; point++) {
+            nd(out, islandNodes + point % 12);
+        }
+        tag(out, "natural", "coastline");
+        out.write("</way>\n");
+    }
+
+    // Every block left out of the landuse becomes a lake or a building made of the four untagged sides of the block
+    private void writeRelations(Writer out) throws IOException {
+        long relation = 0;
+        for (int row = 0; row + SEGMENT < rows; row += SEGMENT) {
+            for (int column = 0; column + SEGMENT < columns; column += SEGMENT) {
+                int block = row / SEGMENT * 7 + column / SEGMENT * 3;
+                if (block % 5 != 0) {
+                    continue;
+                }
+                long firstSide = ways;
+                int[][] corners = {{row, column}, {row, column + SEGMENT}, {row + SEGMENT, column + SEGMENT}, {row + SEGMENT, column}, {row, column}};
+                for (int side = 0; side < 4; side++) {
+                    wayStart(out);
+                    nd(out, id(corners[side][0], corners[side][1]));
+                    nd(out, id(corners[side + 1][0], corners[side + 1][1]));
+                    out.write("</way>\n");
+                }
+
+                out.write("<relation id=\"" + relation++ + "\">");
+                for (int side = 0; side < 4; side++) {
+                    out.write("<member type=\"way\" ref=\"" + (firstSide + side) + "\" role=\"outer\"/>");
+                }
+                tag(out, "type", "multipolygon");
+                if (block % 2 == 0) {
+                    tag(out, "natural", "water");
+                } else {
+                    tag(out, "building", "yes");
+                }
+                out.write("</relation>\n");
+            }
+        }
+    }
+
+    private void node(Writer out, long id, double lat, double lon) throws IOException {
+        out.write("<node id=\"" + id + "\" lat=\"" + coordinate(lat) + "\" lon=\"" + coordinate(lon) + "\"/>\n");
+    }
+
+    private void nodeStart(Writer out, long id, double lat, double lon) throws IOException {
+        out.write("<node id=\"" + id + "\" lat=\"" + coordinate(lat) + "\" lon=\"" + coordinate(lon) + "\">");
+    }
+
+    // Rounded to seven decimals like the coordinates of OpenStreetMap
+    private static double coordinate(double degrees) {
+        return Math.round(degrees * 1e7) / 1e7;
+    }
+
+    private void wayStart(Writer out) throws IOException {
+        out.write("<way id=\"" + ways++ + "\">");
+    }
+
+    private static void nd(Writer out, long ref) throws IOException {
+        out.write("<nd ref=\"" + ref + "\"/>");
+    }
+
+    private static void tag(Writer out, String key, String value) throws IOException {
+        out.write("<tag k=\"" + key + "\" v=\"" + value + "\"/>");
+    }
+
+
+    /**
+     * Writes a map of the given size
+     * @param args String[] output file, number of nodes and optionally the layout, grid or radial
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: OSMGenerator <output file> <nodes> [grid|radial]");
+            return;
+        }
+        Layout layout = args.length > 2 ? Layout.valueOf(args[2].toUpperCase()) : Layout.GRID;
+        OSMGenerator generator = withNodes(layout, Long.parseLong(args[1]));
+        try {
+            long time = -System.nanoTime();
+            File file = new File(args[0]);
+            generator.write(file);
+            time += System.nanoTime();
+            System.out.printf("Generate time: %.3fms\n", time / 1e6);
+            System.out.printf("Nodes: %d, ways: %d, size: %.1fMB\n", generator.getNodes(), generator.getWays(), file.length() / 1e6);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
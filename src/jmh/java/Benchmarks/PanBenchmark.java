@@ -0,0 +1,84 @@
+package Benchmarks;
+
+import Model.Model;
+import View.MapPainter;
+import View.RenderFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares the frames of a view panning across a generated map, the way MapCanvas does on every repaint while panning
+ * Run with the gc profiler to see the allocation per frame: gradlew jmh -Pbenchmark="PanBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PanBenchmark {
+    private static final String[] tags = {
+            "<tag k=\"highway\" v=\"residential\"/><tag k=\"name\" v=\"Vej\"/>",
+            "<tag k=\"highway\" v=\"tertiary\"/><tag k=\"name\" v=\"Gade\"/>",
+            "<tag k=\"building\" v=\"yes\"/>",
+            "<tag k=\"landuse\" v=\"residential\"/>",
+            "<tag k=\"landuse\" v=\"forest\"/>",
+            "<tag k=\"natural\" v=\"water\"/>"
+    };
+
+    private MapPainter painter;
+    private int step;
+
+    /**
+     * Loads a generated map of 8000 ways into the Model
+     * @throws Exception if the map cannot be parsed
+     */
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(34);
+        StringBuilder osm = new StringBuilder("<osm><bounds minlat=\"55\" minlon=\"12\" maxlat=\"55.2\" maxlon=\"12.2\"/>");
+        int nodes = 0;
+        StringBuilder ways = new StringBuilder();
+        for (int way = 0; way < 8000; way++) {
+            double lat = 55 + random.nextDouble() * 0.2;
+            double lon = 12 + random.nextDouble() * 0.2;
+            ways.append("<way id=\"").append(way).append("\">");
+            for (int i = 0; i < 10; i++) {
+                lat += (random.nextDouble() - 0.5) * 0.002;
+                lon += (random.nextDouble() - 0.5) * 0.002;
+                osm.append("<node id=\"").append(nodes).append("\" lat=\"").append(lat).append("\" lon=\"").append(lon).append("\"/>");
+                ways.append("<nd ref=\"").append(nodes).append("\"/>");
+                nodes++;
+            }
+            ways.append(tags[way % tags.length]).append("</way>");
+        }
+        osm.append(ways).append("</osm>");
+        Model.getInstance().getOSMHandler().loadOSM(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(osm.toString())));
+        painter = new MapPainter(null);
+    }
+
+    /**
+     * Prepares the frame of the next view while panning east
+     * @return RenderFrame
+     */
+    @Benchmark
+    public RenderFrame pan() {
+        step = (step + 1) % 100;
+        float x = 6.74f + step * 0.0005f;
+        painter.setView(20000, 1000, new float[] {x, -55.12f, x + 0.05f, -55.09f});
+        return painter.prepareLayers(true, true, 0, () -> false);
+    }
+}
@@ -0,0 +1,88 @@
+package Benchmarks;
+
+import Model.MapComponents.Highway;
+import Model.Model;
+import Model.OSMNode;
+import Model.Pathfinding.Graph;
+import Model.Pathfinding.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes routes of different lengths across the street grid of a generated map
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+    @Param({"100", "1000"})
+    public int side;
+
+    @Param({"0.1", "0.5", "0.9"})
+    public double length; // Part of the diagonal of the grid the route crosses
+
+    @Param({"0", "2"})
+    public int transportationMode;
+
+    private Graph graph;
+    private int source;
+    private int destination;
+
+    /**
+     * Loads the map and finds the vertices at the ends of the route
+     * @throws Exception if the map cannot be loaded
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkMaps.load(side);
+        graph = Model.getInstance().getGraph();
+
+        int start = (int) (side * (1 - length) / 2);
+        int end = start + (int) (side * length);
+        source = graph.getIndexFromNode(nodeAt(start, start));
+        destination = graph.getIndexFromNode(nodeAt(end, end));
+    }
+
+    /**
+     * Computes the route
+     * @return Path
+     */
+    @Benchmark
+    public Path route() {
+        return new Path(graph, source, destination, transportationMode);
+    }
+
+
+    // The node of the street grid closest to the given row and column
+    private OSMNode nodeAt(int row, int column) {
+        OSMGenerator grid = BenchmarkMaps.grid(side);
+        float x = (float) (0.56 * grid.lon(row, column));
+        float y = (float) -grid.lat(row, column);
+        Highway highway = Model.getInstance().findNearestNeighbor(x, y);
+
+        OSMNode closest = null;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (OSMNode node : highway.getOSMWay()) {
+            double distance = Math.hypot(node.getLon() - x, node.getLat() - y);
+            if (distance < closestDistance) {
+                closest = node;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,81 @@
+package Benchmarks;
+
+import Model.BinHandler;
+import Model.LoadProfile;
+import Model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the same map with every LoadProfile, from the .osm file and from a .bin file saved with every layer
+ * The heap used after each load is printed by the Model, so the time and memory a profile saves are both in the output
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx8G")
+public class ProfileBenchmark {
+    @Param({"1000"})
+    public int side;
+
+    @Param({"FULL_RENDER", "ROUTING_ONLY", "GEOCODING_ONLY"})
+    public LoadProfile profile;
+
+    private File osm;
+    private File bin;
+
+    /**
+     * Saves the map as a .bin file with every layer and selects the profile
+     * @throws Exception if the map cannot be written, loaded or saved
+     */
+    @Setup
+    public void setup() throws Exception {
+        osm = BenchmarkMaps.file(side);
+        bin = File.createTempFile("benchmark-grid-" + side, ".bin");
+        Model.getInstance().setLoadProfile(LoadProfile.FULL_RENDER);
+        Model.getInstance().load(osm);
+        BinHandler.save(bin.getPath());
+        Model.getInstance().setLoadProfile(profile);
+    }
+
+    /**
+     * Deletes the saved file
+     */
+    @TearDown
+    public void tearDown() {
+        bin.delete();
+    }
+
+    /**
+     * Loads the .osm file with the profile
+     * @throws Exception if the map cannot be loaded
+     */
+    @Benchmark
+    public void loadOSM() throws Exception {
+        Model.getInstance().load(osm);
+    }
+
+    /**
+     * Loads the .bin file with the profile, skipping the sections of the layers it does not keep
+     * @throws Exception if the map cannot be loaded
+     */
+    @Benchmark
+    public void loadBin() throws Exception {
+        Model.getInstance().load(bin);
+    }
+}
@@ -2,6 +2,7 @@ package Controller;
 
 import Model.AddressParser.AddressParser;
 import Model.AddressParser.Address;
+import Model.AddressParser.BatchGeocoder;
 import Model.MapComponents.PointOfInterest;
 import Model.Model;
 import Model.OSMNode;
@@ -40,8 +41,10 @@ import javafx.stage.Stage;
 import Model.Type;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -93,6 +96,7 @@ public class Controller {
     public MapCanvas mapCanvas;
     Model model = Model.getInstance();
     Point2D lastMouse;
+    private boolean showingPartialMap; // True once the first layers of the .bin file being loaded are shown
 
     MenuItem addPointOfInterestMenu = new MenuItem("Add point of interest");
     MenuItem clearRouteMenu = new MenuItem("Clear route");
@@ -104,6 +108,11 @@ public class Controller {
     public void initialize() {
         mapCanvas.initialize(mainAnchorPane);
 
+        // Shows the layers of a .bin file as they are read
+        model.addLoadObserver(() -> platformRunLater(this::showLoadedLayers));
+        // The points of interest are kept while the map is open even if they could not be saved
+        model.addUserDataErrorObserver(message -> platformRunLater(() -> castPopupAlert(message, "Points of interest not saved")));
+
         // Sets eventlistener for textField for auto suggestions
         routeFrom.setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
@@ -175,7 +184,14 @@ public class Controller {
             return;
         }
 
-        closestHighwayLabel.setText("Closest street: " + closestWay.getStreet());
+        // Adds the house number if the closest address is on the closest street
+        String closest = closestWay.getStreet();
+        Address closestAddress = model.findNearestAddress(lon, lat);
+        if (closestAddress != null && closestAddress.getHouse() != null && closestAddress.getStreetId() == closestWay.getStreetId()) {
+            closest += " " + closestAddress.getHouse();
+        }
+
+        closestHighwayLabel.setText("Closest street: " + closest);
         mouseCoordinatesLabel.setText("Mouse lon & lat: " + -lat + ", " + (1f/0.56f) * lon);
     }
 
@@ -436,6 +452,45 @@ public class Controller {
     }
 
 
+    /**
+     * Toggles whether the base layers of the map are drawn from pre-rendered tiles
+     */
+    @FXML
+    public void toggleTileCache() {
+        model.setUseTileCache(!model.shouldUseTileCache());
+        mapCanvas.repaint();
+    }
+
+
+    /**
+     * Toggles the overlay showing the timings and counts of the painted frames
+     */
+    @FXML
+    public void showFrameStats() {
+        model.setDrawFrameStats(!model.shouldDrawFrameStats());
+        mapCanvas.repaint();
+    }
+
+
+    /**
+     * Toggles whether panning without tiles only paints the parts of the map that are new
+     */
+    @FXML
+    public void togglePanBuffer() {
+        model.setUsePanBuffer(!model.shouldUsePanBuffer());
+        mapCanvas.repaint();
+    }
+
+
+    /**
+     * Toggles whether .osm files are loaded in three passes to use less memory
+     */
+    @FXML
+    public void toggleLowMemoryLoad() {
+        model.setLowMemoryLoad(!model.shouldLoadWithLowMemory());
+    }
+
+
     private void disableLoadingStatus(boolean disable) {
         defaultMapButton.setDisable(disable);
         defaultMapButton2.setDisable(disable);
@@ -1043,6 +1098,7 @@ public class Controller {
      */
     public void loadFileAction() {
         File file = new FileChooser().showOpenDialog(mapCanvas.getNewStage());
+        showingPartialMap = false;
         new Thread(() -> {
             try {
                 platformRunLater(() -> {
@@ -1054,10 +1110,9 @@ public class Controller {
                 });
 
                 model.load(file);
-                mapCanvas.resetView();
-                mapCanvas.initialize(mainAnchorPane);
 
                 platformRunLater(() -> {
+                    showLoadedMap();
                     if (model.getHasBeenLoaded()) {
                         disableNode(loadPane);
                     } else {
@@ -1122,6 +1177,60 @@ public class Controller {
     }
 
 
+    /**
+     * Geocodes a file of addresses against the loaded map and saves the results as csv - runs in a separate thread
+     */
+    public void geocodeFileAction() {
+        File input = new FileChooser().showOpenDialog(mapCanvas.getNewStage());
+        if (input == null) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(".csv", "*.csv"));
+        File output = fileChooser.showSaveDialog(mapCanvas.getNewStage());
+        if (output == null) {
+            return;
+        }
+
+        new Thread(() -> {
+            try {
+                Map<BatchGeocoder.MatchQuality, Integer> statistics = model.geocodeFile(input, output);
+
+                platformRunLater(() -> {
+                    castPopupAlert("Geocoded addresses: " + statistics, "Geocoding done");
+                });
+            } catch (Exception e) {
+                platformRunLater(() -> {
+                    castPopupAlert("Could not geocode file", "Geocoding failed");
+                });
+                e.printStackTrace();
+            }
+        }).start();
+    }
+
+
+    /**
+     * Exports the timings and counts of the painted frames as histograms in a .csv file
+     */
+    @FXML
+    public void exportFrameStatsAction() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(".csv", "*.csv"));
+        File output = fileChooser.showSaveDialog(mapCanvas.getNewStage());
+        if (output == null) {
+            return;
+        }
+
+        try {
+            mapCanvas.getFrameStats().export(output);
+        } catch (IOException e) {
+            castPopupAlert("Could not export frame statistics", "Export failed");
+            e.printStackTrace();
+        }
+    }
+
+
     /**
      * Loads the embedded / initial file defined in Model - in a separate thread
      */
@@ -1134,15 +1243,17 @@ public class Controller {
         }
 
         disableLoadingStatus(true);
+        showingPartialMap = false;
 
         new Thread(() -> {
             try {
                 model.loadInitFile();
-                mapCanvas.initialize(mainAnchorPane);
 
                 platformRunLater(() -> {
+                    showLoadedMap();
                     disableLoadingStatus(false);
                     disableNode(loadPane);
+                    reloadPointOfInterests();
                 });
 
             } catch (Exception e) {
@@ -1164,6 +1275,29 @@ public class Controller {
     }
 
 
+    // Shows the layers read so far, the first time with the loading pane made small and the view reset to the new map
+    private void showLoadedLayers() {
+        if (!showingPartialMap) {
+            showingPartialMap = true;
+            changeLoadingBar();
+            setProcessStatus(true, true);
+            mapCanvas.resetView();
+        }
+        mapCanvas.refresh();
+    }
+
+
+    // Shows the loaded map, keeping the view if the user has been looking at its first layers while it was loaded
+    private void showLoadedMap() {
+        if (showingPartialMap) {
+            mapCanvas.refresh();
+            showingPartialMap = false;
+        } else {
+            mapCanvas.initialize(mainAnchorPane);
+        }
+    }
+
+
     private void disableNode(Node node) {
         node.setManaged(false);
         node.setVisible(false);
@@ -1,27 +1,37 @@
 package Model.AddressParser;
 
+import Model.MapInputStream;
+import Model.MapOutputStream;
 import Model.OSMNode;
+import Model.StringPool;
+
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
  * Address containing street, house, postcode and city as well as a OSMNode defining its location
+ * Street and city are stored as ids in the StringPool as the same names are repeated across many addresses
+ * Addresses searched for only look their names up in the StringPool, a name that is not on the map is kept as it is
  */
 public class Address implements Comparable<Address>, Serializable {
-    private String street, house, postcode, city;
+    private int street = StringPool.NONE;
+    private int city = StringPool.NONE;
+    private String streetName, cityName; // Names not in the StringPool, only set for addresses searched for
+    private String house, postcode;
     private OSMNode node;
 
     /**
-     * Constructor for address
+     * Constructor for an address searched for, the names are not added to the StringPool
      * @param street String
      * @param house String
      * @param postcode String
      * @param city String
      */
     public Address(String street, String house, String postcode, String city) {
-        this.street = street;
+        setStreet(street);
         this.house = house;
         this.postcode = postcode;
-        this.city = city;
+        setCity(city);
     }
 
     /**
@@ -30,6 +40,32 @@ public class Address implements Comparable<Address>, Serializable {
     public Address() {
     }
 
+    /**
+     * Constructor reading an address written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public Address(MapInputStream in) throws IOException {
+        street = in.readId();
+        city = in.readId();
+        house = in.readString();
+        postcode = in.readString();
+        node = in.readNode();
+    }
+
+    /**
+     * Writes the address to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeId(street);
+        out.writeId(city);
+        out.writeString(house);
+        out.writeString(postcode);
+        out.writeNode(node);
+    }
+
 
     /**
      * Converts house number to float value, by converting chars into ascii values
@@ -73,10 +109,15 @@ public class Address implements Comparable<Address>, Serializable {
     @Override
     public int compareTo(Address address) {
 
-        if (this.getStreet() != null && address.getStreet() != null) {
-            int compareStreet = this.getStreet().compareToIgnoreCase(address.getStreet());
-            if (compareStreet != 0) {
-                return compareStreet;
+        // Equal ids means equal names, so the string comparison is only needed for different streets
+        if (street != address.street || street == StringPool.NONE) {
+            String street1 = this.getStreet();
+            String street2 = address.getStreet();
+            if (street1 != null && street2 != null) {
+                int compareStreet = street1.compareToIgnoreCase(street2);
+                if (compareStreet != 0) {
+                    return compareStreet;
+                }
             }
         }
 
@@ -94,10 +135,14 @@ public class Address implements Comparable<Address>, Serializable {
                 return comparePostcode;
             }
         }
-        if (this.getCity() != null && address.getCity() != null) {
-            int compareCity = this.getCity().compareToIgnoreCase(address.getCity());
-            if (compareCity != 0) {
-                return compareCity;
+        if (city != address.city || city == StringPool.NONE) {
+            String city1 = this.getCity();
+            String city2 = address.getCity();
+            if (city1 != null && city2 != null) {
+                int compareCity = city1.compareToIgnoreCase(city2);
+                if (compareCity != 0) {
+                    return compareCity;
+                }
             }
         }
         return 0;
@@ -109,6 +154,8 @@ public class Address implements Comparable<Address>, Serializable {
      */
     public String getFormattedAddress() {
         String addr = "";
+        String street = getStreet();
+        String city = getCity();
 
         if (street != null && !street.isEmpty()) {
             addr += street;
@@ -133,15 +180,25 @@ public class Address implements Comparable<Address>, Serializable {
      * @return address as string
      */
     public String toString() {
-        return street + " " + house + ", " + "\n" + postcode + " " + city;
+        return getStreet() + " " + house + ", " + "\n" + postcode + " " + getCity();
     }
 
     /**
-     * Setter for street variable
+     * Setter for street variable, the name is looked up in the StringPool but not added to it
      * @param street String
      */
     public void setStreet(String street) {
+        this.street = StringPool.getInstance().idOf(street);
+        streetName = this.street == StringPool.NONE ? street : null;
+    }
+
+    /**
+     * Setter for the id of street in the StringPool, used for the addresses of the map while it is loaded
+     * @param street int id or StringPool.NONE if no street
+     */
+    public void setStreetId(int street) {
         this.street = street;
+        streetName = null;
     }
 
     /**
@@ -161,11 +218,21 @@ public class Address implements Comparable<Address>, Serializable {
     }
 
     /**
-     * Setter for city variable
+     * Setter for city variable, the name is looked up in the StringPool but not added to it
      * @param city String
      */
     public void setCity(String city) {
+        this.city = StringPool.getInstance().idOf(city);
+        cityName = this.city == StringPool.NONE ? city : null;
+    }
+
+    /**
+     * Setter for the id of city in the StringPool, used for the addresses of the map while it is loaded
+     * @param city int id or StringPool.NONE if no city
+     */
+    public void setCityId(int city) {
         this.city = city;
+        cityName = null;
     }
 
     /**
@@ -181,6 +248,14 @@ public class Address implements Comparable<Address>, Serializable {
      * @return street as string
      */
     public String getStreet() {
+        return street == StringPool.NONE ? streetName : StringPool.getInstance().get(street);
+    }
+
+    /**
+     * Getter for the id of street in the StringPool
+     * @return int id or StringPool.NONE if no street or the street is not on the map
+     */
+    public int getStreetId() {
         return street;
     }
 
@@ -205,6 +280,14 @@ public class Address implements Comparable<Address>, Serializable {
      * @return city as string
      */
     public String getCity() {
+        return city == StringPool.NONE ? cityName : StringPool.getInstance().get(city);
+    }
+
+    /**
+     * Getter for the id of city in the StringPool
+     * @return int id or StringPool.NONE if no city or the city is not on the map
+     */
+    public int getCityId() {
         return city;
     }
 
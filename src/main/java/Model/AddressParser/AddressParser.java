@@ -1,8 +1,6 @@
 package Model.AddressParser;
 
 import Model.Model;
-
-import java.util.regex.*;
 import Model.SortedAddressArrayList;
 
 /**
@@ -13,10 +11,8 @@ public class AddressParser {
     // MOVE TO MAIN SOMETIME
     private static Model model = Model.getInstance();
 
-    static String regex = "^ *(?<street>[0-9]{0,3}[\\p{L} .\\-]+)? *(?<house>[0-9]{1,3}[A-z]*)? *(?<postcode>[0-9]{1,4})? *(?<city>[\\p{L} .\\-]+)? *$"; // Exception if city is not with capitalized letters.
-    // TODO: 16/04/2020 remove commas from the regex
-
-    static Pattern pattern = Pattern.compile(regex);
+    // Scanners are reused per thread as they keep their buffers between inputs
+    private static ThreadLocal<AddressScanner> scanners = ThreadLocal.withInitial(AddressScanner::new);
 
     /**
      * Parses the input and returns address from the main addresslist from Model
@@ -32,35 +28,40 @@ public class AddressParser {
      * Parses the input and returns address with binary search
      * @param input String
      * @param addresses SortedAddressArrayList to return address from
-     * @return address from the given list (2nd parameter)
+     * @return address from the given list (2nd parameter), the parsed address if it is not in the list or null if the input cannot be parsed
      */
     public static Address parse(String input, SortedAddressArrayList addresses) {
-        try {
-
-            input = input.replaceAll(",", "");
-
-            var matcher = pattern.matcher(input);
-            Address addr;
-
-            if (matcher.matches()) {
-                addr = new Address(upperCaseEveryFirstLetter(matcher.group("street")),
-                        upperCaseEveryFirstLetter(matcher.group("house")),
-                        upperCaseEveryFirstLetter(matcher.group("postcode")),
-                        upperCaseEveryFirstLetter(matcher.group("city")));
-                if (addresses.binarySearch(addr) == null) {
-                    return addr;
-                } else {
-                    // Get real OSM address
-                    return addresses.binarySearch(addr);
-                }
-            } else {
-                throw new IllegalArgumentException("Cannot parse: " + input);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        Address addr = parseAddress(input);
+        if (addr == null) {
             return null;
         }
 
+        // Get real OSM address
+        Address found = addresses.binarySearch(addr);
+        if (found == null) {
+            return addr;
+        }
+        return found;
+    }
+
+
+    /**
+     * Parses the input into a new address without looking it up in any list of addresses
+     * Does not throw on invalid input, which makes it usable for parsing large batches of addresses
+     * @param input String
+     * @return Address with the parsed fields or null if the input cannot be parsed
+     */
+    public static Address parseAddress(String input) {
+        if (input == null) {
+            return null;
+        }
+
+        // The scanner accepts the same addresses as the regex ^ *(street)? *(house)? *(postcode)? *(city)? *$
+        AddressScanner scanner = scanners.get();
+        if (!scanner.scan(input.indexOf(',') < 0 ? input : input.replace(",", ""))) {
+            return null;
+        }
+        return new Address(scanner.street(), scanner.house(), scanner.postcode(), scanner.city());
     }
 
 
@@ -85,14 +86,35 @@ public class AddressParser {
         if (input == null) {
             return input;
         }
-        String[] words = input.split("\\s");
-        String capitalizeWord = "";
-        for (String w : words) {
-            String first = w.substring(0, 1);
-            String afterfirst = w.substring(1);
-            capitalizeWord += first.toUpperCase() + afterfirst + " ";
+        return upperCaseEveryFirstLetter(input, 0, input.length());
+    }
+
+    /**
+     * Upper cases every first letter of part of the string, used to avoid creating a substring first
+     * @param input String
+     * @param start int index of the first character
+     * @param end int index after the last character
+     * @return String with upper cased every first letter
+     */
+    static String upperCaseEveryFirstLetter(String input, int start, int end) {
+        StringBuilder capitalizeWord = new StringBuilder(end - start);
+        boolean firstLetter = true;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                // Words are separated by a single space
+                if (!firstLetter) {
+                    capitalizeWord.append(' ');
+                    firstLetter = true;
+                }
+            } else if (firstLetter) {
+                capitalizeWord.append(Character.toUpperCase(c));
+                firstLetter = false;
+            } else {
+                capitalizeWord.append(c);
+            }
         }
-        return capitalizeWord.trim();
+        return capitalizeWord.toString().trim();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package Model.AddressParser;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written scanner splitting an address into street, house number, postcode and city
+ * Accepts exactly the same inputs as the regular expression the AddressParser used before and splits them the same way:
+ * ^ *(?<street>[0-9]{0,3}[\p{L} .\-]+)? *(?<house>[0-9]{1,3}[A-z]*)? *(?<postcode>[0-9]{1,4})? *(?<city>[\p{L} .\-]+)? *$
+ * The groups are tried in the same order as the regex engine would (greedy, longest first), but every failed
+ * position is remembered, so each stage is only scanned once for every position in the input
+ */
+class AddressScanner {
+    private static final int STREET = 0;
+    private static final int HOUSE = 1;
+    private static final int POSTCODE = 2;
+    private static final int CITY = 3;
+    private static final int END = 4;
+    private static final int STAGES = 5;
+
+    private String input;
+    private int length;
+    private boolean[] failed = new boolean[0];       // failed[stage * (length + 1) + pos] if the stage cannot match from pos
+    private boolean[] failedSpaces = new boolean[0]; // Same for the spaces in front of the stage
+
+    // Start and end of each group, start is -1 if the group did not match
+    private int[] starts = new int[END];
+    private int[] ends = new int[END];
+
+    /**
+     * Scans the whole input, the scanner can be reused for another input afterwards
+     * @param input String without commas
+     * @return true if the input is an address
+     */
+    boolean scan(String input) {
+        this.input = input;
+        length = input.length();
+
+        int size = STAGES * (length + 1);
+        if (failed.length < size) {
+            failed = new boolean[size];
+            failedSpaces = new boolean[size];
+        } else {
+            Arrays.fill(failed, 0, size, false);
+            Arrays.fill(failedSpaces, 0, size, false);
+        }
+        return spacesThen(STREET, 0);
+    }
+
+    /**
+     * Returns the street, house number, postcode or city with every first letter upper cased
+     * @param group int one of the group constants
+     * @return String or null if the group was not part of the input
+     */
+    String group(int group) {
+        if (starts[group] < 0) {
+            return null;
+        }
+        return AddressParser.upperCaseEveryFirstLetter(input, starts[group], ends[group]);
+    }
+
+    /**
+     * Getter for the street, null if it was not part of the input
+     * @return String
+     */
+    String street() {
+        return group(STREET);
+    }
+
+    /**
+     * Getter for the house number, null if it was not part of the input
+     * @return String
+     */
+    String house() {
+        return group(HOUSE);
+    }
+
+    /**
+     * Getter for the postcode, null if it was not part of the input
+     * @return String
+     */
+    String postcode() {
+        return group(POSTCODE);
+    }
+
+    /**
+     * Getter for the city, null if it was not part of the input
+     * @return String
+     */
+    String city() {
+        return group(CITY);
+    }
+
+
+    // " *" followed by the given stage, trying the most spaces first
+    private boolean spacesThen(int stage, int pos) {
+        int index = stage * (length + 1) + pos;
+        if (failedSpaces[index]) {
+            return false;
+        }
+        int end = pos;
+        while (end < length && input.charAt(end) == ' ') {
+            end++;
+        }
+        for (int i = end; i >= pos; i--) {
+            if (match(stage, i)) {
+                return true;
+            }
+        }
+        failedSpaces[index] = true;
+        return false;
+    }
+
+    // The optional group of the stage followed by the rest of the address
+    private boolean match(int stage, int pos) {
+        if (stage == END) {
+            return pos == length;
+        }
+        int index = stage * (length + 1) + pos;
+        if (failed[index]) {
+            return false;
+        }
+        if (matchGroup(stage, pos)) {
+            return true;
+        }
+        // The group is optional, so try the rest without it
+        if (spacesThen(stage + 1, pos)) {
+            starts[stage] = -1;
+            return true;
+        }
+        failed[index] = true;
+        return false;
+    }
+
+    private boolean matchGroup(int stage, int pos) {
+        switch (stage) {
+            case STREET:
+                // [0-9]{0,3}[\p{L} .\-]+
+                for (int digits = countDigits(pos, 3); digits >= 0; digits--) {
+                    if (matchNames(stage, pos, pos + digits)) {
+                        return true;
+                    }
+                }
+                return false;
+            case HOUSE:
+                // [0-9]{1,3}[A-z]*
+                for (int digits = countDigits(pos, 3); digits >= 1; digits--) {
+                    int end = pos + digits;
+                    while (end < length && input.charAt(end) >= 'A' && input.charAt(end) <= 'z') {
+                        end++;
+                    }
+                    for (int i = end; i >= pos + digits; i--) {
+                        if (capture(stage, pos, i)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            case POSTCODE:
+                // [0-9]{1,4}
+                for (int digits = countDigits(pos, 4); digits >= 1; digits--) {
+                    if (capture(stage, pos, pos + digits)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                // [\p{L} .\-]+
+                return matchNames(stage, pos, pos);
+        }
+    }
+
+    // [\p{L} .\-]+ starting at from, where the group itself started at start
+    private boolean matchNames(int stage, int start, int from) {
+        int end = from;
+        while (end < length) {
+            int c = input.codePointAt(end);
+            if (!Character.isLetter(c) && c != ' ' && c != '.' && c != '-') {
+                break;
+            }
+            end += Character.charCount(c);
+        }
+        for (int i = end; i > from; i = input.offsetByCodePoints(i, -1)) {
+            if (capture(stage, start, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Matches the rest of the address after the group and stores the group if it succeeds
+    private boolean capture(int stage, int start, int end) {
+        if (!spacesThen(stage + 1, end)) {
+            return false;
+        }
+        starts[stage] = start;
+        ends[stage] = end;
+        return true;
+    }
+
+    private int countDigits(int pos, int max) {
+        int count = 0;
+        while (count < max && pos + count < length) {
+            char c = input.charAt(pos + count);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,170 @@
+package Model.AddressParser;
+
+import Model.OSMNode;
+import Model.SortedAddressArrayList;
+import Model.StringPool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Geocodes files of addresses, one address per line, against a SortedAddressArrayList
+ * Lines are read and written in chunks, so files of any size can be geocoded while only one chunk is kept in memory.
+ * The lines of a chunk are parsed and looked up in parallel, and the results are written in the same order as the input
+ */
+public class BatchGeocoder {
+    private static final int CHUNK_SIZE = 8192; // Number of lines geocoded in parallel at a time
+
+    /**
+     * How well a line matched an address on the map
+     * EXACT: street and house number were found
+     * STREET: the street was found but not the house number, the first address on the street is returned
+     * NOT_FOUND: the line could be parsed but the street is not on the map
+     * UNPARSEABLE: the line is not an address
+     */
+    public enum MatchQuality {
+        EXACT, STREET, NOT_FOUND, UNPARSEABLE
+    }
+
+    private SortedAddressArrayList addresses;
+    private Map<MatchQuality, Integer> statistics = new EnumMap<>(MatchQuality.class);
+
+    /**
+     * Constructor for BatchGeocoder
+     * @param addresses SortedAddressArrayList of the addresses to geocode against, must be sorted
+     */
+    public BatchGeocoder(SortedAddressArrayList addresses) {
+        this.addresses = addresses;
+        for (MatchQuality quality : MatchQuality.values()) {
+            statistics.put(quality, 0);
+        }
+    }
+
+
+    /**
+     * Geocodes every line of the input and writes one line of csv for each to the output:
+     * match quality, latitude, longitude, matched address and the input line
+     * @param in Reader with one address per line
+     * @param out Writer the results are written to as they are computed
+     * @throws IOException
+     */
+    public void geocode(Reader in, Writer out) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        out.write("quality,lat,lon,address,input\n");
+
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            chunk.add(line);
+            if (chunk.size() == CHUNK_SIZE) {
+                geocodeChunk(chunk, out);
+                chunk.clear();
+            }
+        }
+        geocodeChunk(chunk, out);
+        out.flush();
+    }
+
+
+    private void geocodeChunk(List<String> lines, Writer out) throws IOException {
+        Address[] results = new Address[lines.size()];
+        MatchQuality[] qualities = new MatchQuality[lines.size()];
+
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            Address query = AddressParser.parseAddress(stripQuotes(lines.get(i)));
+            qualities[i] = resolve(query, results, i);
+        });
+
+        for (int i = 0; i < lines.size(); i++) {
+            statistics.merge(qualities[i], 1, Integer::sum);
+            out.write(formatResult(lines.get(i), results[i], qualities[i]));
+        }
+    }
+
+
+    /**
+     * Geocodes a single address
+     * @param input String
+     * @return the matched address or null if no address on the map matches
+     */
+    public Address geocode(String input) {
+        Address[] result = new Address[1];
+        resolve(AddressParser.parseAddress(stripQuotes(input)), result, 0);
+        return result[0];
+    }
+
+
+    // Looks the parsed address up and stores the match in results[index]
+    private MatchQuality resolve(Address query, Address[] results, int index) {
+        if (query == null || query.getStreet() == null) {
+            return MatchQuality.UNPARSEABLE;
+        }
+
+        if (query.getHouse() != null) {
+            Address exact = addresses.binarySearch(query);
+            if (exact != null) {
+                results[index] = exact;
+                return MatchQuality.EXACT;
+            }
+        }
+
+        // Fields set to null are ignored when comparing addresses, so this finds any address on the street
+        // The query keeps the id of its street, so the StringPool is not searched again
+        query.setHouse(null);
+        query.setPostcode(null);
+        query.setCityId(StringPool.NONE);
+        Address street = addresses.binarySearch(query);
+        if (street != null) {
+            results[index] = street;
+            return MatchQuality.STREET;
+        }
+        return MatchQuality.NOT_FOUND;
+    }
+
+
+    private String formatResult(String input, Address match, MatchQuality quality) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(quality).append(',');
+
+        if (match != null && match.getNode() != null) {
+            OSMNode node = match.getNode();
+            // Converts back from map coordinates to real lat and lon
+            sb.append(-node.getLat()).append(',').append((1f / 0.56f) * node.getLon()).append(',');
+            appendQuoted(sb, match.getFormattedAddress());
+        } else {
+            sb.append(",,");
+        }
+        sb.append(',');
+        appendQuoted(sb, input);
+        return sb.append('\n').toString();
+    }
+
+    private void appendQuoted(StringBuilder sb, String value) {
+        sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    // Removes the quotes around a csv field
+    private String stripQuotes(String line) {
+        String trimmed = line.trim();
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+            return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed;
+    }
+
+
+    /**
+     * Returns the number of lines geocoded with each match quality
+     * @return Map from MatchQuality to number of lines
+     */
+    public Map<MatchQuality, Integer> getStatistics() {
+        return statistics;
+    }
+}
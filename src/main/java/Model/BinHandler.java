@@ -1,74 +1,86 @@
 package Model;
 
-import Model.MapComponents.PointOfInterest;
 import Model.Pathfinding.Graph;
 import Model.Tree.KDTree;
 import java.io.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * responsible for reading the given binary file
+ * The file is a header followed by a section for every layer of the map, each section is prefixed with its layer so the
+ * sections of layers the LoadProfile does not keep are skipped without being read.
+ * Every section is written with a MapOutputStream of its own and compressed in blocks with a checksum each, so a few
+ * sections are written and the sections are read at the same time, and the blocks of a section are compressed and
+ * inflated in parallel on a thread pool
  */
 public class BinHandler {
+    private static final int FORMAT = 0x4D415006; // "MAP" and the version of the format, so older files are refused
+    private static final int END = -1; // Written instead of a layer after the last section
+    private static final int SECTIONS_AHEAD = 2; // Sections written ahead of the one being written to the file
+    // Indexes of the KDTrees in the list given to OSMHandler.setKDTrees
+    private static final int HIGHWAY = 0, AREA = 1, WATER = 2, BUILDING = 3, MAP_ICON = 4, TERTIARYWAY = 5, PRIMARYWAY = 6,
+            HEATH = 7, MEADOW = 8, FOREST = 9, FARM = 10, WATERWAY = 11, CITY_NAMES = 12, VILLAGE_NAMES = 13, PARK = 14, RAILWAY = 15;
 
     /**
      * Saves core fields of the program as a .bin file
      * The order it is saved in has to correspond to the order it is loaded in as well and vice versa
+     * Only the layers of the LoadProfile of the Model are saved
      * @param filename String
      */
     public static void save(String filename) {
-        try {
-            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename));
-
+        ForkJoinPool pool = new ForkJoinPool();
+        // A section waits for the file while it is ahead of the section written to the file, so the sections are written
+        // on threads of their own and not on the pool compressing their blocks
+        ExecutorService writers = Executors.newFixedThreadPool(1 + SECTIONS_AHEAD);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
             Model model = Model.getInstance();
+            List<SectionWriter> sections = new ArrayList<>();
 
-            List<Float> bounds = new ArrayList<>();
-            bounds.add(model.getMaxLat());
-            bounds.add(model.getMaxLon());
-            bounds.add(model.getMinLat());
-            bounds.add(model.getMinLon());
-
-            out.writeObject(bounds);
-
-            List<SortedAddressArrayList> sortedLists = new ArrayList<>();
-            sortedLists.add(model.getOSMAddresses());
-            sortedLists.add(model.getOSMCities());
-
-            out.writeObject(sortedLists);
-
-            out.writeObject(model.getGraph());
-
-            out.writeObject(model.getIslands());
-
-            // Highway trees:
-            List<KDTree> KDTrees = new ArrayList<>();
-            KDTrees.add(model.getHighwayTree());
-            KDTrees.add(model.getAreaTree());
-            KDTrees.add(model.getWaterTree());
-            KDTrees.add(model.getBuildingTree());
-            KDTrees.add(model.getMapIconTree());
-            KDTrees.add(model.getTertiarywayTree());
-            KDTrees.add(model.getPrimarywayTree());
-            KDTrees.add(model.getHeathTree());
-            KDTrees.add(model.getMeadowTree());
-            KDTrees.add(model.getForestTree());
-            KDTrees.add(model.getFarmTree());
-            KDTrees.add(model.getWaterwayTree());
-            KDTrees.add(model.getCityNamesTree());
-            KDTrees.add(model.getVillageNamesTree());
-            KDTrees.add(model.getParkTree());
-            KDTrees.add(model.getRailwayTree());
+            // Street and city names are written once and only referenced by id from the rest of the map
+            // The points of interest of the user are not part of the map, they are in the journal of the UserDataStore
+            sections.add(section -> {
+                section.writeFloat(model.getMaxLat());
+                section.writeFloat(model.getMaxLon());
+                section.writeFloat(model.getMinLat());
+                section.writeFloat(model.getMinLon());
+                StringPool.getInstance().write(section);
+            });
 
-            out.writeObject(KDTrees);
+            List<KDTree> KDTrees = getKDTrees(model);
+            List<LoadProfile.Layer> layers = new ArrayList<>(model.getLoadProfile().getLayers());
+            for (LoadProfile.Layer layer : layers) {
+                sections.add(section -> writeLayer(model, layer, section, KDTrees));
+            }
 
-            out.writeObject(model.getPointsOfInterest());
-
-            out.reset();
-            out.close();
+            // The sections are written to the file in order as their blocks are compressed, while the next few sections
+            // are written ahead
+            out.writeInt(FORMAT);
+            Queue<BlockOutputStream> started = new ArrayDeque<>();
+            int next = 0;
+            for (int i = 0; i < sections.size(); i++) {
+                while (next < sections.size() && next <= i + SECTIONS_AHEAD) {
+                    started.add(startSection(writers, pool, sections.get(next++)));
+                }
+                if (i > 0) {
+                    out.writeByte(layers.get(i - 1).ordinal());
+                }
+                started.remove().writeTo(out);
+            }
+            out.writeByte(END);
 
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            writers.shutdownNow();
+            pool.shutdown();
         }
     }
 
@@ -76,36 +88,200 @@ public class BinHandler {
     /**
      * Loads the core fields of the program from .bin file
      * The order it is loaded in has to correspond to the order it is saved in as well and vice versa
+     * The sections of the layers the LoadProfile of the Model does not keep are skipped, and those layers are left empty.
+     * The sections are read from the file in order and deserialized at the same time on a thread pool. Every layer is
+     * handed to the OSMHandler as soon as it is read and the load observers of the Model are notified, so the small
+     * coarse layers are shown while the rest of the file is loaded
      * @param inputStream InputStream
      * @throws IOException
-     * @throws ClassNotFoundException
      */
-    public static void load(InputStream inputStream) throws IOException, ClassNotFoundException {
+    public static void load(InputStream inputStream) throws IOException {
         Model model = Model.getInstance();
+        LoadProfile profile = model.getLoadProfile();
 
-        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inputStream));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+        if (in.readInt() != FORMAT) {
+            in.close();
+            throw new IOException("The file is not a .bin file saved by this version of the program");
+        }
 
         model.getOSMHandler().initOSMHandler();
 
-        List<Float> bounds = (List<Float>) in.readObject();
-        model.getOSMHandler().setMaxLat(bounds.get(0));
-        model.getOSMHandler().setMaxLon(bounds.get(1));
-        model.getOSMHandler().setMinLat(bounds.get(2));
-        model.getOSMHandler().setMinLon(bounds.get(3));
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            MapInputStream header = new MapInputStream(BlockInputStream.read(in, pool));
+            model.getOSMHandler().setMaxLat(header.readFloat());
+            model.getOSMHandler().setMaxLon(header.readFloat());
+            model.getOSMHandler().setMinLat(header.readFloat());
+            model.getOSMHandler().setMinLon(header.readFloat());
+
+            StringPool.setInstance(new StringPool(header));
 
-        List<SortedAddressArrayList> sortedLists = (List<SortedAddressArrayList>) in.readObject();
-        model.getOSMHandler().setOSMAddresses(sortedLists.get(0));
-        model.getOSMHandler().setOSMCities(sortedLists.get(1));
+            List<KDTree> KDTrees = getKDTrees(model);
+            List<Future<Void>> sections = new ArrayList<>();
+            int ordinal;
+            while ((ordinal = in.readByte()) != END) {
+                LoadProfile.Layer layer = LoadProfile.Layer.values()[ordinal];
+                if (!profile.keeps(layer)) {
+                    BlockInputStream.skip(in);
+                    continue;
+                }
+                BlockInputStream section = BlockInputStream.read(in, pool);
+                sections.add(pool.submit(() -> {
+                    readLayer(model, layer, new MapInputStream(section), KDTrees);
+                    return null;
+                }));
+            }
 
-        model.getOSMHandler().setGraph((Graph)  in.readObject());
+            for (Future<Void> section : sections) {
+                section.get();
+            }
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while loading the file", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not load the file", e.getCause());
+        } finally {
+            pool.shutdown();
+            in.close();
+        }
+    }
 
-        model.getOSMHandler().setIslands((List<Drawable>) in.readObject());
 
-        List<KDTree> KDTrees = (List<KDTree>) in.readObject();
-        model.getOSMHandler().setKDTrees(KDTrees);
+    // Writes the parts of the map in the layer
+    private static void writeLayer(Model model, LoadProfile.Layer layer, MapOutputStream out, List<KDTree> KDTrees) throws IOException {
+        switch (layer) {
+            case ISLANDS:
+                out.writeVarInt(model.getIslands().size());
+                for (Drawable island : model.getIslands()) {
+                    out.writeDrawable(island);
+                }
+                break;
+            case PLACES:
+                writeTrees(out, KDTrees, CITY_NAMES, VILLAGE_NAMES);
+                model.getOSMCities().write(out);
+                break;
+            case ROADS:
+                // The graph is after the highways, as its vertices are their nodes and its edges refer to them
+                out.shareNodes(model.getGraph());
+                writeTrees(out, KDTrees, PRIMARYWAY, TERTIARYWAY, HIGHWAY);
+                model.getGraph().write(out);
+                break;
+            case WATER:
+                writeTrees(out, KDTrees, WATER, WATERWAY);
+                break;
+            case AREAS:
+                writeTrees(out, KDTrees, AREA, HEATH, MEADOW, FOREST, FARM, PARK);
+                break;
+            case RAILWAYS:
+                writeTrees(out, KDTrees, RAILWAY);
+                break;
+            case BUILDINGS:
+                writeTrees(out, KDTrees, BUILDING);
+                break;
+            case POINTS_OF_INTEREST:
+                writeTrees(out, KDTrees, MAP_ICON);
+                break;
+            case ADDRESSES:
+                model.getOSMAddresses().write(out);
+        }
+    }
+
+    // Reads the parts of the map in the layer and hands them to the OSMHandler
+    private static void readLayer(Model model, LoadProfile.Layer layer, MapInputStream in, List<KDTree> KDTrees) throws IOException {
+        switch (layer) {
+            case ISLANDS:
+                int count = in.readVarInt();
+                List<Drawable> islands = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    islands.add(in.readDrawable());
+                }
+                model.getOSMHandler().setIslands(islands);
+                break;
+            case PLACES:
+                publish(model, KDTrees, in, CITY_NAMES, VILLAGE_NAMES);
+                model.getOSMHandler().setOSMCities(new SortedAddressArrayList(in));
+                break;
+            case ROADS:
+                // The main roads are shown before the smaller roads and the graph are read
+                in.shareNodes();
+                publish(model, KDTrees, in, PRIMARYWAY, TERTIARYWAY);
+                model.notifyLoadObservers();
+                publish(model, KDTrees, in, HIGHWAY);
+                model.getOSMHandler().setGraph(new Graph(in));
+                break;
+            case WATER:
+                publish(model, KDTrees, in, WATER, WATERWAY);
+                break;
+            case AREAS:
+                publish(model, KDTrees, in, AREA, HEATH, MEADOW, FOREST, FARM, PARK);
+                break;
+            case RAILWAYS:
+                publish(model, KDTrees, in, RAILWAY);
+                break;
+            case BUILDINGS:
+                publish(model, KDTrees, in, BUILDING);
+                break;
+            case POINTS_OF_INTEREST:
+                publish(model, KDTrees, in, MAP_ICON);
+                break;
+            case ADDRESSES:
+                model.getOSMHandler().setOSMAddresses(new SortedAddressArrayList(in));
+                model.getOSMHandler().buildAddressTree();
+        }
+        model.notifyLoadObservers();
+    }
+
+
+    // Every KDTree of the model in the order of OSMHandler.setKDTrees
+    private static List<KDTree> getKDTrees(Model model) {
+        return new ArrayList<>(List.of(model.getHighwayTree(), model.getAreaTree(), model.getWaterTree(), model.getBuildingTree(),
+                model.getMapIconTree(), model.getTertiarywayTree(), model.getPrimarywayTree(), model.getHeathTree(),
+                model.getMeadowTree(), model.getForestTree(), model.getFarmTree(), model.getWaterwayTree(),
+                model.getCityNamesTree(), model.getVillageNamesTree(), model.getParkTree(), model.getRailwayTree()));
+    }
+
+    private static void writeTrees(MapOutputStream out, List<KDTree> KDTrees, int... indexes) throws IOException {
+        for (int index : indexes) {
+            KDTrees.get(index).write(out);
+        }
+    }
+
+    // Reads the trees and hands them to the OSMHandler along with the trees read so far by the other sections, whose
+    // fields are volatile so the render threads see whole trees
+    private static void publish(Model model, List<KDTree> KDTrees, MapInputStream in, int... indexes) throws IOException {
+        List<KDTree> trees = new ArrayList<>();
+        for (int i = 0; i < indexes.length; i++) {
+            trees.add(new KDTree(in));
+        }
+        synchronized (KDTrees) {
+            for (int i = 0; i < indexes.length; i++) {
+                KDTrees.set(indexes[i], trees.get(i));
+            }
+            model.getOSMHandler().setKDTrees(KDTrees);
+        }
+    }
+
+    // Starts writing the section with a MapOutputStream of its own on one of the writers, compressed in blocks on the pool
+    private static BlockOutputStream startSection(ExecutorService writers, ExecutorService pool, SectionWriter writer) {
+        BlockOutputStream blocks = new BlockOutputStream(pool);
+        writers.execute(() -> {
+            try {
+                MapOutputStream section = new MapOutputStream(blocks);
+                writer.write(section);
+                section.close();
+            } catch (Throwable e) {
+                blocks.abort(e);
+            }
+        });
+        return blocks;
+    }
 
-        model.setPointsOfInterest((List<PointOfInterest>) in.readObject());
 
-        in.close();
+    // Writes the parts of the map in one section
+    private interface SectionWriter {
+        void write(MapOutputStream out) throws IOException;
     }
 }
@@ -0,0 +1,197 @@
+package Model;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Input stream of the blocks written by a BlockOutputStream
+ * The blocks are read from the file at once, and the next blocks are inflated on a thread pool while the current block
+ * is read, only a few blocks ahead so the inflated bytes do not pile up when they are read slower than they are inflated
+ */
+public class BlockInputStream extends InputStream {
+    private static final int END = -1; // Read instead of the compressed length of a block after the last block
+
+    private final ForkJoinPool pool;
+    private final List<byte[]> compressed;
+    private final List<CompletableFuture<byte[]>> blocks = new ArrayList<>();
+    private byte[] block = new byte[0];
+    private int position;
+    private int next; // Index of the next block to read
+
+    private BlockInputStream(ForkJoinPool pool, List<byte[]> compressed) {
+        this.pool = pool;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Reads the compressed blocks of a BlockOutputStream from the file
+     * @param in DataInputStream of the file
+     * @param pool ForkJoinPool inflating the blocks
+     * @return BlockInputStream of the inflated bytes
+     * @throws IOException if the file cannot be read
+     */
+    public static BlockInputStream read(DataInputStream in, ForkJoinPool pool) throws IOException {
+        List<byte[]> compressed = new ArrayList<>();
+        int length;
+        while ((length = in.readInt()) != END) {
+            if (length < 0) {
+                throw new IOException("Corrupt block, its length is negative");
+            }
+            byte[] block = new byte[12 + length];
+            writeHeader(block, length, in.readInt(), in.readInt());
+            in.readFully(block, 12, length);
+            compressed.add(block);
+        }
+        return new BlockInputStream(pool, compressed);
+    }
+
+    /**
+     * Skips the compressed blocks of a BlockOutputStream in the file
+     * @param in DataInputStream of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static void skip(DataInputStream in) throws IOException {
+        int length;
+        while ((length = in.readInt()) != END) {
+            in.readInt();
+            in.readInt();
+            while (length > 0) {
+                int skipped = in.skipBytes(length);
+                if (skipped <= 0) {
+                    throw new EOFException("The block ends after the end of the file");
+                }
+                length -= skipped;
+            }
+        }
+    }
+
+    /**
+     * Reads a byte
+     * @return int the byte, -1 at the end
+     * @throws IOException if a block is corrupt
+     */
+    @Override
+    public int read() throws IOException {
+        if (position == block.length && !nextBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    /**
+     * Reads bytes into the array
+     * @param bytes byte[]
+     * @param offset int
+     * @param count int
+     * @return int number of bytes read, -1 at the end
+     * @throws IOException if a block is corrupt
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        if (position == block.length && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(count, block.length - position);
+        System.arraycopy(block, position, bytes, offset, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Returns the number of bytes that can be read without waiting for a block
+     * @return int
+     */
+    @Override
+    public int available() {
+        return block.length - position;
+    }
+
+
+    // Moves on to the next block, which is inflated by now or is waited for, and starts inflating the blocks after it
+    private boolean nextBlock() throws IOException {
+        if (next == compressed.size()) {
+            return false;
+        }
+        int ahead = next + pool.getParallelism() + 1;
+        for (int i = blocks.size(); i < Math.min(ahead, compressed.size()); i++) {
+            byte[] bytes = compressed.get(i);
+            blocks.add(CompletableFuture.supplyAsync(() -> inflate(bytes), pool));
+        }
+        try {
+            block = blocks.get(next).get();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while inflating a block", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Could not inflate a block", e.getCause());
+        }
+        // The bytes of the blocks that have been read are let go
+        compressed.set(next, null);
+        blocks.set(next, null);
+        next++;
+        position = 0;
+        return true;
+    }
+
+    // The inflated bytes of the block, checked against the checksum it was saved with
+    private static byte[] inflate(byte[] compressed) {
+        int length = readInt(compressed, 4);
+        int crc = readInt(compressed, 8);
+        byte[] bytes = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, 12, compressed.length - 12);
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                int n = inflater.inflate(bytes, inflated, length - inflated);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != length) {
+                throw new UncheckedIOException(new IOException("Corrupt block, it does not inflate to its length"));
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes, 0, inflated);
+            if ((int) checksum.getValue() != crc) {
+                throw new UncheckedIOException(new IOException("Corrupt block, its checksum does not match"));
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block", e));
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    // Puts the header read from the file back in front of the block, so a block is passed around as one array
+    private static void writeHeader(byte[] block, int compressedLength, int length, int crc) {
+        for (int i = 0; i < 4; i++) {
+            block[i] = (byte) (compressedLength >>> (24 - 8 * i));
+            block[4 + i] = (byte) (length >>> (24 - 8 * i));
+            block[8 + i] = (byte) (crc >>> (24 - 8 * i));
+        }
+    }
+
+    // Reads an int written big-endian
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+}
@@ -0,0 +1,194 @@
+package Model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream compressing the bytes written to it in blocks, each block on its own on a thread pool and with a checksum
+ * writeTo writes the blocks as they are compressed while they are still being written to the stream on another thread.
+ * Only a few blocks are compressed or wait to be written at a time, writing to the stream waits when more are, so the
+ * memory used does not grow with the number of bytes written. The blocks are read with a BlockInputStream
+ */
+public class BlockOutputStream extends OutputStream {
+    /**
+     * Number of bytes compressed together, large enough to compress well and small enough to keep every thread busy
+     */
+    public static final int BLOCK_SIZE = 1 << 20;
+    /**
+     * Number of blocks that are compressed or wait to be written at a time
+     */
+    public static final int PENDING_BLOCKS = 4;
+    private static final int END = -1; // Written instead of the compressed length of a block after the last block
+    private static final Future<byte[]> LAST = CompletableFuture.completedFuture(null); // Queued after the last block
+
+    private final ExecutorService pool;
+    private final BlockingQueue<Future<byte[]>> blocks = new ArrayBlockingQueue<>(PENDING_BLOCKS);
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int length;
+    private boolean closed;
+
+    /**
+     * Constructor for BlockOutputStream
+     * @param pool ExecutorService compressing the blocks
+     */
+    public BlockOutputStream(ExecutorService pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Writes a byte
+     * @param b int
+     * @throws IOException if interrupted while waiting for a block to be written
+     */
+    @Override
+    public void write(int b) throws IOException {
+        if (length == block.length) {
+            submit();
+        }
+        block[length++] = (byte) b;
+    }
+
+    /**
+     * Writes the bytes
+     * @param bytes byte[]
+     * @param offset int
+     * @param count int
+     * @throws IOException if interrupted while waiting for a block to be written
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+        while (count > 0) {
+            if (length == block.length) {
+                submit();
+            }
+            int n = Math.min(count, block.length - length);
+            System.arraycopy(bytes, offset, block, length, n);
+            length += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Compresses the last block and marks the end of the blocks
+     * @throws IOException if interrupted while waiting for a block to be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (length > 0) {
+            submit();
+        }
+        queue(LAST);
+        closed = true;
+    }
+
+    /**
+     * Ends the blocks with the error that stopped the bytes from being written, so writeTo throws it instead of
+     * waiting for blocks that never come
+     * @param cause Throwable
+     */
+    public void abort(Throwable cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        CompletableFuture<byte[]> failed = new CompletableFuture<>();
+        failed.completeExceptionally(cause);
+        try {
+            blocks.put(failed);
+        } catch (InterruptedException e) {
+            // writeTo is not waiting for the blocks anymore
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes every block as its compressed length, length, checksum and compressed bytes followed by the end of the
+     * blocks, each block as soon as it is compressed until the stream is closed.
+     * Is called on another thread than the one writing to the stream, unless no more than PENDING_BLOCKS are written
+     * @param out DataOutputStream
+     * @throws IOException if the blocks cannot be written or compressed, or the bytes could not be written to the stream
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        try {
+            Future<byte[]> compressed;
+            while ((compressed = blocks.take()) != LAST) {
+                out.write(compressed.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the blocks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not write the blocks", e.getCause());
+        }
+        out.writeInt(END);
+    }
+
+
+    // Compresses the current block on the pool and starts a new one
+    private void submit() throws IOException {
+        byte[] bytes = block;
+        int count = length;
+        queue(pool.submit(() -> compress(bytes, count)));
+        block = new byte[BLOCK_SIZE];
+        length = 0;
+    }
+
+    // Queues the block for writeTo, waiting while PENDING_BLOCKS blocks are queued
+    private void queue(Future<byte[]> compressed) throws IOException {
+        try {
+            blocks.put(compressed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a block to be written");
+        }
+    }
+
+    // The compressed block after its compressed length, length and checksum
+    private static byte[] compress(byte[] bytes, int count) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, count);
+        // The fastest level, the serialized map compresses nearly as well as with the default level in half the time
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes, 0, count);
+        deflater.finish();
+        byte[] compressed = new byte[12 + count / 2];
+        int length = 12;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        deflater.end();
+        writeInt(compressed, 0, length - 12);
+        writeInt(compressed, 4, count);
+        writeInt(compressed, 8, (int) crc.getValue());
+        return Arrays.copyOf(compressed, length);
+    }
+
+    // Writes the int big-endian like DataOutputStream
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
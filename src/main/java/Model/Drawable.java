@@ -1,15 +1,13 @@
 package Model;
 
-import javafx.scene.canvas.GraphicsContext;
-
 /**
  * Interface for drawable element
  * Contains two draw methods.
- * The draw method called with a double zoom parameter is used for determining poly levels
- * if draw is called without zoom it is fully drawn and no poly is applied
+ * The draw method called with a double zoom parameter is used for determining simplification levels
+ * if draw is called without zoom it is fully drawn and no simplification is applied
  */
 public interface Drawable {
-    void draw(GraphicsContext gc);
-    void draw(GraphicsContext gc, double zoom);
+    void draw(Renderer renderer);
+    void draw(Renderer renderer, double zoom);
     Type getType();
 }
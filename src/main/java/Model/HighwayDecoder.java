@@ -1,5 +1,6 @@
 package Model;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /*
@@ -19,34 +20,132 @@ import java.util.Map;
 /**
  * Responsible for determining standard speed limit for highways
  * and other highway properties such as: drivable, bikeable, walkable, roundabout, oneway - all based on further OSM specifications/restrictions
+ * While loading, the type and the tags of a highway are packed into one int of flags by setType and addTag,
+ * the methods taking a map of tags pack the map the same way
  */
 public class HighwayDecoder {
+    // Types of highway known by the rules below, the index is stored in the lowest bits of the flags, 0 is every other type
+    private static final String[] TYPES = {"", "motorway", "trunk", "primary", "secondary", "tertiary", "unclassified", "residential",
+            "living_street", "track", "path", "service", "bridleway", "cycleway", "footway", "pedestrian", "steps"};
+    private static final Map<String, Integer> TYPE_CODES = new HashMap<>();
+    private static final int TYPE_MASK = 0x1F;
+
+    // Flags of the tags of a highway
+    private static final int MOTORCAR_YES = 1 << 5;
+    private static final int MOTORCAR_NO = 1 << 6;
+    private static final int MOTOR_VEHICLE_YES = 1 << 7;
+    private static final int MOTOR_VEHICLE_NO = 1 << 8;
+    private static final int ACCESS_NO = 1 << 9; // access=no, private or forestry
+    private static final int BICYCLE_YES = 1 << 10; // bicycle=yes or permissive
+    private static final int BICYCLE_NO = 1 << 11;
+    private static final int FOOT_YES = 1 << 12; // foot=yes or permissive
+    private static final int FOOT_NO = 1 << 13;
+    private static final int ONEWAY = 1 << 14;
+    private static final int ROUNDABOUT = 1 << 15;
+    private static final int MAXSPEED_SHIFT = 16; // The tagged maxspeed plus one is stored in the highest 16 bits, 0 if there is none
+
+    static {
+        for (int i = 1; i < TYPES.length; i++) {
+            TYPE_CODES.put(TYPES[i], i);
+        }
+    }
+
+
+    /**
+     * Sets the type of highway in its flags, replacing the type set before
+     * @param flags int flags of the highway
+     * @param highwayType the value of the highway tag
+     * @return int the flags with the type
+     */
+    public static int setType(int flags, String highwayType) {
+        return (flags & ~TYPE_MASK) | (highwayType == null ? 0 : TYPE_CODES.getOrDefault(highwayType, 0));
+    }
+
+    /**
+     * Returns whether the tags with the key are used by the decoder
+     * @param key String key of the tag
+     * @return boolean
+     */
+    public static boolean isRoutingKey(String key) {
+        switch (key) {
+            case "motor_vehicle":
+            case "motorcar":
+            case "access":
+            case "bicycle":
+            case "foot":
+            case "junction":
+            case "maxspeed":
+            case "oneway":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds a tag of a highway to its flags, tags not used by the decoder are ignored
+     * @param flags int flags of the highway
+     * @param key String key of the tag
+     * @param value String value of the tag
+     * @return int the flags with the tag
+     */
+    public static int addTag(int flags, String key, String value) {
+        switch (key) {
+            case "motorcar":
+                return flags | (value.equals("yes") ? MOTORCAR_YES : value.equals("no") ? MOTORCAR_NO : 0);
+            case "motor_vehicle":
+                return flags | (value.equals("yes") ? MOTOR_VEHICLE_YES : value.equals("no") ? MOTOR_VEHICLE_NO : 0);
+            case "access":
+                return flags | (value.equals("no") || value.equals("private") || value.equals("forestry") ? ACCESS_NO : 0);
+            case "bicycle":
+                return flags | (value.equals("yes") || value.equals("permissive") ? BICYCLE_YES : value.equals("no") ? BICYCLE_NO : 0);
+            case "foot":
+                return flags | (value.equals("yes") || value.equals("permissive") ? FOOT_YES : value.equals("no") ? FOOT_NO : 0);
+            case "junction":
+                return flags | (value.equals("roundabout") ? ROUNDABOUT : 0);
+            case "oneway":
+                return flags | (value.equals("yes") ? ONEWAY : 0);
+            case "maxspeed":
+                String speed = value;
+                if (speed.contains(".")) {
+                    speed = ""; // Decimal speeds are disregarded
+                }
+                speed = speed.replaceAll("\\D", ""); // Removes maxspeed tags such as "DK:Rural", "Implicit", "Default" etc.
+                if (speed.equals("")) {
+                    return flags;
+                }
+                int maxSpeed = Math.min(Integer.parseInt(speed), 0xFFFE);
+                return (flags & ~(0xFFFF << MAXSPEED_SHIFT)) | (maxSpeed + 1) << MAXSPEED_SHIFT;
+            default:
+                return flags;
+        }
+    }
 
 
     /**
      * Grabs the maxSpeed value
      * if it already assigned explicitly in the osmfile it will return the assigned value
      * otherwise it returns the standard maxspeed associated with the given type of road
+     * @param flags int flags of the highway
+     * @return int value representing the maxspeed for the given type of road
+     */
+    public int getMaxSpeed(int flags) {
+        int maxSpeed = flags >>> MAXSPEED_SHIFT;
+        if (maxSpeed != 0) {
+            return maxSpeed - 1;
+        } else {
+            return calculateStandardMaxSpeed(TYPES[flags & TYPE_MASK]);
+        }
+    }
+
+    /**
+     * Grabs the maxSpeed value
      * @param highwayType the type of highway given as string - the valid types are only types of roads used in openstreetmaps
      * @param highwayValues hashmap used during loading
      * @return int value representing the maxspeed for the given type of road
      */
     public int getMaxSpeed(String highwayType, Map<String, String> highwayValues) {
-        String s = "";
-        String str = "";
-        if (highwayValues.get("maxspeed") != null) {
-            str = highwayValues.get("maxspeed");
-            if (str.contains(".")) {
-                str = s.split("\\.")[0]; // Disregards do
-            }
-            str = str.replaceAll("\\D", ""); // Removes maxspeed tags such as "DK:Rural", "Implicit", "Default" etc.
-        }
-
-        if (!str.equals("")) {
-            return Integer.parseInt(str);
-        } else {
-            return calculateStandardMaxSpeed(highwayType);
-        }
+        return getMaxSpeed(pack(highwayType, highwayValues));
     }
 
     // Predefined speed limits for different types of road
@@ -71,46 +170,27 @@ public class HighwayDecoder {
 
     /**
      * Returns whether the type of highway is drivable
-     * @param highwayType type of highway as determined during OSMLoad
-     * @param highwayValues map from OSMLoad with specific mapped restrictions/specifications
+     * @param flags int flags of the highway
      * @return boolean for whether it's drivable or not
      */
-    public boolean isDrivable(String highwayType, Map<String, String> highwayValues) {
-        String motor_vehicle = highwayValues.get("motor_vehicle");
-        String motorcar = highwayValues.get("motorcar");
-        String access = highwayValues.get("access");
-
-        if (motorcar != null) {
-            if (motorcar.equals("yes")) {
-                return true;
-            }
-            if (motorcar.equals("no")) {
-                return false;
-            }
+    public boolean isDrivable(int flags) {
+        if ((flags & MOTORCAR_YES) != 0) {
+            return true;
         }
-
-        if (motor_vehicle != null) {
-            if (motor_vehicle.equals("yes")) {
-                return true;
-            }
-            if (motor_vehicle.equals("no")) {
-                return false;
-            }
+        if ((flags & MOTORCAR_NO) != 0) {
+            return false;
         }
-
-        if (access != null) {
-            if (access.equals("no")) {
-                return false;
-            }
-            if (access.equals("private")) {
-                return false;
-            }
-            if (access.equals("forestry")) {
-                return false;
-            }
+        if ((flags & MOTOR_VEHICLE_YES) != 0) {
+            return true;
+        }
+        if ((flags & MOTOR_VEHICLE_NO) != 0) {
+            return false;
+        }
+        if ((flags & ACCESS_NO) != 0) {
+            return false;
         }
 
-        switch (highwayType) {
+        switch (TYPES[flags & TYPE_MASK]) {
             case "motorway":
             case "trunk":
             case "primary":
@@ -134,42 +214,34 @@ public class HighwayDecoder {
         }
     }
 
-
     /**
      * Returns whether the type of highway is drivable
      * @param highwayType type of highway as determined during OSMLoad
      * @param highwayValues map from OSMLoad with specific mapped restrictions/specifications
      * @return boolean for whether it's drivable or not
      */
-    public boolean isBikable(String highwayType, Map<String, String> highwayValues) {
-        String bicycle = highwayValues.get("bicycle");
-        String access = highwayValues.get("access");
+    public boolean isDrivable(String highwayType, Map<String, String> highwayValues) {
+        return isDrivable(pack(highwayType, highwayValues));
+    }
 
-        if (bicycle != null) {
-            if (bicycle.equals("no")) {
-                return false;
-            }
-            if (bicycle.equals("yes")) {
-                return true;
-            }
-            if (bicycle.equals("permissive")) {
-                return true;
-            }
-        }
 
-        if (access != null) {
-            if (access.equals("no")) {
-                return false;
-            }
-            if (access.equals("private")) {
-                return false;
-            }
-            if (access.equals("forestry")) {
-                return false;
-            }
+    /**
+     * Returns whether the type of highway is bikable
+     * @param flags int flags of the highway
+     * @return boolean for whether it's bikable or not
+     */
+    public boolean isBikable(int flags) {
+        if ((flags & BICYCLE_NO) != 0) {
+            return false;
+        }
+        if ((flags & BICYCLE_YES) != 0) {
+            return true;
+        }
+        if ((flags & ACCESS_NO) != 0) {
+            return false;
         }
 
-        switch (highwayType) {
+        switch (TYPES[flags & TYPE_MASK]) {
             case "motorway":
             case "trunk":
             case "bridleway":
@@ -191,42 +263,34 @@ public class HighwayDecoder {
         }
     }
 
-
     /**
-     * Returns whether the type of highway is drivable
+     * Returns whether the type of highway is bikable
      * @param highwayType type of highway as determined during OSMLoad
      * @param highwayValues map from OSMLoad with specific mapped restrictions/specifications
-     * @return boolean for whether it's drivable or not
+     * @return boolean for whether it's bikable or not
      */
-    public boolean isWalkable(String highwayType, Map<String, String> highwayValues) {
-        String foot = highwayValues.get("foot");
-        String access = highwayValues.get("access");
+    public boolean isBikable(String highwayType, Map<String, String> highwayValues) {
+        return isBikable(pack(highwayType, highwayValues));
+    }
 
-        if (foot != null) {
-            if (foot.equals("no")) {
-                return false;
-            }
-            if (foot.equals("yes")) {
-                return true;
-            }
-            if (foot.equals("permissive")) {
-                return true;
-            }
-        }
 
-        if (access != null) {
-            if (access.equals("no")) {
-                return false;
-            }
-            if (access.equals("private")) {
-                return false;
-            }
-            if (access.equals("forestry")) {
-                return false;
-            }
+    /**
+     * Returns whether the type of highway is walkable
+     * @param flags int flags of the highway
+     * @return boolean for whether it's walkable or not
+     */
+    public boolean isWalkable(int flags) {
+        if ((flags & FOOT_NO) != 0) {
+            return false;
+        }
+        if ((flags & FOOT_YES) != 0) {
+            return true;
+        }
+        if ((flags & ACCESS_NO) != 0) {
+            return false;
         }
 
-        switch (highwayType) {
+        switch (TYPES[flags & TYPE_MASK]) {
             case "motorway":
             case "trunk":
                 return false;
@@ -252,6 +316,25 @@ public class HighwayDecoder {
         }
     }
 
+    /**
+     * Returns whether the type of highway is walkable
+     * @param highwayType type of highway as determined during OSMLoad
+     * @param highwayValues map from OSMLoad with specific mapped restrictions/specifications
+     * @return boolean for whether it's walkable or not
+     */
+    public boolean isWalkable(String highwayType, Map<String, String> highwayValues) {
+        return isWalkable(pack(highwayType, highwayValues));
+    }
+
+
+    /**
+     * Checks whether the given highway is oneway or not
+     * @param flags int flags of the highway
+     * @return true if highway is oneway or false if it is not oneway
+     */
+    public boolean isOneWay(int flags) {
+        return (flags & (ONEWAY | ROUNDABOUT)) != 0;
+    }
 
     /**
      * Checks whether the given highway is oneway or not
@@ -259,26 +342,35 @@ public class HighwayDecoder {
      * @return true if highway is oneway or false if it is not oneway
      */
     public boolean isOneWay(Map<String, String> highwayValues) {
-        String isOneWay = highwayValues.get("oneway");
-        if (isOneWay != null && isOneWay.equals("yes") || isRoundabout(highwayValues)) {
-            return true;
-        } else {
-            return false;
-        }
+        return isOneWay(pack(null, highwayValues));
     }
 
 
+    /**
+     * Checks whether the given highway is a roundabout or not
+     * @param flags int flags of the highway
+     * @return true if is roundabout, false if not roundabout
+     */
+    public boolean isRoundabout(int flags) {
+        return (flags & ROUNDABOUT) != 0;
+    }
+
     /**
      * Checks whether the given highway is a roundabout or not
      * @param highwayValues hashmap used to determine if the highway is roundabout
      * @return true if is roundabout, false if not roundabout
      */
     public boolean isRoundabout(Map<String, String> highwayValues) {
-        String isRoundabout = highwayValues.get("junction");
-        if (isRoundabout != null && isRoundabout.equals("roundabout")) {
-            return true;
-        } else {
-            return false;
+        return isRoundabout(pack(null, highwayValues));
+    }
+
+
+    // Packs the type and the map of tags into flags
+    private static int pack(String highwayType, Map<String, String> highwayValues) {
+        int flags = setType(0, highwayType);
+        for (Map.Entry<String, String> tag : highwayValues.entrySet()) {
+            flags = addTag(flags, tag.getKey(), tag.getValue());
         }
+        return flags;
     }
 }
@@ -1,6 +1,6 @@
 package Model;
 
-import javafx.scene.canvas.GraphicsContext;
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -9,6 +9,7 @@ import java.io.Serializable;
 public class LinePath implements Drawable, Serializable {
     float[] coords;
     Type type;
+    byte[] detail; // Significance of every coordinate from the LineSimplifier, null if the path is always fully drawn
 
     /**
      * Constructor for creating a linepath with a float array of coords and the linepath's associated Type
@@ -34,27 +35,59 @@ public class LinePath implements Drawable, Serializable {
         this.type = type;
     }
 
+    /**
+     * Constructor reading a linepath written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public LinePath(MapInputStream in) throws IOException {
+        coords = in.readFloats();
+        type = in.readType();
+        detail = in.readByteArray();
+    }
+
+    /**
+     * Writes the linepath to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeFloats(coords);
+        out.writeType(type);
+        out.writeByteArray(detail);
+    }
+
+    /**
+     * Computes the significance of every coordinate used to draw the linepath simplified at lower zoom levels
+     * Done once when the map is loaded, the significance is saved with the linepath
+     */
+    public void simplify() {
+        if (detail == null) {
+            detail = LineSimplifier.significance(coords);
+        }
+    }
+
     /**
      * Draw method for the LinePath
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      */
     @Override
-    public void draw(GraphicsContext gc) {
-        gc.beginPath();
-        trace(gc, Double.POSITIVE_INFINITY, false);
-        gc.stroke();
+    public void draw(Renderer renderer) {
+        renderer.beginPath();
+        trace(renderer, Double.POSITIVE_INFINITY, false);
+        renderer.stroke();
     }
 
     /**
-     * Draw method for the LinePath where Poly level is taken into account based on the level of zoom
-     * @param gc GraphicsContext
+     * Draw method for the LinePath where the simplification level is taken into account based on the level of zoom
+     * @param renderer Renderer
      * @param zoom double
      */
     @Override
-    public void draw(GraphicsContext gc, double zoom) {
-        gc.beginPath();
-        trace(gc, zoom, true);
-        gc.stroke();
+    public void draw(Renderer renderer, double zoom) {
+        renderer.beginPath();
+        trace(renderer, zoom, true);
+        renderer.stroke();
     }
 
     /**
@@ -68,81 +101,52 @@ public class LinePath implements Drawable, Serializable {
 
     /**
      * The trace method responsible for tracing a line between coordinate/point in the linepath
-     * Traces through every coordinate/point if no poly level is applied, otherwise skips points depending on the level of poly
-     * @param gc GraphicsContext
+     * Traces through every coordinate/point if no simplification is applied, otherwise only the points
+     * significant enough for the simplification level of the zoom are traced
+     * @param renderer Renderer
      * @param zoom double
-     * @param poly boolean whether to apply poly or not
+     * @param simplify boolean whether to apply the simplification or not
      */
-    protected void trace(GraphicsContext gc, double zoom, boolean poly) {
-        gc.moveTo(coords[0], coords[1]);
-
-        int polyLevel = 1;
+    protected void trace(Renderer renderer, double zoom, boolean simplify) {
+        renderer.moveTo(coords[0], coords[1]);
 
-        if (poly) {
-            polyLevel = getPolyLevel(zoom, type);
+        int level = -1;
+        if (simplify && detail != null) {
+            level = LineSimplifier.levelFor(zoom);
         }
 
-        // Make sure we don't end in an endless loop
-        if (polyLevel < 1) {
-            polyLevel = 1;
-        }
-
-        int i;
-        for (i = 2; i < coords.length; i += (polyLevel * 2)) {
-            gc.lineTo(coords[i], coords[i+1]);
+        int length = coords.length / 2;
+        if (level < 0) {
+            for (int i = 1; i < length; i++) {
+                renderer.lineTo(coords[i * 2], coords[i * 2 + 1]);
+            }
+            return;
         }
 
-        // Make sure we draw last part of way
-        if (i - (polyLevel * 2)  != coords.length - 2) {
-            int length = coords.length - 2;
-            gc.lineTo(coords[length], coords[length + 1]);
+        // The last point has the highest significance, so the end of the way is always drawn
+        for (int i = 1; i < length; i++) {
+            if (detail[i] > level) {
+                renderer.lineTo(coords[i * 2], coords[i * 2 + 1]);
+            }
         }
     }
 
 
-    // poly level as an int >= 1 representing the amount of points to skip
-    private int getPolyLevel(double zoom, Type type) {
-        // Special cases
-        if (type == Type.RESIDENTIAL) { // || type == Type.FOREST || type == Type.FARM) {
-            if (zoom > 3600) {
-                return 1;
-            } else {
-                return 20;
-            }
-        }
-        if (type == Type.FOREST || type == Type.PARK) {
-            if (zoom > 5700) {
-                return 3;
-            } else {
-                return 1;
-            }
-        }
-
-        if (zoom > 104000) {
-            return 1;
-        }
-        if (zoom > 70000) {
-            return 2;
-        }
+    /**
+     * Writes the significance of the coordinates, for subclasses writing their coordinates in another way
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    protected void writeDetail(MapOutputStream out) throws IOException {
+        out.writeByteArray(detail);
+    }
 
-        if (zoom > 25000) {
-            return 4;
-        }
-        if (zoom > 18000) {
-            return 4;
-        }
-        if (zoom > 10000) {
-            return 8;
-        }
-        if (zoom > 5700) {
-            return 10;
-        }
-        if (zoom > 900) {
-            return 12;
-        }
-        if (zoom > 500) {
-            return 24;
-        }
-        return 40;
+    /**
+     * Reads the significance of the coordinates written with writeDetail
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    protected void readDetail(MapInputStream in) throws IOException {
+        detail = in.readByteArray();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * Douglas–Peucker simplification of lines at several tolerances at once
+ * Instead of storing a simplified copy of the line per tolerance, every vertex is given a significance,
+ * the number of tolerances it survives, so all the simplifications are stored in one byte per vertex
+ * A vertex is drawn at simplification level k if its significance is greater than k
+ */
+public class LineSimplifier {
+    /**
+     * Number of simplification levels, the tolerance doubles for every level
+     */
+    public static final int LEVELS = 10;
+
+    // Tolerance of level 0 in map units, half a pixel at the zoom where the most detailed draw level starts
+    private static final double BASE_TOLERANCE = 0.5 / 300000;
+
+    // How large a deviation, in pixels, is allowed when picking the level for a zoom
+    private static final double PIXEL_TOLERANCE = 0.75;
+
+    /**
+     * Computes the significance of every vertex of the line
+     * The first and last vertex are always kept, so they get the highest significance
+     * @param coords float[] with the coordinates of the line as [x0, y0, x1, y1, ...]
+     * @return byte[] with the significance of every vertex between 0 and LEVELS
+     */
+    public static byte[] significance(float[] coords) {
+        int n = coords.length / 2;
+        byte[] significance = new byte[n];
+        if (n == 0) {
+            return significance;
+        }
+        significance[0] = LEVELS;
+        significance[n - 1] = LEVELS;
+
+        // Segments still to split as (first, last, tolerance of the parent split), kept on a stack
+        // as coastlines can have so many vertices that recursing could overflow the call stack
+        int[] segments = new int[64];
+        double[] parents = new double[32];
+        int top = 0;
+        segments[0] = 0;
+        segments[1] = n - 1;
+        parents[0] = Double.POSITIVE_INFINITY;
+        top++;
+
+        while (top > 0) {
+            top--;
+            int first = segments[top * 2];
+            int last = segments[top * 2 + 1];
+            double parent = parents[top];
+            if (last - first < 2) {
+                continue;
+            }
+
+            int farthest = first;
+            double max = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = distance(coords, i, first, last);
+                if (distance > max) {
+                    max = distance;
+                    farthest = i;
+                }
+            }
+
+            // A vertex can never survive a tolerance the split above it did not, this keeps the levels nested
+            double split = Math.min(max, parent);
+            significance[farthest] = quantize(split);
+
+            if (top + 2 > parents.length) {
+                segments = Arrays.copyOf(segments, segments.length * 2);
+                parents = Arrays.copyOf(parents, parents.length * 2);
+            }
+            segments[top * 2] = first;
+            segments[top * 2 + 1] = farthest;
+            parents[top] = split;
+            top++;
+            segments[top * 2] = farthest;
+            segments[top * 2 + 1] = last;
+            parents[top] = split;
+            top++;
+        }
+        return significance;
+    }
+
+    /**
+     * Picks the simplification level to draw at the zoom
+     * @param zoom double scale of the view
+     * @return int level to draw, -1 if every vertex should be drawn
+     */
+    public static int levelFor(double zoom) {
+        double tolerance = PIXEL_TOLERANCE / zoom;
+        int level = -1;
+        while (level + 1 < LEVELS && tolerance(level + 1) <= tolerance) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Getter for the tolerance of a level
+     * @param level int between 0 and LEVELS - 1
+     * @return double largest distance in map units a vertex removed at the level lies from the simplified line
+     */
+    public static double tolerance(int level) {
+        return BASE_TOLERANCE * (1 << level);
+    }
+
+
+    // Number of levels whose tolerance the distance exceeds
+    private static byte quantize(double distance) {
+        byte levels = 0;
+        while (levels < LEVELS && distance > tolerance(levels)) {
+            levels++;
+        }
+        return levels;
+    }
+
+    // Distance from vertex i to the segment between vertex first and vertex last, closed rings have first = last
+    private static double distance(float[] coords, int i, int first, int last) {
+        double x = coords[i * 2], y = coords[i * 2 + 1];
+        double x1 = coords[first * 2], y1 = coords[first * 2 + 1];
+        double x2 = coords[last * 2], y2 = coords[last * 2 + 1];
+        double dx = x2 - x1, dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((x - x1) * dx + (y - y1) * dy) / lengthSquared));
+        }
+        double px = x1 + t * dx - x, py = y1 + t * dy - y;
+        return Math.sqrt(px * px + py * py);
+    }
+}
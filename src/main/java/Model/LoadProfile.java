@@ -0,0 +1,176 @@
+package Model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Named sets of the layers of the map that are loaded from .osm, .zip and .bin files
+ * A server that only routes or only geocodes never draws buildings, forests or farms, so with its profile those layers
+ * are neither stored while parsing nor read from the .bin file, which saves the memory and time they would take
+ */
+public enum LoadProfile {
+    FULL_RENDER("full-render", EnumSet.allOf(Layer.class)),
+    ROUTING_ONLY("routing-only", EnumSet.of(Layer.ROADS)),
+    GEOCODING_ONLY("geocoding-only", EnumSet.of(Layer.ADDRESSES, Layer.PLACES));
+
+    /**
+     * The parts of the map a profile may keep, each layer is a section of the .bin file
+     * The layers are saved in this order, the coarse layers first so they are shown while the finer layers are loaded
+     */
+    public enum Layer {
+        ISLANDS,
+        PLACES, // The trees of city and village names and the cities
+        ROADS, // The trees of primaryways and tertiaryways, the graph and the tree of highways
+        WATER, // The trees of water and waterways
+        AREAS, // The trees of areas, heaths, meadows, forests, farms and parks
+        RAILWAYS,
+        BUILDINGS,
+        POINTS_OF_INTEREST, // The tree of map icons
+        ADDRESSES; // The addresses and the tree of address locations
+
+        /**
+         * Returns the layer ways of the given type are kept in
+         * @param type Type of a way
+         * @return Layer or null if ways of the type are not kept
+         */
+        public static Layer of(Type type) {
+            switch (type) {
+                case HIGHWAY:
+                case TERTIARYWAY:
+                case PRIMARYWAY:
+                case MOTORWAY:
+                    return ROADS;
+                case PARK:
+                case RESIDENTIAL:
+                case HEATH:
+                case MEADOW:
+                case FOREST:
+                case FARM:
+                    return AREAS;
+                case WATER:
+                case WATERWAY:
+                    return WATER;
+                case BUILDING:
+                    return BUILDINGS;
+                case RAILWAY:
+                    return RAILWAYS;
+                case COASTLINE:
+                    return ISLANDS;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final String name;
+    private final Set<Layer> layers;
+
+    LoadProfile(String name, Set<Layer> layers) {
+        this.name = name;
+        this.layers = Collections.unmodifiableSet(layers);
+    }
+
+    /**
+     * Returns the profile with the given name, for instance "routing-only"
+     * @param name String
+     * @return LoadProfile
+     * @throws IllegalArgumentException if there is no profile with the name
+     */
+    public static LoadProfile fromName(String name) {
+        for (LoadProfile profile : values()) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load profile: " + name);
+    }
+
+    /**
+     * Getter for the name of the profile
+     * @return String
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for the layers kept by the profile
+     * @return Set of Layer
+     */
+    public Set<Layer> getLayers() {
+        return layers;
+    }
+
+    /**
+     * Returns whether the profile keeps the layer
+     * @param layer Layer, may be null
+     * @return boolean
+     */
+    public boolean keeps(Layer layer) {
+        return layer != null && layers.contains(layer);
+    }
+
+    /**
+     * Returns the TagClassifier flags of the tags that are read while parsing
+     * Every key deciding the type of a way is read even if the type is not kept, so the ways that are kept get the same
+     * type as with every layer, only the tags adding addresses, places, names and routing restrictions are skipped
+     * @return int
+     */
+    public int getParsedKeys() {
+        int keys = TagClassifier.BUILDING | TagClassifier.NATURAL | TagClassifier.LANDUSE | TagClassifier.LEISURE
+                | TagClassifier.WATERWAY | TagClassifier.RAILWAY | TagClassifier.HIGHWAY | TagClassifier.AMENITY | TagClassifier.SHOP;
+        if (keeps(Layer.ROADS)) {
+            keys |= TagClassifier.ROUTING | TagClassifier.NAME;
+        }
+        if (keeps(Layer.ADDRESSES)) {
+            keys |= TagClassifier.ADDR_CITY | TagClassifier.ADDR_HOUSENUMBER | TagClassifier.ADDR_POSTCODE | TagClassifier.ADDR_STREET;
+        }
+        if (keeps(Layer.PLACES)) {
+            keys |= TagClassifier.PLACE | TagClassifier.NAME;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the TagClassifier flags of the keys a way needs one of to be kept, 0 if no ways are kept
+     * @return int
+     */
+    public int getKeptWayKeys() {
+        int keys = 0;
+        if (keeps(Layer.ROADS)) {
+            keys |= TagClassifier.HIGHWAY;
+        }
+        if (keeps(Layer.AREAS)) {
+            keys |= TagClassifier.NATURAL | TagClassifier.LANDUSE | TagClassifier.LEISURE;
+        }
+        if (keeps(Layer.WATER)) {
+            keys |= TagClassifier.NATURAL | TagClassifier.LANDUSE | TagClassifier.WATERWAY;
+        }
+        if (keeps(Layer.BUILDINGS)) {
+            keys |= TagClassifier.BUILDING;
+        }
+        if (keeps(Layer.RAILWAYS)) {
+            keys |= TagClassifier.RAILWAY;
+        }
+        if (keeps(Layer.ISLANDS)) {
+            keys |= TagClassifier.NATURAL;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the TagClassifier flags of the keys a relation needs one of for its ways to be kept, buildings and water
+     * @return int
+     */
+    public int getKeptRelationKeys() {
+        int keys = 0;
+        if (keeps(Layer.BUILDINGS)) {
+            keys |= TagClassifier.BUILDING;
+        }
+        if (keeps(Layer.WATER)) {
+            keys |= TagClassifier.NATURAL;
+        }
+        return keys;
+    }
+}
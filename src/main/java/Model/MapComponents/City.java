@@ -1,16 +1,20 @@
 package Model.MapComponents;
 
 import Model.MapData;
+import Model.MapInputStream;
+import Model.MapOutputStream;
 import Model.OSMNode;
+import Model.StringPool;
 import Model.Type;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
  * Class representing a city from OSM, defined as Node in osmfile
  */
 public class City implements MapData, Serializable {
-    String city = "";
+    int city = StringPool.EMPTY; // id of the city name in the StringPool
     OSMNode node;
 
     /**
@@ -18,7 +22,7 @@ public class City implements MapData, Serializable {
      * @param city String
      */
     public City(String city) {
-        this.city = city;
+        setCity(city);
     }
 
     /**
@@ -28,12 +32,32 @@ public class City implements MapData, Serializable {
 
     }
 
+    /**
+     * Constructor reading a city written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public City(MapInputStream in) throws IOException {
+        city = in.readId();
+        node = in.readNode();
+    }
+
+    /**
+     * Writes the city to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeId(city);
+        out.writeNode(node);
+    }
+
     /**
      * Setter for city
      * @param city String
      */
     public void setCity(String city) {
-        this.city = city;
+        this.city = StringPool.getInstance().intern(city);
     }
 
     /**
@@ -111,7 +135,7 @@ public class City implements MapData, Serializable {
      * @return String city
      */
     public String getCity() {
-        return city;
+        return StringPool.getInstance().get(city);
     }
 
     /**
@@ -0,0 +1,117 @@
+package Model.MapComponents;
+
+import Model.LinePath;
+import Model.MapData;
+import Model.MapInputStream;
+import Model.MapOutputStream;
+import Model.OSMWay;
+import Model.Type;
+
+import java.io.IOException;
+
+/**
+ * Feature class representing a way from OSM which is only drawn, such as areas, buildings, water and railways
+ * The coordinates of the way are copied once when it is loaded, so it can be drawn directly from the KDTree
+ * and the OSMNodes of the way are no longer needed once the map is loaded
+ */
+public class Feature extends LinePath implements MapData {
+    private float minX, minY, maxX, maxY;
+    private float[] point;
+
+    /**
+     * Constructor for feature
+     * @param way OSMWay
+     * @param type Type
+     */
+    public Feature(OSMWay way, Type type) {
+        super(way, type);
+        minX = way.getMinX();
+        minY = way.getMinY();
+        maxX = way.getMaxX();
+        maxY = way.getMaxY();
+        point = way.getAsPoint();
+    }
+
+    /**
+     * Constructor reading a feature written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public Feature(MapInputStream in) throws IOException {
+        super(in);
+        minX = in.readFloat();
+        minY = in.readFloat();
+        maxX = in.readFloat();
+        maxY = in.readFloat();
+        point = in.readFloats();
+    }
+
+    /**
+     * Writes the feature to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    @Override
+    public void write(MapOutputStream out) throws IOException {
+        super.write(out);
+        out.writeFloat(minX);
+        out.writeFloat(minY);
+        out.writeFloat(maxX);
+        out.writeFloat(maxY);
+        out.writeFloats(point);
+    }
+
+    /**
+     * Returns the type of class
+     * @return Feature.class
+     */
+    @Override
+    public Class getClassType() {
+        return this.getClass();
+    }
+
+    /**
+     * Gets the middle point of the feature
+     * @return float[] with [0] = x, [1] = y
+     */
+    @Override
+    public float[] getAsPoint() {
+        return point;
+    }
+
+    /**
+     * getter for max x value
+     * @return float max x
+     */
+    @Override
+    public float getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * getter for min x value
+     * @return float min x
+     */
+    @Override
+    public float getMinX() {
+        return minX;
+    }
+
+    /**
+     * getter for max y value
+     * @return float max y
+     */
+    @Override
+    public float getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * getter for min y value
+     * @return float min y
+     */
+    @Override
+    public float getMinY() {
+        return minY;
+    }
+}
@@ -1,10 +1,15 @@
 package Model.MapComponents;
 
 import Model.MapData;
+import Model.MapInputStream;
+import Model.MapOutputStream;
+import Model.OSMNode;
 import Model.OSMWay;
 import Model.Pathfinding.Edge;
 import Model.LinePath;
+import Model.StringPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,7 +18,8 @@ import java.util.List;
  */
 public class Highway extends LinePath implements MapData {
     private OSMWay way;
-    private String street = "";
+    private int street = StringPool.EMPTY; // id of the street name in the StringPool
+    private int id = -1; // Number of the highway in the order highways are written to a .bin file, -1 until it is written
 
     /**
      * Constructor for highway
@@ -24,6 +30,33 @@ public class Highway extends LinePath implements MapData {
         this.way = way;
     }
 
+    /**
+     * Constructor reading a highway written with write, the coordinates to draw are taken from its nodes
+     * @param in MapInputStream whose nodes are shared
+     * @throws IOException
+     */
+    public Highway(MapInputStream in) throws IOException {
+        this(readWay(in));
+        street = in.readId();
+        readDetail(in);
+    }
+
+    /**
+     * Writes the highway to the stream of a .bin file, its nodes as the ids of the shared nodes
+     * @param out MapOutputStream whose nodes are shared
+     * @throws IOException
+     */
+    @Override
+    public void write(MapOutputStream out) throws IOException {
+        out.writeType(way.getType());
+        out.writeVarInt(way.size());
+        for (OSMNode node : way) {
+            out.writeSharedNode(node);
+        }
+        out.writeId(street);
+        writeDetail(out);
+    }
+
     /**
      * Calculates all edges in the highway
      * There is an edge between each node in the highway
@@ -41,13 +74,29 @@ public class Highway extends LinePath implements MapData {
         // Loops through all points in OSMWay
         for(int i = 0; i < way.size() - 1; i++) {
             // Generate edge between nodes
-            Edge edge = new Edge(way.get(i), way.get(i + 1), this, isOneWay, isRoundabout, speedLimit, drivable, bikable, walkable);
+            Edge edge = new Edge(way.get(i), way.get(i + 1), this, i, isOneWay, isRoundabout, speedLimit, drivable, bikable, walkable);
             edges.add(edge);
         }
 
         return edges;
     }
 
+    /**
+     * Getter for the number of the highway in the order highways are written to a .bin file
+     * @return int, -1 if it has not been written
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Setter for the number of the highway in the order highways are written to a .bin file
+     * @param id int
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Returns the type of class
      * @return Highway.class
@@ -107,7 +156,13 @@ public class Highway extends LinePath implements MapData {
      * Getter for street
      * @return String
      */
-    public String getStreet() { return street; }
+    public String getStreet() { return StringPool.getInstance().get(street); }
+
+    /**
+     * Getter for the id of the street in the StringPool
+     * @return int
+     */
+    public int getStreetId() { return street; }
 
     /**
      * Getter for way
@@ -122,6 +177,17 @@ public class Highway extends LinePath implements MapData {
      * Setter for street field
      * @param street String
      */
-    public void setStreet(String street) { this.street = street; }
+    public void setStreet(String street) { this.street = StringPool.getInstance().intern(street); }
+
 
+    // The way of a highway written with write
+    private static OSMWay readWay(MapInputStream in) throws IOException {
+        OSMWay way = new OSMWay();
+        way.setType(in.readType());
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            way.add(in.readSharedNode());
+        }
+        return way;
+    }
 }
@@ -1,17 +1,18 @@
 package Model.MapComponents;
 
 import Model.Drawable;
-import Model.ImageHandler;
 import Model.MapData;
+import Model.MapInputStream;
+import Model.MapOutputStream;
+import Model.Renderer;
 import Model.Type;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
  * MapIcon represents a hotspot/point of interest with lat & lon coords.
- * Gets the corresponding image from ImageHandler
+ * The Renderer draws the image of its type
  */
 public class MapIcon implements Drawable, MapData, Serializable {
     protected float lon;
@@ -31,30 +32,44 @@ public class MapIcon implements Drawable, MapData, Serializable {
     }
 
     /**
-     * Returns the image associated with the type of mapicon
-     * @return Image
+     * Constructor reading a MapIcon written with write
+     * @param in MapInputStream
+     * @throws IOException
      */
-    protected Image getImage() {
-        return ImageHandler.getInstance().getImage(type);
+    public MapIcon(MapInputStream in) throws IOException {
+        lon = in.readFloat();
+        lat = in.readFloat();
+        type = in.readType();
+    }
+
+    /**
+     * Writes the MapIcon to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeFloat(lon);
+        out.writeFloat(lat);
+        out.writeType(type);
     }
 
     /**
      * Draws the image on canvas with a fixed width and height
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      */
-    public void draw(GraphicsContext gc) {
-        gc.drawImage(getImage(), lon, lat, 0.0001, 0.0001);
+    public void draw(Renderer renderer) {
+        renderer.drawIcon(type, lon, lat, 0.0001, 0.0001);
     }
 
     /**
      * Draws the image on canvas with a fixed width and height
      * Zoom is not used
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      * @param zoom double
      */
     @Override
-    public void draw(GraphicsContext gc, double zoom) {
-        draw(gc);
+    public void draw(Renderer renderer, double zoom) {
+        draw(renderer);
     }
 
 
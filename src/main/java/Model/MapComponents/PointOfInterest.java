@@ -1,13 +1,13 @@
 package Model.MapComponents;
 
 import Model.Drawable;
+import Model.Renderer;
 import Model.Type;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
  * Point of interest (POI) can either represent a user-placed POI pin with lat & lon coords as well as a given bookmark name
  * or the pins used for destination and source marking for the searched route
- * Gets the corresponding image from ImageHandler
+ * The Renderer draws the image of its type
  */
 public class PointOfInterest extends MapIcon implements Drawable {
     private String name;
@@ -37,21 +37,21 @@ public class PointOfInterest extends MapIcon implements Drawable {
 
     /**
      * Draw function for POI
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      * @param width width of the image to draw
      * @param height height of the image to draw
      */
-    public void draw(GraphicsContext gc, double width, double height) {
-        gc.drawImage(super.getImage(), super.lon-height/2.15, super.lat-width/1.07, width, height);
+    public void draw(Renderer renderer, double width, double height) {
+        renderer.drawIcon(type, super.lon-height/2.15, super.lat-width/1.07, width, height);
     }
 
     /**
      * empty and not used
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      * @param zoom double
      */
     @Override
-    public void draw(GraphicsContext gc, double zoom) {}
+    public void draw(Renderer renderer, double zoom) {}
 
     /**
      * Getter for Type of POI
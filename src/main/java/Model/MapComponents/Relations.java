@@ -1,8 +1,8 @@
 package Model.MapComponents;
 
 import Model.*;
-import javafx.scene.canvas.GraphicsContext;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -47,23 +47,53 @@ public class Relations implements MapData, Drawable, Serializable {
 
     }
 
+    /**
+     * Constructor reading a relation written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public Relations(MapInputStream in) throws IOException {
+        shape = in.readDrawable();
+        type = in.readType();
+        minLon = in.readFloat();
+        maxLon = in.readFloat();
+        minLat = in.readFloat();
+        maxLat = in.readFloat();
+        point = in.readFloats();
+    }
+
+    /**
+     * Writes the relation to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeDrawable(shape);
+        out.writeType(type);
+        out.writeFloat(minLon);
+        out.writeFloat(maxLon);
+        out.writeFloat(minLat);
+        out.writeFloat(maxLat);
+        out.writeFloats(point);
+    }
+
     /**
      * Draws the relation
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      */
     @Override
-    public void draw(GraphicsContext gc) {
-        shape.draw(gc);
+    public void draw(Renderer renderer) {
+        shape.draw(renderer);
     }
 
     /**
-     * Draws the relation with poly
-     * @param gc GraphicsContext
+     * Draws the relation simplified for the zoom
+     * @param renderer Renderer
      * @param zoom double
      */
     @Override
-    public void draw(GraphicsContext gc, double zoom) {
-        shape.draw(gc, zoom);
+    public void draw(Renderer renderer, double zoom) {
+        shape.draw(renderer, zoom);
     }
 
     /**
@@ -0,0 +1,196 @@
+package Model;
+
+import Model.MapComponents.City;
+import Model.MapComponents.Feature;
+import Model.MapComponents.Highway;
+import Model.MapComponents.MapIcon;
+import Model.MapComponents.Relations;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input stream of the parts of the map written by a MapOutputStream
+ * The shared nodes and the highways are kept by their id, so the graph read after the highways refers to the same nodes
+ * and highways as the trees
+ */
+public class MapInputStream extends DataInputStream {
+    private static final Type[] TYPES = Type.values();
+
+    private OSMNode[] nodes; // Shared nodes by their id, null if no nodes are shared
+    private final List<Highway> highways = new ArrayList<>(); // Highways by their id
+
+    /**
+     * Constructor for MapInputStream
+     * @param in InputStream
+     */
+    public MapInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Reads an int written with writeVarInt
+     * @return int
+     * @throws IOException
+     */
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Too long varint");
+    }
+
+    /**
+     * Reads an id of the StringPool
+     * @return int
+     * @throws IOException
+     */
+    public int readId() throws IOException {
+        return readVarInt() - 1;
+    }
+
+    /**
+     * Reads an array of floats that may be null
+     * @return float[]
+     * @throws IOException
+     */
+    public float[] readFloats() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readFloat();
+        }
+        return values;
+    }
+
+    /**
+     * Reads an array of bytes that may be null
+     * @return byte[]
+     * @throws IOException
+     */
+    public byte[] readByteArray() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] values = new byte[length];
+        readFully(values);
+        return values;
+    }
+
+    /**
+     * Reads a String that may be null
+     * @return String
+     * @throws IOException
+     */
+    public String readString() throws IOException {
+        return readBoolean() ? readUTF() : null;
+    }
+
+    /**
+     * Reads a Type that may be null
+     * @return Type
+     * @throws IOException
+     */
+    public Type readType() throws IOException {
+        int ordinal = readVarInt();
+        return ordinal == 0 ? null : TYPES[ordinal - 1];
+    }
+
+    /**
+     * Reads a node that is not shared, which may be null
+     * @return OSMNode
+     * @throws IOException
+     */
+    public OSMNode readNode() throws IOException {
+        return readBoolean() ? new OSMNode(readFloat(), readFloat()) : null;
+    }
+
+    /**
+     * Makes the nodes read after this shared, reading the number of them
+     * @throws IOException
+     */
+    public void shareNodes() throws IOException {
+        nodes = new OSMNode[readVarInt()];
+    }
+
+    /**
+     * Reads a shared node, the same OSMNode is returned every time its id is read
+     * @return OSMNode
+     * @throws IOException
+     */
+    public OSMNode readSharedNode() throws IOException {
+        int id = readVarInt();
+        if (nodes[id] == null) {
+            nodes[id] = new OSMNode(readFloat(), readFloat());
+        }
+        return nodes[id];
+    }
+
+    /**
+     * Getter for a highway read before
+     * @param id int its number in the order highways are read
+     * @return Highway
+     */
+    public Highway getHighway(int id) {
+        return highways.get(id);
+    }
+
+    /**
+     * Reads MapData written with writeMapData
+     * @return MapData
+     * @throws IOException
+     */
+    public MapData readMapData() throws IOException {
+        return (MapData) readElement();
+    }
+
+    /**
+     * Reads a Drawable written with writeDrawable
+     * @return Drawable
+     * @throws IOException
+     */
+    public Drawable readDrawable() throws IOException {
+        return (Drawable) readElement();
+    }
+
+
+    // Reads the tag of the class and then the object
+    private Object readElement() throws IOException {
+        int tag = readVarInt();
+        switch (tag) {
+            case MapOutputStream.NULL:
+                return null;
+            case MapOutputStream.HIGHWAY:
+                Highway highway = new Highway(this);
+                highways.add(highway);
+                return highway;
+            case MapOutputStream.FEATURE:
+                return new Feature(this);
+            case MapOutputStream.LINE_PATH:
+                return new LinePath(this);
+            case MapOutputStream.RELATIONS:
+                return new Relations(this);
+            case MapOutputStream.RELATION_LINE_PATH:
+                return new RelationLinePath(this);
+            case MapOutputStream.MAP_ICON:
+                return new MapIcon(this);
+            case MapOutputStream.CITY:
+                return new City(this);
+            default:
+                throw new StreamCorruptedException("Unknown tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package Model;
+
+import Model.MapComponents.City;
+import Model.MapComponents.Feature;
+import Model.MapComponents.Highway;
+import Model.MapComponents.MapIcon;
+import Model.MapComponents.Relations;
+import Model.Pathfinding.Graph;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.util.BitSet;
+
+/**
+ * Output stream of the parts of the map saved in a .bin file, read with a MapInputStream
+ * Unlike an ObjectOutputStream it keeps no table of every object written, every part of the map writes its own fields.
+ * The nodes shared by highways and the graph are written once with their index in the graph as id and are referred
+ * to by that id after that, and every highway is numbered in the order it is written, so the only memory kept while
+ * writing is a bit per node
+ */
+public class MapOutputStream extends DataOutputStream {
+    // Tags written before a Drawable or MapData telling the MapInputStream what class to read
+    static final int NULL = 0, LINE_PATH = 1, HIGHWAY = 2, FEATURE = 3, RELATIONS = 4, RELATION_LINE_PATH = 5, MAP_ICON = 6, CITY = 7;
+
+    private Graph graph; // Graph whose nodes are shared, null if no nodes are shared
+    private BitSet written; // Shared nodes whose coordinates have been written
+    private int highways; // Number of highways written
+
+    /**
+     * Constructor for MapOutputStream
+     * @param out OutputStream
+     */
+    public MapOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Writes an int of 0 to 127 in one byte, larger ints take up to five bytes
+     * @param value int, negative ints take five bytes
+     * @throws IOException
+     */
+    public void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        write(value);
+    }
+
+    /**
+     * Writes an id of the StringPool, NONE included
+     * @param id int
+     * @throws IOException
+     */
+    public void writeId(int id) throws IOException {
+        writeVarInt(id + 1);
+    }
+
+    /**
+     * Writes an array of floats that may be null
+     * @param values float[]
+     * @throws IOException
+     */
+    public void writeFloats(float[] values) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.length + 1);
+        for (float value : values) {
+            writeFloat(value);
+        }
+    }
+
+    /**
+     * Writes an array of bytes that may be null
+     * @param values byte[]
+     * @throws IOException
+     */
+    public void writeByteArray(byte[] values) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.length + 1);
+        write(values);
+    }
+
+    /**
+     * Writes a String that may be null
+     * @param string String
+     * @throws IOException
+     */
+    public void writeString(String string) throws IOException {
+        writeBoolean(string != null);
+        if (string != null) {
+            writeUTF(string);
+        }
+    }
+
+    /**
+     * Writes a Type that may be null
+     * @param type Type
+     * @throws IOException
+     */
+    public void writeType(Type type) throws IOException {
+        writeVarInt(type == null ? 0 : type.ordinal() + 1);
+    }
+
+    /**
+     * Writes the coordinates of a node that is not shared, which may be null
+     * @param node OSMNode
+     * @throws IOException
+     */
+    public void writeNode(OSMNode node) throws IOException {
+        writeBoolean(node != null);
+        if (node != null) {
+            writeFloat(node.getLon());
+            writeFloat(node.getLat());
+        }
+    }
+
+    /**
+     * Makes the nodes of the graph shared, writing the number of them
+     * @param graph Graph
+     * @throws IOException
+     */
+    public void shareNodes(Graph graph) throws IOException {
+        this.graph = graph;
+        written = new BitSet(graph.numberOfVertices());
+        writeVarInt(graph.numberOfVertices());
+    }
+
+    /**
+     * Writes a node of the graph as its id, followed by its coordinates the first time it is written
+     * @param node OSMNode
+     * @throws IOException
+     */
+    public void writeSharedNode(OSMNode node) throws IOException {
+        int id = graph.getIndexFromNode(node);
+        writeVarInt(id);
+        if (!written.get(id)) {
+            written.set(id);
+            writeFloat(node.getLon());
+            writeFloat(node.getLat());
+        }
+    }
+
+    /**
+     * Getter for the id of a highway written before, which is its number in the order highways are written
+     * @param highway Highway
+     * @return int
+     * @throws IOException if the highway has not been written
+     */
+    public int getHighwayId(Highway highway) throws IOException {
+        int id = highway.getId();
+        if (id < 0 || id >= highways) {
+            throw new NotSerializableException("The highway of an edge has to be written before the edge");
+        }
+        return id;
+    }
+
+    /**
+     * Writes MapData of any of the classes in the trees of the map, which may be null
+     * @param data MapData
+     * @throws IOException
+     */
+    public void writeMapData(MapData data) throws IOException {
+        writeElement(data);
+    }
+
+    /**
+     * Writes a Drawable of any of the classes drawn on the map, which may be null
+     * @param drawable Drawable
+     * @throws IOException
+     */
+    public void writeDrawable(Drawable drawable) throws IOException {
+        writeElement(drawable);
+    }
+
+
+    // Writes the tag of the class followed by the fields of the object
+    private void writeElement(Object element) throws IOException {
+        if (element == null) {
+            writeVarInt(NULL);
+        } else if (element instanceof Highway) {
+            writeVarInt(HIGHWAY);
+            ((Highway) element).setId(highways++);
+            ((Highway) element).write(this);
+        } else if (element instanceof Feature) {
+            writeVarInt(FEATURE);
+            ((Feature) element).write(this);
+        } else if (element.getClass() == LinePath.class) {
+            writeVarInt(LINE_PATH);
+            ((LinePath) element).write(this);
+        } else if (element instanceof Relations) {
+            writeVarInt(RELATIONS);
+            ((Relations) element).write(this);
+        } else if (element instanceof RelationLinePath) {
+            writeVarInt(RELATION_LINE_PATH);
+            ((RelationLinePath) element).write(this);
+        } else if (element.getClass() == MapIcon.class) {
+            writeVarInt(MAP_ICON);
+            ((MapIcon) element).write(this);
+        } else if (element instanceof City) {
+            writeVarInt(CITY);
+            ((City) element).write(this);
+        } else {
+            throw new NotSerializableException(element.getClass().getName());
+        }
+    }
+}
@@ -1,19 +1,22 @@
 package Model;
 
+import Model.AddressParser.Address;
+import Model.AddressParser.BatchGeocoder;
 import Model.MapComponents.*;
 import Model.Pathfinding.Graph;
 import Model.Pathfinding.Path;
 import Model.Tree.KDTree;
 
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 /**
@@ -28,10 +31,18 @@ public class Model implements Serializable {
 
     private boolean drawDijkstraIllustration;
     private boolean drawKDTreeIllustration;
+    private boolean drawFrameStats;
+    private boolean useTileCache = true;
+    private boolean usePanBuffer = true;
+    private boolean lowMemoryLoad = false;
+    private LoadProfile loadProfile = LoadProfile.FULL_RENDER;
     private int colorScheme = 0; // default: 0 - Google Maps: 1 - Dark theme: 2 (original name Aubergine)
 
     private List<Runnable> observers = new ArrayList<>();
+    private List<Runnable> loadObservers = new ArrayList<>(); // Run on the loading thread when a part of the map can be shown
+    private List<Consumer<String>> userDataErrorObservers = new ArrayList<>(); // Told when points of interest could not be saved
     private List<PointOfInterest> pointsOfInterest = new ArrayList<>();
+    private UserDataStore userData; // Journal of the points of interest of the loaded map
     // Saves direction & path
     private Path path;
     private OSMWay route = new OSMWay();
@@ -66,6 +77,8 @@ public class Model implements Serializable {
             // Ensures .bin files can be loaded inside jar
             InputStream res = getClass().getClassLoader().getResourceAsStream(initFile);
             BinHandler.load(res);
+            // The embedded map cannot be written to, so its journal is in the working directory
+            openUserData(Paths.get(journalName(initFile)));
         } else {
             // Any other files than .bin as only .bin are supposed to be embedded in the jar
             URL res = getClass().getClassLoader().getResource(initFile);
@@ -98,6 +111,41 @@ public class Model implements Serializable {
         }
     }
 
+
+    /**
+     * Adds observer that is run on the loading thread every time a layer of a .bin file being loaded has been read
+     * @param observer Runnable
+     */
+    public void addLoadObserver(Runnable observer) {
+        loadObservers.add(observer);
+    }
+
+
+    /**
+     * calls the run function on all load observers, before the whole file has been loaded
+     */
+    public void notifyLoadObservers() {
+        for (var observer : loadObservers) {
+            observer.run();
+        }
+    }
+
+    /**
+     * Adds observer that is given a message when the points of interest of the map could not be saved
+     * @param observer Consumer of String
+     */
+    public void addUserDataErrorObserver(Consumer<String> observer) {
+        userDataErrorObservers.add(observer);
+    }
+
+
+    // Tells the observers that the points of interest could not be saved
+    private void notifyUserDataError(String message, IOException e) {
+        for (var observer : userDataErrorObservers) {
+            observer.accept(message + ": " + e.getMessage());
+        }
+    }
+
     // Resets everything in model
     private void reset() {
         pointsOfInterest.clear();
@@ -133,9 +181,14 @@ public class Model implements Serializable {
             reset();
             loadZIP(file);
             hasBeenLoaded = true;
+        } else if (ParallelDecompressor.isCompressed(filename)) {
+            reset();
+            loadCompressed(file);
+            hasBeenLoaded = true;
         } else {
             throw new IllegalArgumentException("Invalid type of file");
         }
+        openUserData(journalOf(file));
 
 
         time += System.nanoTime();
@@ -143,6 +196,8 @@ public class Model implements Serializable {
         notifyObservers();
 
         System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Heap used with %s profile: %.1fMB\n", loadProfile.getName(), (runtime.totalMemory() - runtime.freeMemory()) / 1e6);
     }
 
 
@@ -152,26 +207,66 @@ public class Model implements Serializable {
         BinHandler.load(inputStream);
     }
 
-    private void loadOSM(File file) throws IOException, XMLStreamException {
-        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new FileReader(file, StandardCharsets.UTF_8));
-        OSMHandler.loadOSM(reader);
+    // Scans the bytes of the file with the OSMScanner, which gives the same map as reading it with StAX
+    private void loadOSM(File file) throws IOException {
+        OSMHandler.loadOSM(() -> new OSMScanner(FileChannel.open(file.toPath())), lowMemoryLoad, loadProfile);
     }
 
 
-    private void loadZIP(File file) throws IOException, XMLStreamException {
+    // Every .osm entry replaces the map of the entry before it, so only the last is loaded
+    // The entry is inflated on a thread of its own while it is parsed
+    private void loadZIP(File file) throws IOException {
         var zipFile = new ZipFile(file);
         var iterator = zipFile.entries().asIterator();
 
+        ZipEntry last = null;
         while (iterator.hasNext()) {
             var zipEntry = iterator.next();
             if (!zipEntry.isDirectory() && zipEntry.getName().endsWith(".osm")) {
-                var stream = zipFile.getInputStream(zipEntry);
-                var reader = XMLInputFactory.newFactory().createXMLStreamReader(stream);
-                OSMHandler.loadOSM(reader);
+                last = zipEntry;
+            }
+        }
+        if (last != null) {
+            ZipEntry zipEntry = last;
+            OSMHandler.loadOSM(() -> new OSMScanner(ParallelDecompressor.pipe(zipFile.getInputStream(zipEntry))), lowMemoryLoad, loadProfile);
+        }
+    }
+
+    // .osm.bz2 and .osm.gz files are decompressed in parallel while they are parsed
+    private void loadCompressed(File file) throws IOException {
+        OSMHandler.loadOSM(() -> new OSMScanner(ParallelDecompressor.open(file)), lowMemoryLoad, loadProfile);
+    }
+
+    // Closes the journal of the map loaded before and reads the points of interest of the journal of the new map
+    // The map is still usable if the journal cannot be read, its points of interest are then not saved
+    private void openUserData(java.nio.file.Path journal) {
+        try {
+            if (userData != null) {
+                userData.close();
             }
+            userData = UserDataStore.open(journal);
+            userData.setCompactionErrorObserver(e -> notifyUserDataError("Could not compact the points of interest", e));
+            pointsOfInterest = userData.getPointsOfInterest();
+        } catch (IOException e) {
+            userData = null;
+            notifyUserDataError("Could not read the points of interest of the map", e);
         }
     }
 
+    // The journal of a map is next to it, named like the map with .poi instead of its extension
+    private static java.nio.file.Path journalOf(File file) {
+        return file.toPath().resolveSibling(journalName(file.getName()));
+    }
+
+    // Both map.osm.bz2 and map.bin have the journal map.poi, so a map saved as .bin keeps the points of interest
+    private static String journalName(String filename) {
+        String name = filename.substring(0, filename.lastIndexOf('.'));
+        if (name.endsWith(".osm")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name + ".poi";
+    }
+
 
     /**
      * Responsible for handling the saving to .bin file
@@ -183,6 +278,15 @@ public class Model implements Serializable {
 
         if (file.getName().endsWith(".bin")) {
             BinHandler.save(file + "");
+            // The points of interest are copied to a journal next to the saved map, unless it is the journal in use
+            java.nio.file.Path journal = journalOf(file);
+            if (userData == null || !userData.getPath().equals(journal)) {
+                try {
+                    UserDataStore.write(journal, pointsOfInterest);
+                } catch (IOException e) {
+                    notifyUserDataError("Could not save the points of interest next to the map", e);
+                }
+            }
         } else {
             throw new IllegalArgumentException("Invalid type of file");
         }
@@ -192,6 +296,28 @@ public class Model implements Serializable {
     }
 
 
+    /**
+     * Geocodes every line of the input file against the addresses of the loaded map and writes the results as csv
+     * @param input File with one address per line
+     * @param output File the results are written to
+     * @return Map with the number of lines of each match quality
+     * @throws IOException
+     */
+    public Map<BatchGeocoder.MatchQuality, Integer> geocodeFile(File input, File output) throws IOException {
+        long time = -System.nanoTime();
+
+        BatchGeocoder geocoder = new BatchGeocoder(getOSMAddresses());
+        try (Reader in = new FileReader(input, StandardCharsets.UTF_8);
+             Writer out = new BufferedWriter(new FileWriter(output, StandardCharsets.UTF_8))) {
+            geocoder.geocode(in, out);
+        }
+
+        time += System.nanoTime();
+        System.out.printf("Geocode time: %.3fms\n", time / 1e6);
+        return geocoder.getStatistics();
+    }
+
+
     /**
      * Computes the shortest path or the quickest path between the given source and destination depending on the mode of transportation
      * @param source OSMNode
@@ -440,6 +566,89 @@ public class Model implements Serializable {
     }
 
 
+    /**
+     * Returns boolean for whether the timings and counts of the painted frames should be shown
+     * @return boolean
+     */
+    public boolean shouldDrawFrameStats() {
+        return drawFrameStats;
+    }
+
+    /**
+     * Sets whether the timings and counts of the painted frames should be shown
+     * @param drawFrameStats boolean
+     */
+    public void setDrawFrameStats(boolean drawFrameStats) {
+        this.drawFrameStats = drawFrameStats;
+    }
+
+
+    /**
+     * Returns boolean for whether the base layers of the map are drawn from pre-rendered tiles
+     * @return boolean true if tiles should be used, false if everything is drawn from the KDTrees
+     */
+    public boolean shouldUseTileCache() {
+        return useTileCache;
+    }
+
+    /**
+     * Sets whether the base layers of the map are drawn from pre-rendered tiles
+     * @param useTileCache boolean
+     */
+    public void setUseTileCache(boolean useTileCache) {
+        this.useTileCache = useTileCache;
+    }
+
+    /**
+     * Returns boolean for whether panning without tiles shifts the last painted view and only paints the exposed strips
+     * @return boolean true if the PanBuffer should be used, false if everything is drawn again when panning
+     */
+    public boolean shouldUsePanBuffer() {
+        return usePanBuffer;
+    }
+
+    /**
+     * Sets whether panning without tiles shifts the last painted view and only paints the exposed strips
+     * @param usePanBuffer boolean
+     */
+    public void setUsePanBuffer(boolean usePanBuffer) {
+        this.usePanBuffer = usePanBuffer;
+    }
+
+    /**
+     * Returns boolean for whether .osm files are loaded in three passes keeping only the nodes and ways that are used
+     * @return boolean true if loading uses less memory but reads the file three times
+     */
+    public boolean shouldLoadWithLowMemory() {
+        return lowMemoryLoad;
+    }
+
+    /**
+     * Sets whether .osm files are loaded in three passes keeping only the nodes and ways that are used
+     * @param lowMemoryLoad boolean
+     */
+    public void setLowMemoryLoad(boolean lowMemoryLoad) {
+        this.lowMemoryLoad = lowMemoryLoad;
+    }
+
+    /**
+     * Getter for the profile of the layers that are kept when loading a file
+     * @return LoadProfile
+     */
+    public LoadProfile getLoadProfile() {
+        return loadProfile;
+    }
+
+    /**
+     * Sets the profile of the layers that are kept when loading a file, for instance routing-only on a routing server
+     * The layers the profile does not keep are empty, and are not saved to .bin files
+     * @param loadProfile LoadProfile
+     */
+    public void setLoadProfile(LoadProfile loadProfile) {
+        this.loadProfile = loadProfile;
+    }
+
+
     /**
      * Returns result from nearest neighbor search
      * @param x float value representing the lon/x coordinate to compute nearest neighbor search at
@@ -450,6 +659,37 @@ public class Model implements Serializable {
         return OSMHandler.getHighwayTree().nearestNeighbor(x, y);
     }
 
+    /**
+     * Returns the address closest to the given point (reverse geocoding)
+     * @param x float value representing the lon/x coordinate
+     * @param y float value representing the lat/y coordinate
+     * @return Address or null if the map has no addresses
+     */
+    public Address findNearestAddress(float x, float y) {
+        return OSMHandler.getAddressTree().nearest(x, y);
+    }
+
+    /**
+     * Returns the k addresses closest to the given point sorted by distance
+     * @param x float value representing the lon/x coordinate
+     * @param y float value representing the lat/y coordinate
+     * @param k int number of addresses to return
+     * @return List of Address
+     */
+    public List<Address> findNearestAddresses(float x, float y, int k) {
+        return OSMHandler.getAddressTree().nearest(x, y, k);
+    }
+
+    /**
+     * Reverse geocodes a batch of points, e.g. a GPS trace, in parallel
+     * @param x float[] of lon/x coordinates
+     * @param y float[] of lat/y coordinates
+     * @return Address[] with the closest address of each point
+     */
+    public Address[] reverseGeocode(float[] x, float[] y) {
+        return OSMHandler.getAddressTree().nearest(x, y);
+    }
+
     /**
      * Returns the computed Path
      * @return Path
@@ -498,6 +738,13 @@ public class Model implements Serializable {
      */
     public void addPointOfInterest(PointOfInterest point){
         pointsOfInterest.add(point);
+        if (userData != null) {
+            try {
+                userData.add(point);
+            } catch (IOException e) {
+                notifyUserDataError("Could not save the point of interest", e);
+            }
+        }
     }
 
     /**
@@ -523,6 +770,13 @@ public class Model implements Serializable {
      */
     public void deletePointOfInterest(PointOfInterest point){
         pointsOfInterest.remove(point);
+        if (userData != null) {
+            try {
+                userData.delete(point);
+            } catch (IOException e) {
+                notifyUserDataError("Could not save the deletion of the point of interest", e);
+            }
+        }
     }
 
     /**
@@ -3,17 +3,18 @@ package Model;
 import Model.AddressParser.Address;
 import Model.MapComponents.*;
 import Model.Pathfinding.Graph;
+import Model.Tree.AddressKDTree;
 import Model.Tree.KDTree;
 
-import javax.xml.stream.FactoryConfigurationError;
-import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
 import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
@@ -25,37 +26,40 @@ public class OSMHandler {
 
     private float minLat, minLon, maxLat, maxLon; //These floats indicate the bounds of the map, they are used for zooming and panning.
 
-    private List<Drawable> islands = new ArrayList<>();
+    // The map data is volatile as a .bin file hands every layer to the render threads as soon as it has been read
+    private volatile List<Drawable> islands = new ArrayList<>();
 
     // Highway trees:
-    private KDTree tertiarywayTree = new KDTree(); // Contains highways of type Tertiary
-    private KDTree primarywayTree = new KDTree(); // Contains highways of types Primary and Motorway
-    private KDTree highwayTree = new KDTree(); // Contains all other types of highways but Tertiary, Primary and Motorway(and motorway_junction)
-    private KDTree cityNamesTree = new KDTree(); // Contains slightly larger city names
-    private KDTree villageNamesTree = new KDTree(); // Contains smaller village/town/city names
-    private KDTree mapIconTree = new KDTree(); // Contains MapIcons for points of interests like Cafés, restaurents etc
-    private KDTree areaTree = new KDTree(); // Contains ways that shows a certain area around something (ex. Residential)
-    private KDTree waterTree = new KDTree(); // Contains ways that show all types of water
-    private KDTree buildingTree = new KDTree(); // Contains ways that are Buildings
-    private KDTree heathTree = new KDTree(); // Contains heaths
-    private KDTree meadowTree = new KDTree(); // Contain meadows
-    private KDTree forestTree = new KDTree(); // Contain forests
-    private KDTree parkTree = new KDTree(); // Contain parks
-    private KDTree farmTree = new KDTree(); // Contain farms
-    private KDTree waterwayTree = new KDTree(); // Contain waterways
-    private KDTree railwayTree = new KDTree(); // Contain railways
-
-    private SortedAddressArrayList OSMAddresses = new SortedAddressArrayList(); //The list of addresses, these are used to binary search in the addressparser.
-    private SortedAddressArrayList OSMCities = new SortedAddressArrayList(); //Same as above but for cities.
+    private volatile KDTree tertiarywayTree = new KDTree(); // Contains highways of type Tertiary
+    private volatile KDTree primarywayTree = new KDTree(); // Contains highways of types Primary and Motorway
+    private volatile KDTree highwayTree = new KDTree(); // Contains all other types of highways but Tertiary, Primary and Motorway(and motorway_junction)
+    private volatile KDTree cityNamesTree = new KDTree(); // Contains slightly larger city names
+    private volatile KDTree villageNamesTree = new KDTree(); // Contains smaller village/town/city names
+    private volatile KDTree mapIconTree = new KDTree(); // Contains MapIcons for points of interests like Cafés, restaurents etc
+    private volatile KDTree areaTree = new KDTree(); // Contains ways that shows a certain area around something (ex. Residential)
+    private volatile KDTree waterTree = new KDTree(); // Contains ways that show all types of water
+    private volatile KDTree buildingTree = new KDTree(); // Contains ways that are Buildings
+    private volatile KDTree heathTree = new KDTree(); // Contains heaths
+    private volatile KDTree meadowTree = new KDTree(); // Contain meadows
+    private volatile KDTree forestTree = new KDTree(); // Contain forests
+    private volatile KDTree parkTree = new KDTree(); // Contain parks
+    private volatile KDTree farmTree = new KDTree(); // Contain farms
+    private volatile KDTree waterwayTree = new KDTree(); // Contain waterways
+    private volatile KDTree railwayTree = new KDTree(); // Contain railways
+
+    private volatile SortedAddressArrayList OSMAddresses = new SortedAddressArrayList(); //The list of addresses, these are used to binary search in the addressparser.
+    private volatile SortedAddressArrayList OSMCities = new SortedAddressArrayList(); //Same as above but for cities.
+    private volatile AddressKDTree addressTree = new AddressKDTree(OSMAddresses); // Locations of OSMAddresses used for reverse geocoding
 
     // Graph
-    private Graph graph;
+    private volatile Graph graph;
 
 
     /**
      * Initializes the OSMHandler
      */
     public void initOSMHandler() {
+        StringPool.setInstance(new StringPool());
         graph = new Graph();
         islands = new ArrayList<>();
 
@@ -81,6 +85,7 @@ public class OSMHandler {
 
         OSMAddresses = new SortedAddressArrayList();
         OSMCities = new SortedAddressArrayList();
+        addressTree = new AddressKDTree(OSMAddresses);
 
         minLat = 0;
         minLon = 0;
@@ -92,34 +97,200 @@ public class OSMHandler {
 
 
     /**
-     * responsible for reading and parsing the .osm file by reading keys and tags
+     * responsible for reading and parsing the .osm file with StAX
      * @param reader XMLStreamReader
-     * @throws FileNotFoundException
-     * @throws XMLStreamException
-     * @throws FactoryConfigurationError
-     * @throws IOException
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public void loadOSM(XMLStreamReader reader) throws IOException {
+        loadOSM(new StaxOSMReader(reader));
+    }
+
+    /**
+     * responsible for reading and parsing the .osm file by reading keys and tags
+     * @param reader OSMReader, an OSMScanner or a StaxOSMReader
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public void loadOSM(OSMReader reader) throws IOException {
+        loadOSM(reader, null, null, LoadProfile.FULL_RENDER);
+    }
+
+    /**
+     * Loads the .osm file opened by the source
+     * With low memory the file is read three times. The first pass finds the ways of the relations that are kept, the second
+     * finds the nodes of the ways that are kept, and the last pass loads the map holding on to only those nodes and ways,
+     * instead of every node and way of the file until the whole file has been read
+     * @param source OSMReader.Source opening the file
+     * @param lowMemory boolean true to load in three passes
+     * @param profile LoadProfile of the layers that are kept
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public void loadOSM(OSMReader.Source source, boolean lowMemory, LoadProfile profile) throws IOException {
+        // Without any ways kept the single pass holds on to no nodes or ways either
+        if (!lowMemory || profile.getKeptWayKeys() == 0) {
+            try (OSMReader reader = source.open()) {
+                loadOSM(reader, null, null, profile);
+            }
+            return;
+        }
+
+        long time = -System.nanoTime();
+        SparseBitSet relationWays;
+        try (OSMReader reader = source.open()) {
+            relationWays = findRelationWays(reader, profile);
+        }
+        time += System.nanoTime();
+        System.out.printf("Relation pass time: %.3fms\n", time / 1e6);
+
+        time = -System.nanoTime();
+        SparseBitSet usedNodes;
+        try (OSMReader reader = source.open()) {
+            usedNodes = findUsedNodes(reader, relationWays, profile);
+        }
+        time += System.nanoTime();
+        System.out.printf("Node pass time: %.3fms\n", time / 1e6);
+        System.out.printf("Kept nodes: %d, kept relation ways: %d\n", usedNodes.size(), relationWays.size());
+
+        try (OSMReader reader = source.open()) {
+            loadOSM(reader, usedNodes, relationWays, profile);
+        }
+    }
+
+    /**
+     * Finds the ways that are members of the relations loadOSM may keep, buildings and water
+     * @param reader OSMReader of the file
+     * @param profile LoadProfile of the layers that are kept
+     * @return SparseBitSet of way ids
+     * @throws IOException if the file cannot be read or is malformed
      */
-    public void loadOSM(XMLStreamReader reader) throws XMLStreamException, FactoryConfigurationError {
+    public SparseBitSet findRelationWays(OSMReader reader, LoadProfile profile) throws IOException {
+        SparseBitSet ways = new SparseBitSet();
+        int keptKeys = profile.getKeptRelationKeys();
+        TagClassifier tagClassifier = new TagClassifier();
+        long[] members = new long[64];
+        int count = 0;
+        boolean inRelation = false;
+        boolean kept = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "relation":
+                        inRelation = true;
+                        kept = false;
+                        count = 0;
+                        break;
+                    case "member":
+                        if (inRelation && "way".equals(reader.getAttribute("type"))) {
+                            if (count == members.length) {
+                                members = Arrays.copyOf(members, count * 2);
+                            }
+                            members[count++] = reader.getLong("ref");
+                        }
+                        break;
+                    case "tag":
+                        if (inRelation && (tagClassifier.classify(reader.getAttribute("k")) & keptKeys) != 0) {
+                            kept = true;
+                        }
+                }
+            } else if (event == END_ELEMENT && reader.getLocalName().equals("relation")) {
+                if (kept) {
+                    for (int i = 0; i < count; i++) {
+                        ways.add(members[i]);
+                    }
+                }
+                inRelation = false;
+            }
+        }
+        return ways;
+    }
+
+    /**
+     * Finds the nodes of the ways loadOSM may keep, which are the ways tagged with a kind of map data and the ways of relations
+     * @param reader OSMReader of the file
+     * @param relationWays SparseBitSet of the ways of relations, found by findRelationWays
+     * @param profile LoadProfile of the layers that are kept
+     * @return SparseBitSet of node ids
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public SparseBitSet findUsedNodes(OSMReader reader, SparseBitSet relationWays, LoadProfile profile) throws IOException {
+        SparseBitSet nodes = new SparseBitSet();
+        int keptKeys = profile.getKeptWayKeys();
+        TagClassifier tagClassifier = new TagClassifier();
+        long[] refs = new long[256];
+        int count = 0;
+        boolean inWay = false;
+        boolean kept = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "way":
+                        inWay = true;
+                        kept = relationWays.contains(reader.getLong("id"));
+                        count = 0;
+                        break;
+                    case "nd":
+                        if (inWay) {
+                            if (count == refs.length) {
+                                refs = Arrays.copyOf(refs, count * 2);
+                            }
+                            refs[count++] = reader.getLong("ref");
+                        }
+                        break;
+                    case "tag":
+                        if (inWay && (tagClassifier.classify(reader.getAttribute("k")) & keptKeys) != 0) {
+                            kept = true;
+                        }
+                        break;
+                    case "relation":
+                        return nodes; // Relations come after every way
+                }
+            } else if (event == END_ELEMENT && reader.getLocalName().equals("way")) {
+                if (kept) {
+                    for (int i = 0; i < count; i++) {
+                        nodes.add(refs[i]);
+                    }
+                }
+                inWay = false;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * responsible for reading and parsing the .osm file by reading keys and tags
+     * @param reader OSMReader, an OSMScanner or a StaxOSMReader
+     * @param usedNodes SparseBitSet of the only nodes ways are made of, or null to keep every node
+     * @param relationWays SparseBitSet of the only ways relations are made of, or null to keep every way
+     * @param profile LoadProfile of the layers that are kept, the other layers are left empty
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public void loadOSM(OSMReader reader, SparseBitSet usedNodes, SparseBitSet relationWays, LoadProfile profile) throws IOException {
 
         initOSMHandler();
 
+        int parsedKeys = profile.getParsedKeys();
+        boolean keepsWays = profile.getKeptWayKeys() != 0; // Without any ways there is no need to hold on to nodes and ways
+        boolean keepsRelations = profile.getKeptRelationKeys() != 0;
+        boolean keepsRoads = profile.keeps(LoadProfile.Layer.ROADS);
+
         OSMNode currentNode = null;
         OSMWay currentWay = null;
 
         // highway values
         HighwayDecoder highwayDecoder = new HighwayDecoder();
-        Map<String, String> highwayValues = new HashMap<>(); // Stores extra values if road for instance has private access but is bikable
-        String highwayType = null;
+        int highwayFlags = 0; // Type and extra values of the road packed by the HighwayDecoder, for instance private access but bikable
+        TagClassifier tagClassifier = new TagClassifier();
 
         Map<Long,OSMWay> idToWay = new HashMap<>();
 
         Map<Long, OSMNode> nodeForHighwayID = new HashMap<>();
-        Map<OSMNode, OSMWay> nodeToCoastline = new HashMap<>();
+        List<OSMWay> coastlines = new ArrayList<>(); // Merged into islands after parsing
+        List<LinePath> drawnWays = new ArrayList<>(); // Simplified after parsing
         Type type = Type.UNKNOWN;
         Address refAddress = new Address();
-        Address refCityAddress = new Address();
-        City city = new City();
-        Address osmWayAddress = new Address();
+        String wayName = null; // Last seen name, used as street name of highways
+        String cityName = null; // Name of the next city, reset after each inserted city
         Type currentElementType = Type.UNKNOWN;
         OSMRelation currentRelation = null;
         boolean isCurrentPointOfInterest = false;
@@ -134,29 +305,33 @@ public class OSMHandler {
                         case "osm":
                             break;
                         case "bounds":
-                            minLat = -Float.parseFloat(reader.getAttributeValue(null, "maxlat"));
-                            maxLon = 0.56f * Float.parseFloat(reader.getAttributeValue(null, "maxlon"));
-                            maxLat = -Float.parseFloat(reader.getAttributeValue(null, "minlat"));
-                            minLon = 0.56f * Float.parseFloat(reader.getAttributeValue(null, "minlon"));
+                            minLat = -reader.getFloat("maxlat");
+                            maxLon = 0.56f * reader.getFloat("maxlon");
+                            maxLat = -reader.getFloat("minlat");
+                            minLon = 0.56f * reader.getFloat("minlon");
                             break;
                         case "node":
                             currentElementType = Type.NODE;
-                            long id = Long.parseLong(reader.getAttributeValue(null, "id"));
-                            float lat = Float.parseFloat(reader.getAttributeValue(null, "lat"));
-                            float lon = Float.parseFloat(reader.getAttributeValue(null, "lon"));
+                            long id = reader.getLong("id");
+                            float lat = reader.getFloat("lat");
+                            float lon = reader.getFloat("lon");
                             OSMNode node = new OSMNode(0.56f * lon, -lat);
-                            nodeForHighwayID.put(id, node);
+                            if (keepsWays && (usedNodes == null || usedNodes.contains(id))) {
+                                nodeForHighwayID.put(id, node);
+                            }
                             currentNode = node;
                             break;
                         case "way":
                             currentElementType = Type.WAY;
-                            id = Long.parseLong(reader.getAttributeValue(null, "id"));
+                            id = reader.getLong("id");
                             currentWay = new OSMWay();
-                            idToWay.put(id, currentWay);
+                            if (keepsRelations && (relationWays == null || relationWays.contains(id))) {
+                                idToWay.put(id, currentWay);
+                            }
                             type = Type.UNKNOWN;
                             break;
                         case "nd":  // Adds nd ref to the current way
-                            var ndref = Long.parseLong(reader.getAttributeValue(null, "ref"));
+                            var ndref = reader.getLong("ref");
                             if (currentWay != null) {
                                 OSMNode n = nodeForHighwayID.get(ndref);
                                 if (n != null) {
@@ -165,12 +340,16 @@ public class OSMHandler {
                             }
                             break;
                         case "tag":
-                            var k = reader.getAttributeValue(null, "k");
-                            var v = reader.getAttributeValue(null, "v");
-                            if (k.contains("building")) {
+                            var k = reader.getAttribute("k");
+                            int key = tagClassifier.classify(k) & parsedKeys;
+                            if (key == 0) {
+                                break;
+                            }
+                            var v = reader.getAttribute("v");
+                            if ((key & TagClassifier.BUILDING) != 0) {
                                 type = Type.BUILDING;
                             }
-                            if (k.contains("natural")) {
+                            if ((key & TagClassifier.NATURAL) != 0) {
                                 switch (v) {
                                     case "coastline":
                                         type = Type.COASTLINE;
@@ -190,7 +369,7 @@ public class OSMHandler {
                                 }
                                 break;
                             }
-                            if (k.contains("landuse")) {
+                            if ((key & TagClassifier.LANDUSE) != 0) {
                                 switch (v) {
                                     case "forest":
                                         type = Type.FOREST;
@@ -209,20 +388,20 @@ public class OSMHandler {
                                         break;
                                 }
                             }
-                            if (k.contains("leisure")) {
+                            if ((key & TagClassifier.LEISURE) != 0) {
                                 if (v.contains("park")) {
                                     type = Type.PARK;
                                 }
                             }
-                            if (k.contains("waterway")) {
+                            if ((key & TagClassifier.WATERWAY) != 0) {
                                 type = Type.WATERWAY;
                             }
-                            if (k.contains("railway")) {
+                            if ((key & TagClassifier.RAILWAY) != 0) {
                                 type = Type.RAILWAY;
                             }
 
 
-                            if (k.contains("highway")) {
+                            if ((key & TagClassifier.HIGHWAY) != 0) {
                                 if (v.contains("tertiary")) {
                                     type = Type.TERTIARYWAY;
                                 } else if (v.contains("motorway") || v.contains("motorway_junction")) {
@@ -232,10 +411,10 @@ public class OSMHandler {
                                 } else {
                                     type = Type.HIGHWAY;
                                 }
-                                highwayType = v;
+                                highwayFlags = HighwayDecoder.setType(highwayFlags, v);
                             }
                             // Points of interest
-                            if (k.contains("amenity")) {
+                            if ((key & TagClassifier.AMENITY) != 0) {
                                 switch (v) {
                                     case "fuel":
                                         type = Type.FUEL;
@@ -257,7 +436,7 @@ public class OSMHandler {
                                 }
                             }
                             // Points of interest
-                            if (k.contains("shop")) {
+                            if ((key & TagClassifier.SHOP) != 0) {
                                 switch (v) {
                                     case "clothes":
                                         type = Type.CLOTHES;
@@ -269,82 +448,57 @@ public class OSMHandler {
                                         break;
                                 }
                             }
-                            // Checks if following conditions exists
-                            if (k.contains("motor_vehicle")) {
-                                highwayValues.put(k, v);
-                            }
-
-                            if (k.contains("motorcar")) {
-                                highwayValues.put(k, v);
-                            }
-
-                            if (k.contains("access")) {
-                                if (v.contains("private") || v.contains("forestry") || v.contains("no")) {
-                                    highwayValues.put(k, v);
-                                }
-                            }
-                            if (k.contains("bicycle")) {
-                                highwayValues.put(k, v);
-                            }
-                            if (k.contains("foot")) {
-                                highwayValues.put(k, v);
-                            }
-                            if (k.contains("junction")) {
-                                if (v.contains("roundabout")) {
-                                    highwayValues.put(k, v);
-                                }
-                            }
-                            if (k.equals("maxspeed")) {
-                                highwayValues.put(k, v);
-
-                            }
-                            if (k.equals("oneway")) {
-                                highwayValues.put(k, v);
+                            // Restrictions and specifications of highways used by the HighwayDecoder
+                            if ((key & TagClassifier.ROUTING) != 0) {
+                                highwayFlags = HighwayDecoder.addTag(highwayFlags, k, v);
                             }
 
                             // Creates address objects which the map contains and adds them to OSMaddresser.
-                            if (k.contains("addr:city")) {
-                                refAddress.setCity(v);
+                            if ((key & TagClassifier.ADDR_CITY) != 0) {
+                                refAddress.setCityId(StringPool.getInstance().intern(v));
                             }
-                            if (k.contains("addr:housenumber")) {
+                            if ((key & TagClassifier.ADDR_HOUSENUMBER) != 0) {
                                 refAddress.setHouse(v);
                             }
-                            if (k.contains("addr:postcode")) {
+                            if ((key & TagClassifier.ADDR_POSTCODE) != 0) {
                                 refAddress.setPostcode(v);
                             }
-                            if (k.contains("addr:street")) {
-                                refAddress.setStreet(v);
+                            if ((key & TagClassifier.ADDR_STREET) != 0) {
+                                refAddress.setStreetId(StringPool.getInstance().intern(v));
                                 refAddress.setNode(currentNode);
                                 OSMAddresses.add(refAddress);
                                 refAddress = new Address();
                             }
                             // Name of OSMWay
-                            if (k.equals("name")) {
-                                osmWayAddress = new Address();
-                                if (v != null) {
-                                    osmWayAddress.setStreet(v);
-                                    city.setCity(v);
-                                    refCityAddress.setCity(v);
-                                }
+                            if ((key & TagClassifier.NAME) != 0) {
+                                wayName = v;
+                                cityName = v;
                             }
                             // Makes a list of cities so it's possible to search for a city.
-                            if (k.contains("place")) {
+                            if ((key & TagClassifier.PLACE) != 0) {
                                 if (v.contains("village") || v.contains("hamlet") || v.contains("town") || v.contains("city") || v.contains("municipality")) {
                                     if (currentElementType.equals(Type.NODE)) {
+                                        // Names are only added to the StringPool once it is known they are used
+                                        Address refCityAddress = new Address();
+                                        refCityAddress.setCityId(StringPool.getInstance().intern(cityName));
                                         refCityAddress.setNode(currentNode);
+
+                                        City city = new City();
+                                        if (cityName != null) {
+                                            city.setCity(cityName);
+                                        }
                                         city.setNode(currentNode);
 
                                         OSMCities.add(refCityAddress);
 
                                         if (v.contains("town") || v.contains("city")) {
-                                            cityNamesTree.insert(city);
+                                            cityNamesTree.add(city);
                                         } else {
-                                            villageNamesTree.insert(city);
+                                            villageNamesTree.add(city);
                                         }
 
                                         //Finally, reset the value of the city after insertion.
-                                        city = new City();
-                                        refCityAddress = new Address();
+                                        cityName = null;
                                     }
                                 }
                             }
@@ -353,8 +507,8 @@ public class OSMHandler {
                             currentRelation = new OSMRelation();
                             break;
                         case "member":
-                            var relationType = reader.getAttributeValue(null, "type");
-                            ndref = Long.parseLong(reader.getAttributeValue(null, "ref"));
+                            var relationType = reader.getAttribute("type");
+                            ndref = reader.getLong("ref");
                             if (relationType.equals("way")) {
                                 OSMWay relationWay = idToWay.get(ndref);
                                 if (relationWay != null) {
@@ -368,25 +522,28 @@ public class OSMHandler {
                     switch (tagname) {
                         case "way":
                             if (type == Type.HIGHWAY || type == Type.TERTIARYWAY || type == Type.MOTORWAY || type == Type.PRIMARYWAY) {
+                                if (!keepsRoads) {
+                                    break;
+                                }
 
                                 currentWay.setType(type);
                                 Highway highway = new Highway(currentWay);
+                                drawnWays.add(highway);
 
-                                if (osmWayAddress.getStreet() != null) {
+                                if (wayName != null) {
                                     // Set address to current road
-                                    highway.setStreet(osmWayAddress.getStreet());
-
+                                    highway.setStreet(wayName);
                                 }
 
                                 graph.insert(highway); // Inserts in graph for Dijkstra
-                                graph.addEdges(highway, highwayDecoder.isOneWay(highwayValues), highwayDecoder.isRoundabout(highwayValues), highwayDecoder.getMaxSpeed(highwayType, highwayValues), highwayDecoder.isDrivable(highwayType, highwayValues), highwayDecoder.isBikable(highwayType, highwayValues), highwayDecoder.isWalkable(highwayType, highwayValues));
+                                graph.addEdges(highway, highwayDecoder.isOneWay(highwayFlags), highwayDecoder.isRoundabout(highwayFlags), highwayDecoder.getMaxSpeed(highwayFlags), highwayDecoder.isDrivable(highwayFlags), highwayDecoder.isBikable(highwayFlags), highwayDecoder.isWalkable(highwayFlags));
 
                                 if (type == Type.TERTIARYWAY) {
-                                    tertiarywayTree.insert(highway);
+                                    tertiarywayTree.add(highway);
                                 } else if (type == Type.PRIMARYWAY || type == Type.MOTORWAY) {
-                                    primarywayTree.insert(highway);
+                                    primarywayTree.add(highway);
                                 } else if (type == Type.HIGHWAY) {
-                                    highwayTree.insert(highway); // Inserts to list for KDTree
+                                    highwayTree.add(highway); // Inserts to list for KDTree
                                 }
                                 break;
                             } else if (type != Type.COASTLINE) {
@@ -395,76 +552,68 @@ public class OSMHandler {
 
                                     currentWay.setType(type);
 
+                                    KDTree tree = null;
                                     switch (type) {
                                         case PARK:
-                                            parkTree.insert(currentWay);
+                                            tree = parkTree;
                                             break;
                                         case RESIDENTIAL:
-                                            areaTree.insert(currentWay);
+                                            tree = areaTree;
                                             break;
                                         case HEATH:
-                                            heathTree.insert(currentWay);
+                                            tree = heathTree;
                                             break;
                                         case MEADOW:
-                                            meadowTree.insert(currentWay);
+                                            tree = meadowTree;
                                             break;
                                         case FOREST:
-                                            forestTree.insert(currentWay);
+                                            tree = forestTree;
                                             break;
                                         case FARM:
-                                            farmTree.insert(currentWay);
+                                            tree = farmTree;
                                             break;
                                         case WATERWAY:
-                                            waterwayTree.insert(currentWay);
+                                            tree = waterwayTree;
                                             break;
                                         case WATER:
-                                            waterTree.insert(currentWay);
+                                            tree = waterTree;
                                             break;
                                         case BUILDING:
-                                            buildingTree.insert(currentWay);
+                                            tree = buildingTree;
                                             break;
                                         case RAILWAY:
-                                            railwayTree.insert(currentWay);
+                                            tree = railwayTree;
                                     }
-                                }
-                            } else {
 
-                                var before = nodeToCoastline.remove(currentWay.first());
-                                if (before != null) {
-                                    nodeToCoastline.remove(before.first());
-                                    nodeToCoastline.remove(before.last());
-                                }
-
-                                var after = nodeToCoastline.remove(currentWay.last());
-                                if (after != null) {
-                                    nodeToCoastline.remove(after.first());
-                                    nodeToCoastline.remove(after.last());
+                                    if (tree != null && profile.keeps(LoadProfile.Layer.of(type))) {
+                                        // Only the coordinates are kept for drawing, the way itself is not needed after loading
+                                        Feature feature = new Feature(currentWay, type);
+                                        drawnWays.add(feature);
+                                        tree.add(feature);
+                                    }
                                 }
-
-                                // first = first nd tag in the way node
-                                // last = last nd tag of the way node
-                                currentWay = OSMWay.merge(OSMWay.merge(before, currentWay), after);
-                                nodeToCoastline.put(currentWay.first(), currentWay);
-                                nodeToCoastline.put(currentWay.last(), currentWay);
+                            } else if (profile.keeps(LoadProfile.Layer.ISLANDS)) {
+                                coastlines.add(currentWay);
                             }
-                            highwayType = null; // Resets string
-                            highwayValues.clear(); // Empties previous map
+                            highwayFlags = 0; // Resets the flags of the highway
                             type = Type.UNKNOWN; // resets type
                             break;
                         case "node":
                             if (isCurrentPointOfInterest) {
-                                MapIcon mapIcon = new MapIcon(currentNode.getLon(), currentNode.getLat(), type);
-                                mapIconTree.insert(mapIcon);
+                                if (profile.keeps(LoadProfile.Layer.POINTS_OF_INTEREST)) {
+                                    MapIcon mapIcon = new MapIcon(currentNode.getLon(), currentNode.getLat(), type);
+                                    mapIconTree.add(mapIcon);
+                                }
                                 isCurrentPointOfInterest = false;
                             }
                             break;
                         case "relation":
                             if (currentRelation != null && currentRelation.size() != 0) {
-                                if (type == Type.BUILDING) {
-                                    buildingTree.insert(new Relations(currentRelation, type));
+                                if (type == Type.BUILDING && profile.keeps(LoadProfile.Layer.BUILDINGS)) {
+                                    buildingTree.add(new Relations(currentRelation, type));
                                 }
-                                if (type == Type.WATER) {
-                                    waterTree.insert(new Relations(currentRelation, type));
+                                if (type == Type.WATER && profile.keeps(LoadProfile.Layer.WATER)) {
+                                    waterTree.add(new Relations(currentRelation, type));
                                 }
                             }
                         type = Type.UNKNOWN; // resets type
@@ -472,35 +621,132 @@ public class OSMHandler {
             }
         }
 
-        for (var entry : nodeToCoastline.entrySet()) {
-            if (entry.getKey() == entry.getValue().last()) {
-                islands.add(new LinePath(entry.getValue(), type));
-            }
-        }
-
-        // Sorts OSMaddresser at program startup to allow binarysearch of the list when using the AddressParser
-        OSMAddresses.sortByAddress();
-        OSMCities.sortByAddress();
-
+        finishLoad(coastlines, drawnWays, type);
 
         // Clear all fields
         currentNode = null;
         currentWay = null;
-        highwayValues = null;
-        highwayType = null;
         nodeForHighwayID = null;
-        nodeToCoastline = null;
+        coastlines = null;
+        drawnWays = null;
         refAddress = null;
-        refCityAddress = null;
-        city = null;
+        wayName = null;
+        cityName = null;
         type = null;
-        osmWayAddress = null;
         currentElementType = null;
 
         System.gc();
     }
 
 
+    /**
+     * Finishes loading once the whole file has been parsed
+     * Sorting the addresses, building the spatial indexes, simplifying the ways, freezing the graph and assembling the coastlines
+     * do not depend on each other, so they are run concurrently on a fork/join pool and each phase is timed
+     * @param coastlines List of the coastline ways in the order they were parsed
+     * @param drawnWays List of the linepaths added to the KDTrees
+     * @param islandType Type given to the islands
+     */
+    private void finishLoad(List<OSMWay> coastlines, List<LinePath> drawnWays, Type islandType) {
+        long time = -System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            List<ForkJoinTask<?>> phases = new ArrayList<>();
+            // Sorts OSMaddresser at program startup to allow binarysearch of the list when using the AddressParser
+            phases.add(pool.submit(timed("Address sorting", () -> {
+                OSMAddresses.sortByAddress();
+                buildAddressTree();
+            })));
+            phases.add(pool.submit(timed("City sorting", OSMCities::sortByAddress)));
+            phases.add(pool.submit(timed("Spatial indexes", () -> {
+                List<ForkJoinTask<?>> builds = new ArrayList<>();
+                for (KDTree tree : getKDTrees()) {
+                    builds.add(ForkJoinTask.adapt(tree::build));
+                }
+                ForkJoinTask.invokeAll(builds);
+            })));
+            // The parallel stream runs on the pool of the phase
+            phases.add(pool.submit(timed("Simplification", () -> drawnWays.parallelStream().forEach(LinePath::simplify))));
+            phases.add(pool.submit(timed("Graph freezing", graph::freeze)));
+            phases.add(pool.submit(timed("Coastline assembly", () -> assembleCoastlines(coastlines, islandType))));
+
+            for (ForkJoinTask<?> phase : phases) {
+                phase.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        time += System.nanoTime();
+        System.out.printf("Finish load time: %.3fms\n", time / 1e6);
+    }
+
+    // Wraps the phase so it prints how long it took
+    private Runnable timed(String name, Runnable phase) {
+        return () -> {
+            long time = -System.nanoTime();
+            phase.run();
+            time += System.nanoTime();
+            System.out.printf("%s time: %.3fms\n", name, time / 1e6);
+        };
+    }
+
+
+    // Merges coastline ways sharing first and last nodes and adds every merged way as an island
+    private void assembleCoastlines(List<OSMWay> coastlines, Type islandType) {
+        Map<OSMNode, OSMWay> nodeToCoastline = new HashMap<>();
+        for (OSMWay way : coastlines) {
+            var before = nodeToCoastline.remove(way.first());
+            if (before != null) {
+                nodeToCoastline.remove(before.first());
+                nodeToCoastline.remove(before.last());
+            }
+
+            var after = nodeToCoastline.remove(way.last());
+            if (after != null) {
+                nodeToCoastline.remove(after.first());
+                nodeToCoastline.remove(after.last());
+            }
+
+            // first = first nd tag in the way node
+            // last = last nd tag of the way node
+            way = OSMWay.merge(OSMWay.merge(before, way), after);
+            nodeToCoastline.put(way.first(), way);
+            nodeToCoastline.put(way.last(), way);
+        }
+
+        for (var entry : nodeToCoastline.entrySet()) {
+            if (entry.getKey() == entry.getValue().last()) {
+                LinePath island = new LinePath(entry.getValue(), islandType);
+                island.simplify();
+                islands.add(island);
+            }
+        }
+    }
+
+
+    // Every KDTree in the same order as they are saved in the .bin file
+    private List<KDTree> getKDTrees() {
+        return List.of(highwayTree, areaTree, waterTree, buildingTree, mapIconTree, tertiarywayTree, primarywayTree,
+                heathTree, meadowTree, forestTree, farmTree, waterwayTree, cityNamesTree, villageNamesTree, parkTree, railwayTree);
+    }
+
+
+    /**
+     * Builds the KDTree of address locations from the current list of addresses
+     * Has to be called whenever the list of addresses is replaced
+     */
+    public void buildAddressTree() {
+        addressTree = new AddressKDTree(OSMAddresses);
+    }
+
+    /**
+     * Getter for the KDTree of address locations
+     * @return AddressKDTree
+     */
+    public AddressKDTree getAddressTree() {
+        return addressTree;
+    }
+
     /**
      * Setter for the SortedAddressArrayList of addresses
      * @param addresses SortedAddressArrayList
@@ -0,0 +1,27 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull reader of the elements of an .osm file, used by OSMHandler.loadOSM
+ * Events are the constants of XMLStreamConstants. Numeric attributes are read through getLong and getFloat,
+ * so a reader can parse them without making a String first
+ */
+public interface OSMReader extends Closeable {
+    /**
+     * Opens a new reader of the same file every time, so the file can be read more than once
+     */
+    interface Source {
+        OSMReader open() throws IOException;
+    }
+
+    boolean hasNext() throws IOException;
+    int next() throws IOException;
+    int getEventType();
+    String getLocalName();
+
+    String getAttribute(String name);
+    long getLong(String name);
+    float getFloat(String name);
+}
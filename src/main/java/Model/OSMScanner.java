@@ -0,0 +1,559 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * OSMReader scanning the raw UTF-8 bytes of an .osm file, read from a channel into a large buffer
+ * Only the subset of XML used by .osm files is understood: elements with attributes, the XML declaration, comments,
+ * CDATA and doctype are skipped, and text between elements is ignored as OSMHandler never reads it.
+ * Ids and coordinates are parsed straight from the bytes. Keys and values are decoded through a small cache,
+ * so the few keys and common values of a file are only made into Strings once
+ */
+public class OSMScanner implements OSMReader {
+    private static final int BUFFER_SIZE = 1 << 22; // Bytes read from the channel at a time, grown if an element is larger
+    private static final int CACHE_SIZE = 1 << 12; // Slots of the String cache, a slot holds the last String decoded with its hash
+    private static final int MAX_CACHED_LENGTH = 32; // Longer values are rarely repeated and always decoded
+    private static final int MAX_ATTRIBUTES = 16;
+    private static final String[] ELEMENTS = {"osm", "bounds", "node", "way", "nd", "tag", "relation", "member"};
+    private static final double[] POWERS_OF_TEN = new double[23]; // Every power of ten exactly representable as a double
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private ReadableByteChannel channel;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position; // Index of the first byte not scanned
+    private int limit; // Index after the last byte read
+    private long offset; // Position in the file of the first byte of the buffer, used in error messages
+    private boolean endOfInput;
+
+    private int event = START_DOCUMENT;
+    private String name;
+    private boolean emptyElement; // True if the end of the current element is the next event
+    private int attributes;
+    private int[] nameStarts = new int[MAX_ATTRIBUTES];
+    private int[] nameEnds = new int[MAX_ATTRIBUTES];
+    private int[] valueStarts = new int[MAX_ATTRIBUTES];
+    private int[] valueEnds = new int[MAX_ATTRIBUTES];
+
+    private byte[][] cachedBytes = new byte[CACHE_SIZE][];
+    private String[] cachedStrings = new String[CACHE_SIZE];
+
+    /**
+     * Constructor for OSMScanner
+     * @param channel ReadableByteChannel of the .osm file, for instance a FileChannel
+     */
+    public OSMScanner(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Returns whether there are more events
+     * @return boolean
+     */
+    @Override
+    public boolean hasNext() {
+        return event != END_DOCUMENT;
+    }
+
+    /**
+     * Scans the next start or end of an element, an empty element gives a start and an end like StAX
+     * @return int event type
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    @Override
+    public int next() throws IOException {
+        if (emptyElement) {
+            emptyElement = false;
+            attributes = 0;
+            event = END_ELEMENT;
+            return event;
+        }
+        while (true) {
+            int start = find((byte) '<', position);
+            if (start < 0) {
+                event = END_DOCUMENT;
+                return event;
+            }
+            position = start;
+            // Reading more of the file moves the < to the front of the buffer, so start is read again from position
+            byte kind = byteAt(start + 1);
+            start = position;
+            if (kind == '?') {
+                position = skipPast(start + 2, "?>");
+            } else if (kind == '!') {
+                boolean comment = startsWith(start + 2, "--");
+                start = position;
+                boolean cdata = !comment && startsWith(start + 2, "[CDATA[");
+                start = position;
+                if (comment) {
+                    position = skipPast(start + 4, "-->");
+                } else if (cdata) {
+                    position = skipPast(start + 9, "]]>");
+                } else {
+                    position = skipPast(start + 2, ">");
+                }
+            } else if (kind == '/') {
+                scanEndElement();
+                return event;
+            } else {
+                scanStartElement();
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Getter for the type of the current event
+     * @return int
+     */
+    @Override
+    public int getEventType() {
+        return event;
+    }
+
+    /**
+     * Getter for the name of the current element
+     * @return String
+     */
+    @Override
+    public String getLocalName() {
+        return name;
+    }
+
+    /**
+     * Returns the value of an attribute of the current element
+     * @param name String
+     * @return String or null if the element does not have the attribute
+     */
+    @Override
+    public String getAttribute(String name) {
+        int attribute = indexOf(name);
+        return attribute < 0 ? null : decode(valueStarts[attribute], valueEnds[attribute]);
+    }
+
+    /**
+     * Returns the value of an attribute of the current element as a long, parsed from the bytes
+     * @param name String
+     * @return long
+     */
+    @Override
+    public long getLong(String name) {
+        int attribute = indexOf(name);
+        if (attribute < 0) {
+            return Long.parseLong(null);
+        }
+        int i = valueStarts[attribute];
+        int end = valueEnds[attribute];
+        boolean negative = i < end && buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        // Up to 18 digits can not overflow, anything else is left to Long.parseLong
+        if (i == end || end - i > 18) {
+            return Long.parseLong(getAttribute(name));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(getAttribute(name));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the value of an attribute of the current element as a float, parsed from the bytes
+     * The result is the same as Float.parseFloat of the value, which is used for the numbers the fast path can not be sure of
+     * @param name String
+     * @return float
+     */
+    @Override
+    public float getFloat(String name) {
+        int attribute = indexOf(name);
+        if (attribute < 0) {
+            return Float.parseFloat(null);
+        }
+        int i = valueStarts[attribute];
+        int end = valueEnds[attribute];
+        boolean negative = i < end && buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1; // Digits after the point, -1 until the point is seen
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return Float.parseFloat(getAttribute(name));
+            }
+        }
+        // The mantissa and the power of ten are exact doubles, so the division is the correctly rounded double
+        if (digits == 0 || digits > 15 || decimals >= POWERS_OF_TEN.length) {
+            return Float.parseFloat(getAttribute(name));
+        }
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        // Rounding the double to a float only differs from rounding the number itself if the double lies exactly
+        // halfway between two floats, or if the float is subnormal
+        long bits = Double.doubleToRawLongBits(value);
+        if ((bits & 0x1FFFFFFFL) == 0x10000000L || (value != 0 && (value < Float.MIN_NORMAL || value > Float.MAX_VALUE))) {
+            return Float.parseFloat(getAttribute(name));
+        }
+        return (float) (negative ? -value : value);
+    }
+
+
+    /**
+     * Closes the channel
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Index of the attribute of the current element with the given name, or -1
+    private int indexOf(String name) {
+        for (int attribute = 0; attribute < attributes; attribute++) {
+            int start = nameStarts[attribute];
+            if (nameEnds[attribute] - start != name.length()) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length() && buffer[start + i] == name.charAt(i)) {
+                i++;
+            }
+            if (i == name.length()) {
+                return attribute;
+            }
+        }
+        return -1;
+    }
+
+    // Scans </name> at position
+    private void scanEndElement() throws IOException {
+        int end = elementEnd(position);
+        int nameEnd = nameEnd(position + 2, end);
+        name = elementName(position + 2, nameEnd);
+        attributes = 0;
+        event = END_ELEMENT;
+        position = end + 1;
+    }
+
+    // Scans <name attribute="value" ...> or <name .../> at position, keeping where the names and values are in the buffer
+    private void scanStartElement() throws IOException {
+        int end = elementEnd(position);
+        int i = nameEnd(position + 1, end);
+        name = elementName(position + 1, i);
+        attributes = 0;
+        emptyElement = false;
+        while (true) {
+            while (i < end && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+            if (buffer[i] == '/') {
+                emptyElement = true;
+                break;
+            }
+            int nameStart = i;
+            while (i < end && buffer[i] != '=' && !isSpace(buffer[i])) {
+                i++;
+            }
+            int attributeEnd = i;
+            while (i < end && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i == end || buffer[i] != '=') {
+                throw malformed(i);
+            }
+            i++;
+            while (i < end && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i == end || (buffer[i] != '"' && buffer[i] != '\'')) {
+                throw malformed(i);
+            }
+            byte quote = buffer[i];
+            int valueStart = ++i;
+            while (buffer[i] != quote) {
+                i++;
+            }
+            addAttribute(nameStart, attributeEnd, valueStart, i);
+            i++;
+        }
+        event = START_ELEMENT;
+        position = end + 1;
+    }
+
+    private void addAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        if (attributes == nameStarts.length) {
+            nameStarts = Arrays.copyOf(nameStarts, attributes * 2);
+            nameEnds = Arrays.copyOf(nameEnds, attributes * 2);
+            valueStarts = Arrays.copyOf(valueStarts, attributes * 2);
+            valueEnds = Arrays.copyOf(valueEnds, attributes * 2);
+        }
+        nameStarts[attributes] = nameStart;
+        nameEnds[attributes] = nameEnd;
+        valueStarts[attributes] = valueStart;
+        valueEnds[attributes] = valueEnd;
+        attributes++;
+    }
+
+    // Index of the > closing the element starting at start, reading more of the file until the whole element is in the buffer
+    // The > may also be inside an attribute value, so quotes are skipped
+    private int elementEnd(int start) throws IOException {
+        int i = start + 1;
+        byte quote = 0;
+        while (true) {
+            if (i == limit) {
+                fill(start);
+                i -= start;
+                start = 0;
+                if (i == limit) {
+                    throw malformed(i);
+                }
+            }
+            byte b = buffer[i];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                position = start;
+                return i;
+            }
+            i++;
+        }
+    }
+
+    private int nameEnd(int i, int end) {
+        while (i < end && !isSpace(buffer[i]) && buffer[i] != '/') {
+            i++;
+        }
+        return i;
+    }
+
+    // The name of the element as one of the constant names, so the names of an .osm file never make new Strings
+    private String elementName(int start, int end) {
+        for (String element : ELEMENTS) {
+            if (element.length() == end - start && startsWithAt(start, element)) {
+                return element;
+            }
+        }
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // Index of the first byte b at or after from, reading more of the file as needed, -1 at the end of the file
+    // Bytes before from are dropped when reading more
+    private int find(byte b, int from) throws IOException {
+        int i = from;
+        while (true) {
+            while (i < limit) {
+                if (buffer[i] == b) {
+                    return i;
+                }
+                i++;
+            }
+            fill(i);
+            i = 0;
+            if (limit == 0) {
+                return -1;
+            }
+        }
+    }
+
+    // Index after the first occurrence of the text at or after from
+    private int skipPast(int from, String text) throws IOException {
+        int i = from;
+        while (true) {
+            int start = find((byte) text.charAt(0), i);
+            if (start < 0) {
+                throw malformed(limit);
+            }
+            // Nothing before the candidate is needed, so it is kept at position while more of the file is read
+            position = start;
+            boolean found = startsWith(start, text);
+            start = position;
+            if (found) {
+                return start + text.length();
+            }
+            i = start + 1;
+        }
+    }
+
+    // Whether the bytes at i are the ASCII text, reading more of the file as needed
+    // Reading more moves the bytes from position to the front of the buffer, so indexes are read again from position after
+    private boolean startsWith(int i, String text) throws IOException {
+        if (i + text.length() > limit) {
+            int keep = position;
+            fill(keep);
+            i -= keep;
+            if (i + text.length() > limit) {
+                return false;
+            }
+        }
+        return startsWithAt(i, text);
+    }
+
+    private boolean startsWithAt(int i, String text) {
+        for (int j = 0; j < text.length(); j++) {
+            if (buffer[i + j] != text.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The byte at i, reading more of the file as needed, or 0 at the end of the file
+    // Reading more moves the bytes from position to the front of the buffer, so indexes are read again from position after
+    private byte byteAt(int i) throws IOException {
+        if (i >= limit) {
+            int keep = position;
+            fill(keep);
+            i -= keep;
+            if (i >= limit) {
+                return 0;
+            }
+        }
+        return buffer[i];
+    }
+
+    // Moves the bytes from keep to the front of the buffer and reads more of the file after them, growing the buffer if it is full
+    // An index i of the buffer from before is i - keep after
+    private void fill(int keep) throws IOException {
+        int kept = limit - keep;
+        System.arraycopy(buffer, keep, buffer, 0, kept);
+        offset += keep;
+        limit = kept;
+        position = Math.max(0, position - keep);
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        while (!endOfInput && limit < buffer.length) {
+            int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+            if (read < 0) {
+                endOfInput = true;
+            } else if (read == 0) {
+                break;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    // Decodes an attribute value, values without references and whitespace to normalize are looked up in the cache
+    private String decode(int start, int end) {
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '&' || b == '\t' || b == '\n' || b == '\r') {
+                return normalize(new String(buffer, start, length, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + b;
+        }
+        if (length > MAX_CACHED_LENGTH) {
+            return new String(buffer, start, length, StandardCharsets.UTF_8);
+        }
+
+        int slot = (hash ^ hash >>> 16) & (CACHE_SIZE - 1);
+        byte[] cached = cachedBytes[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, buffer, start, end)) {
+            return cachedStrings[slot];
+        }
+        String value = new String(buffer, start, length, StandardCharsets.UTF_8);
+        cachedBytes[slot] = Arrays.copyOfRange(buffer, start, end);
+        cachedStrings[slot] = value;
+        return value;
+    }
+
+    // Normalizes the whitespace of an attribute value and replaces its character and entity references, as an XML parser does
+    private String normalize(String raw) {
+        StringBuilder value = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '\r') {
+                // A line break of \r\n or \r is one space
+                if (i + 1 < raw.length() && raw.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                value.append(' ');
+            } else if (c == '\t' || c == '\n') {
+                value.append(' ');
+            } else if (c == '&') {
+                int end = raw.indexOf(';', i);
+                if (end < 0) {
+                    value.append(c);
+                    continue;
+                }
+                String reference = raw.substring(i + 1, end);
+                switch (reference) {
+                    case "amp":
+                        value.append('&');
+                        break;
+                    case "lt":
+                        value.append('<');
+                        break;
+                    case "gt":
+                        value.append('>');
+                        break;
+                    case "quot":
+                        value.append('"');
+                        break;
+                    case "apos":
+                        value.append('\'');
+                        break;
+                    default:
+                        if (reference.startsWith("#x")) {
+                            value.appendCodePoint(Integer.parseInt(reference.substring(2), 16));
+                        } else if (reference.startsWith("#")) {
+                            value.appendCodePoint(Integer.parseInt(reference.substring(1)));
+                        } else {
+                            value.append(raw, i, end + 1);
+                        }
+                }
+                i = end;
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+    }
+
+    private IOException malformed(int i) {
+        return new IOException("Malformed OSM XML at byte " + (offset + i));
+    }
+}
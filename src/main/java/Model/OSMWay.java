@@ -181,4 +181,6 @@ public class OSMWay extends ArrayList<OSMNode> implements MapData, Serializable
         int middleNode = this.size()/2;
         return new float[] {this.get(middleNode).getLon(), this.get(middleNode).getLat()};
     }
+
+
 }
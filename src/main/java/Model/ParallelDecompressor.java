@@ -0,0 +1,427 @@
+package Model;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Opens compressed .osm files as channels the OSMScanner reads while the file is decompressed on other threads
+ * A bzip2 file is a series of blocks that can each be decoded on their own, so the blocks are found by their magic
+ * numbers, which are not aligned to bytes, and decoded in parallel. A gzip file made of members whose sizes are in their
+ * headers, like the BGZF files written by bgzip, is decoded in parallel a few members at a time, any other gzip file
+ * is decoded on a single thread. The decoded chunks are read in order through a PipelinedChannel
+ */
+public class ParallelDecompressor {
+    private static final int CHUNK_SIZE = 1 << 20; // Bytes decoded by a task, and read at a time when decoding on one thread
+    private static final long BLOCK_MAGIC = 0x314159265359L; // Start of a bzip2 block, the digits of pi
+    private static final long END_MAGIC = 0x177245385090L; // End of a bzip2 stream, the digits of the square root of pi
+    private static final int HEADER_LIMIT = 1 << 17; // Bytes of a gzip header that may be read before falling back to one thread
+    private static final int[] MAGIC_SHIFTS = magicShifts();
+
+    /**
+     * Returns whether the file is compressed in a format the decompressor reads, from its name
+     * @param filename String
+     * @return boolean true for .bz2 and .gz files
+     */
+    public static boolean isCompressed(String filename) {
+        return filename.endsWith(".bz2") || filename.endsWith(".gz");
+    }
+
+    /**
+     * Opens the compressed file
+     * @param file File ending in .bz2 or .gz
+     * @return ReadableByteChannel of the decompressed bytes
+     * @throws IOException if the file cannot be opened
+     */
+    public static ReadableByteChannel open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".bz2")) {
+            return bzip2(in);
+        } else if (file.getName().endsWith(".gz")) {
+            return gzip(in);
+        }
+        in.close();
+        throw new IllegalArgumentException("Not a compressed file: " + file);
+    }
+
+    /**
+     * Decodes the blocks of the bzip2 stream in parallel, the stream may be several bzip2 streams after each other
+     * @param in InputStream of the compressed bytes, closed at the end
+     * @return ReadableByteChannel of the decompressed bytes
+     */
+    public static ReadableByteChannel bzip2(InputStream in) {
+        return new PipelinedChannel("bzip2 splitter", capacity(), channel -> {
+            try (InputStream input = in) {
+                splitBzip2(new BitBuffer(input), channel);
+            }
+        });
+    }
+
+    /**
+     * Decodes the gzip stream, in parallel if its members are BGZF blocks
+     * @param in InputStream of the compressed bytes, closed at the end
+     * @return ReadableByteChannel of the decompressed bytes
+     */
+    public static ReadableByteChannel gzip(InputStream in) {
+        return new PipelinedChannel("gzip splitter", capacity(), channel -> {
+            try (InputStream input = new BufferedInputStream(in, CHUNK_SIZE)) {
+                splitGzip(input, channel);
+            }
+        });
+    }
+
+    /**
+     * Reads the stream on a thread of its own, so decoding a stream that can only be decoded in sequence, like a zip
+     * entry, runs at the same time as parsing it
+     * @param in InputStream, closed at the end
+     * @return ReadableByteChannel of the bytes of the stream
+     */
+    public static ReadableByteChannel pipe(InputStream in) {
+        return new PipelinedChannel("decompressor", capacity(), channel -> {
+            try (InputStream input = in) {
+                pump(input, channel);
+            }
+        });
+    }
+
+
+    // For every value of a byte, a bit for each offset from the start of the byte before it at which either magic number
+    // could start, as the whole of the second byte of a magic number is given by the offset it starts at
+    private static int[] magicShifts() {
+        int[] shifts = new int[256];
+        long[] magics = {BLOCK_MAGIC, END_MAGIC};
+        for (int magic = 0; magic < magics.length; magic++) {
+            for (int shift = 0; shift < 8; shift++) {
+                shifts[(int) (magics[magic] >>> (32 + shift) & 0xFF)] |= 1 << shift;
+            }
+        }
+        return shifts;
+    }
+
+    // Chunks that may be decoded ahead of the parser, enough to keep every thread of the pool busy
+    private static int capacity() {
+        return 2 * ForkJoinPool.getCommonPoolParallelism() + 2;
+    }
+
+    private static void pump(InputStream in, PipelinedChannel channel) throws IOException, InterruptedException {
+        byte[] chunk;
+        while ((chunk = in.readNBytes(CHUNK_SIZE)).length > 0) {
+            channel.put(chunk);
+        }
+    }
+
+    // Finds the blocks of each bzip2 stream and hands every block to the pool as a bzip2 stream of a single block
+    private static void splitBzip2(BitBuffer bits, PipelinedChannel channel) throws IOException, InterruptedException {
+        long position = 0;
+        while (isStreamHeader(bits, position)) {
+            int level = (int) bits.get(position + 24, 8) - '0';
+            position += 32;
+
+            long blockStart = -1;
+            while (true) {
+                long start = bits.findMagic(position);
+                if (start < 0) {
+                    throw new EOFException("The bzip2 stream ends before its end of stream marker");
+                }
+                position = start + 1;
+                if (bits.get(start, 48) == BLOCK_MAGIC) {
+                    if (isBlock(bits, start, level)) {
+                        if (blockStart >= 0) {
+                            submit(bits, blockStart, start, level, channel);
+                        }
+                        blockStart = start;
+                        bits.discard(blockStart);
+                    }
+                } else {
+                    // The combined crc of the stream is skipped as the crc of every block is checked
+                    long next = (start + 48 + 32 + 7) & ~7L;
+                    if (bits.ensure(next + 1) && !isStreamHeader(bits, next)) {
+                        continue; // The end of stream magic occurred by chance inside the block
+                    }
+                    if (blockStart >= 0) {
+                        submit(bits, blockStart, start, level, channel);
+                    }
+                    position = next;
+                    bits.discard(position);
+                    break;
+                }
+            }
+        }
+    }
+
+    // A stream starts with BZh and its block size from 1 to 9 times 100 kB
+    private static boolean isStreamHeader(BitBuffer bits, long position) throws IOException {
+        if (!bits.ensure(position + 32) || bits.get(position, 24) != ('B' << 16 | 'Z' << 8 | 'h')) {
+            return false; // Anything after the last stream is ignored, like bzip2 does
+        }
+        long level = bits.get(position + 24, 8) - '0';
+        return level >= 1 && level <= 9;
+    }
+
+    // The magic number may occur by chance inside a block, the fields after it tell a real block from most of those
+    private static boolean isBlock(BitBuffer bits, long start, int level) throws IOException {
+        if (!bits.ensure(start + 105)) {
+            return false;
+        }
+        boolean randomised = bits.get(start + 80, 1) != 0;
+        long origin = bits.get(start + 81, 24);
+        return !randomised && origin < level * 100000L;
+    }
+
+    private static void submit(BitBuffer bits, long start, long end, int level, PipelinedChannel channel) throws InterruptedException {
+        byte[] stream = repack(bits, start, end, level);
+        channel.put(ForkJoinPool.commonPool().submit(() -> {
+            try (InputStream in = new BZip2CompressorInputStream(new ByteArrayInputStream(stream))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new IOException("Could not decode the bzip2 block at byte " + start / 8 + ": " + e.getMessage(), e);
+            }
+        }));
+    }
+
+    // Copies the bits of the block into a bzip2 stream of its own, whose combined crc is the crc of the block
+    private static byte[] repack(BitBuffer bits, long start, long end, int level) {
+        BitWriter out = new BitWriter((int) ((end - start + 7) / 8) + 16);
+        out.write('B' << 16 | 'Z' << 8 | 'h', 24);
+        out.write('0' + level, 8);
+        long position = start;
+        for (; position + 56 <= end; position += 56) {
+            out.write(bits.get(position, 56), 56);
+        }
+        out.write(bits.get(position, (int) (end - position)), (int) (end - position));
+        out.write(END_MAGIC, 48);
+        out.write(bits.get(start + 48, 32), 32);
+        return out.toByteArray();
+    }
+
+    // Hands BGZF members to the pool until a member without its size is found, the rest is then decoded on this thread
+    private static void splitGzip(InputStream in, PipelinedChannel channel) throws IOException, InterruptedException {
+        List<byte[]> members = new ArrayList<>();
+        int size = 0;
+        while (true) {
+            in.mark(HEADER_LIMIT);
+            byte[] member = readBgzfMember(in);
+            if (member == null || member.length == 0) {
+                submit(members, channel);
+                if (member == null) {
+                    in.reset();
+                    pump(new GZIPInputStream(in, CHUNK_SIZE), channel);
+                }
+                return;
+            }
+            members.add(member);
+            size += member.length;
+            if (size >= CHUNK_SIZE) {
+                submit(members, channel);
+                members = new ArrayList<>();
+                size = 0;
+            }
+        }
+    }
+
+    // Reads the whole member if it is a BGZF block, returns null if it is not and an empty array at the end of the file
+    private static byte[] readBgzfMember(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(12);
+        if (header.length == 0) {
+            return header;
+        }
+        // Only the extra field may be set, as it holds the size of the member
+        if (header.length < 12 || (header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B || header[2] != 8 || header[3] != 4) {
+            return null;
+        }
+        int extraLength = (header[10] & 0xFF) | (header[11] & 0xFF) << 8;
+        byte[] extra = in.readNBytes(extraLength);
+        int blockSize = -1;
+        for (int i = 0; i + 4 <= extra.length; ) {
+            int fieldLength = (extra[i + 2] & 0xFF) | (extra[i + 3] & 0xFF) << 8;
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && fieldLength == 2 && i + 6 <= extra.length) {
+                blockSize = ((extra[i + 4] & 0xFF) | (extra[i + 5] & 0xFF) << 8) + 1;
+            }
+            i += 4 + fieldLength;
+        }
+        int rest = blockSize - 12 - extraLength;
+        if (blockSize < 0 || rest < 8) {
+            return null;
+        }
+        byte[] member = in.readNBytes(rest);
+        if (member.length < rest) {
+            throw new EOFException("The gzip file ends inside a member");
+        }
+        return member;
+    }
+
+    private static void submit(List<byte[]> members, PipelinedChannel channel) throws InterruptedException {
+        if (!members.isEmpty()) {
+            channel.put(ForkJoinPool.commonPool().submit(() -> inflate(members)));
+        }
+    }
+
+    // Inflates the deflated data of the members, each ending with the crc and the size of its data
+    private static byte[] inflate(List<byte[]> members) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(members.size() * 65536);
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        try {
+            for (byte[] member : members) {
+                int end = member.length - 8;
+                long expectedCrc = littleEndian(member, end);
+                int size = (int) littleEndian(member, end + 4);
+                byte[] data = new byte[size];
+                inflater.reset();
+                inflater.setInput(member, 0, end);
+                int inflated = 0;
+                while (inflated < size && !inflater.finished()) {
+                    int n = inflater.inflate(data, inflated, size - inflated);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    inflated += n;
+                }
+                crc.reset();
+                crc.update(data, 0, inflated);
+                if (inflated != size || crc.getValue() != expectedCrc) {
+                    throw new IOException("Corrupt gzip member");
+                }
+                out.write(data, 0, size);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt gzip member", e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static long littleEndian(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL) | (bytes[offset + 1] & 0xFFL) << 8 | (bytes[offset + 2] & 0xFFL) << 16 | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+
+    // The bytes of a stream read as bits from the most significant bit of each byte, like bzip2 writes them
+    private static class BitBuffer {
+        private final InputStream in;
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int length;
+        private long offset; // Byte of the stream at the start of the buffer
+        private boolean ended;
+
+        BitBuffer(InputStream in) {
+            this.in = in;
+        }
+
+        // Reads until the bits before end are in the buffer, returns false if the stream ends before
+        boolean ensure(long end) throws IOException {
+            long endByte = (end + 7) >>> 3;
+            while (offset + length < endByte) {
+                if (ended) {
+                    return false;
+                }
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    ended = true;
+                } else {
+                    length += read;
+                }
+            }
+            return true;
+        }
+
+        // Returns count bits, at most 57, starting at the bit position, which must be in the buffer
+        long get(long position, int count) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) ((position >>> 3) - offset);
+            int shift = (int) (position & 7);
+            long value = 0;
+            int bytes = (shift + count + 7) >>> 3;
+            for (int i = 0; i < bytes; i++) {
+                value = value << 8 | (index + i < length ? buffer[index + i] & 0xFF : 0);
+            }
+            return value >>> (bytes * 8 - shift - count) & ((1L << count) - 1);
+        }
+
+        // Returns the position of the first block or end of stream magic number at or after the bit position, or -1
+        long findMagic(long position) throws IOException {
+            for (long index = (position >>> 3) + 1; ensure(index * 8 + 8); index++) {
+                int shifts = MAGIC_SHIFTS[buffer[(int) (index - offset)] & 0xFF];
+                for (int shift = 0; shifts != 0; shift++, shifts >>>= 1) {
+                    long start = (index - 1) * 8 + shift;
+                    if ((shifts & 1) != 0 && start >= position && ensure(start + 48)) {
+                        long magic = get(start, 48);
+                        if (magic == BLOCK_MAGIC || magic == END_MAGIC) {
+                            return start;
+                        }
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // Drops the bytes before the bit position from the buffer
+        void discard(long position) {
+            int bytes = (int) ((position >>> 3) - offset);
+            if (bytes > buffer.length / 2) {
+                System.arraycopy(buffer, bytes, buffer, 0, length - bytes);
+                length -= bytes;
+                offset += bytes;
+            }
+        }
+    }
+
+
+    // Writes bits from the most significant bit of each byte
+    private static class BitWriter {
+        private byte[] bytes;
+        private int length;
+        private long bits;
+        private int count;
+
+        BitWriter(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(long value, int bitCount) {
+            for (int written = 0; written < bitCount; ) {
+                int n = Math.min(bitCount - written, 8);
+                bits = bits << n | (value >>> (bitCount - written - n) & ((1 << n) - 1));
+                count += n;
+                written += n;
+                if (count >= 8) {
+                    if (length == bytes.length) {
+                        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    }
+                    bytes[length++] = (byte) (bits >>> (count - 8));
+                    count -= 8;
+                }
+            }
+        }
+
+        // The last byte is padded with zeros
+        byte[] toByteArray() {
+            if (count > 0) {
+                write(0, 8 - count);
+            }
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
@@ -15,10 +15,11 @@ public class Edge implements Serializable {
     private OSMNode other;
     private float dist;
     private Highway highway;
+    private int segment; // Index of the first node of the edge in the way of its highway
     private boolean drivable, bikable, walkable;
     private boolean isOneWay;
     private boolean isRoundabout;
-    private int speedLimit;
+    private short speedLimit; // A short so the segment does not make the edge take up more memory
 
 
     /**
@@ -26,6 +27,7 @@ public class Edge implements Serializable {
      * @param either the start OSMNode of the edge
      * @param other the end OSMNode of the edge
      * @param highway Corresponding highway
+     * @param segment int index of the start OSMNode in the way of the highway
      * @param isOneWay boolean for whether it is a oneway edge - can be considered bidirectional if it is not
      * @param isRoundabout boolean
      * @param speedLimit int
@@ -33,13 +35,14 @@ public class Edge implements Serializable {
      * @param bikable boolean
      * @param walkable boolean
      */
-    public Edge(OSMNode either, OSMNode other, Highway highway, boolean isOneWay, boolean isRoundabout, int speedLimit, boolean drivable, boolean bikable, boolean walkable) {
+    public Edge(OSMNode either, OSMNode other, Highway highway, int segment, boolean isOneWay, boolean isRoundabout, int speedLimit, boolean drivable, boolean bikable, boolean walkable) {
         this.either = either;
         this.other = other;
         this.highway = highway;
+        this.segment = segment;
         this.isOneWay = isOneWay;
         this.isRoundabout = isRoundabout;
-        this.speedLimit = speedLimit;
+        this.speedLimit = (short) speedLimit;
         this.drivable = drivable;
         this.bikable = bikable;
         this.walkable = walkable;
@@ -148,4 +151,12 @@ public class Edge implements Serializable {
         return highway;
     }
 
+    /**
+     * Getter for the index of the start OSMNode of the edge in the way of its highway
+     * @return int
+     */
+    public int getSegment() {
+        return segment;
+    }
+
 }
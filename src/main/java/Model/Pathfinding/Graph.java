@@ -1,8 +1,12 @@
 package Model.Pathfinding;
 
+import Model.MapInputStream;
+import Model.MapOutputStream;
 import Model.OSMNode;
+import Model.OSMWay;
 import Model.MapComponents.Highway;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -33,6 +37,59 @@ public class Graph implements Serializable {
         edges = new ArrayList<>();
     }
 
+    /**
+     * Constructor reading a graph written with write, after the highways of its edges have been read
+     * @param in MapInputStream whose nodes are shared
+     * @throws IOException
+     */
+    public Graph(MapInputStream in) throws IOException {
+        this();
+        List<Edge[]> highwayEdges = new ArrayList<>(); // Edges read so far by the id of their highway and their index in it
+        index = in.readVarInt();
+        vertexArray.ensureCapacity(index);
+        adj.ensureCapacity(index);
+        for (int i = 0; i < index; i++) {
+            Vertex vertex = new Vertex(in.readSharedNode());
+            int degree = in.readVarInt();
+            ArrayList<Edge> list = new ArrayList<>(degree);
+            for (int j = 0; j < degree; j++) {
+                Edge edge = readEdge(in, highwayEdges);
+                list.add(edge);
+                vertex.addEdge(edge);
+            }
+            vertex.trimToSize();
+            vertexMap.put(vertex.getNode(), i);
+            vertexArray.add(vertex);
+            adj.add(list);
+        }
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            edges.add(readEdge(in, highwayEdges));
+        }
+    }
+
+    /**
+     * Writes the graph to the stream of a .bin file, after the highways of its edges have been written
+     * Every vertex is written with its edges, each edge as the id of its highway and its index in the highway so an
+     * edge at both of its vertices is read as the same Edge
+     * @param out MapOutputStream whose nodes are shared
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeVarInt(index);
+        for (int i = 0; i < index; i++) {
+            out.writeSharedNode(vertexArray.get(i).getNode());
+            out.writeVarInt(adj.get(i).size());
+            for (Edge edge : adj.get(i)) {
+                writeEdge(out, edge);
+            }
+        }
+        out.writeVarInt(edges.size());
+        for (Edge edge : edges) {
+            writeEdge(out, edge);
+        }
+    }
+
 
     /**
      * Inserts highway into the graph by adding and creating a new vertex with the highway's OSMNode
@@ -107,6 +164,22 @@ public class Graph implements Serializable {
     }
 
 
+    /**
+     * Freezes the graph once every highway has been inserted
+     * Trims every list of the graph to its size to free the extra capacity the lists grew with during loading
+     */
+    public void freeze() {
+        vertexArray.trimToSize();
+        adj.trimToSize();
+        for (ArrayList<Edge> list : adj) {
+            list.trimToSize();
+        }
+        for (Vertex vertex : vertexArray) {
+            vertex.trimToSize();
+        }
+    }
+
+
     /**
      * Getter for number of vertices in the graph
      * @return the number of vertices in the graph
@@ -124,4 +197,35 @@ public class Graph implements Serializable {
         return edges;
     }
 
+
+    // The edge as the id of its highway, the index of its first node in the highway and its properties
+    private static void writeEdge(MapOutputStream out, Edge edge) throws IOException {
+        out.writeVarInt(out.getHighwayId(edge.getHighway()));
+        out.writeVarInt(edge.getSegment());
+        out.writeByte((edge.isOneWay() ? 1 : 0) | (edge.isRoundabout() ? 2 : 0) | (edge.isDrivable() ? 4 : 0)
+                | (edge.isBikable() ? 8 : 0) | (edge.isWalkable() ? 16 : 0));
+        out.writeVarInt(edge.getSpeedLimit());
+    }
+
+    // The edge is created the first time it is read and looked up by its highway and index after that
+    private static Edge readEdge(MapInputStream in, List<Edge[]> highwayEdges) throws IOException {
+        int id = in.readVarInt();
+        int position = in.readVarInt();
+        int flags = in.readUnsignedByte();
+        int speedLimit = in.readVarInt();
+        Highway highway = in.getHighway(id);
+        while (highwayEdges.size() <= id) {
+            highwayEdges.add(null);
+        }
+        if (highwayEdges.get(id) == null) {
+            highwayEdges.set(id, new Edge[highway.getOSMWay().size() - 1]);
+        }
+        Edge[] edges = highwayEdges.get(id);
+        if (edges[position] == null) {
+            OSMWay way = highway.getOSMWay();
+            edges[position] = new Edge(way.get(position), way.get(position + 1), highway, position, (flags & 1) != 0, (flags & 2) != 0,
+                    speedLimit, (flags & 4) != 0, (flags & 8) != 0, (flags & 16) != 0);
+        }
+        return edges[position];
+    }
 }
@@ -2,6 +2,7 @@ package Model.Pathfinding;
 
 import Model.OSMNode;
 import Model.OSMWay;
+import Model.StringPool;
 import java.util.*;
 
 /**
@@ -370,7 +371,7 @@ public class Path {
             }
 
             // Check for new street if last street name is not equals the current street
-            if (!edge.getHighway().getStreet().equals(prev.getHighway().getStreet()) || (prev.isRoundabout() && !edge.isRoundabout())) {
+            if (edge.getHighway().getStreetId() != prev.getHighway().getStreetId() || (prev.isRoundabout() && !edge.isRoundabout())) {
 
                 String dir = calculateDirection(prev, edge, numberOfExits);
 
@@ -384,7 +385,7 @@ public class Path {
                 }
 
                 // If street name is undefined replace it with "next intersection"
-                String streetName = edge.getHighway().getStreet().equals("") ? "next intersection" : edge.getHighway().getStreet();
+                String streetName = edge.getHighway().getStreetId() == StringPool.EMPTY ? "next intersection" : edge.getHighway().getStreet();
 
                 // Create string depending on direction
                 String directionString = "";
@@ -11,7 +11,7 @@ import java.util.List;
  */
 public class Vertex implements Serializable {
     private OSMNode node;
-    private List<Edge> edges;
+    private ArrayList<Edge> edges;
 
     /**
      * Constructor for vertex
@@ -31,6 +31,13 @@ public class Vertex implements Serializable {
         edges.add(edge);
     }
 
+    /**
+     * Trims the list of edges to the number of edges, called when no more edges will be added
+     */
+    public void trimToSize() {
+        edges.trimToSize();
+    }
+
     /**
      * Getter for the list of all the vertex's edges
      * @return List of Edge
@@ -0,0 +1,144 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Channel of bytes produced on other threads, so decompressing a file and parsing it run at the same time
+ * A producer thread puts chunks of bytes in order, either decoded already or as futures of chunks decoded in parallel.
+ * The chunks are passed through a bounded queue, so the producer waits whenever the reader is the slower of the two
+ */
+public class PipelinedChannel implements ReadableByteChannel {
+    private static final Future<byte[]> END = CompletableFuture.completedFuture(new byte[0]); // Put after the last chunk
+
+    private final BlockingQueue<Future<byte[]>> chunks;
+    private final Thread thread;
+    private ByteBuffer chunk = ByteBuffer.allocate(0);
+    private boolean ended;
+    private volatile boolean open = true;
+
+    /**
+     * The work of the producer thread
+     */
+    public interface Producer {
+        void produce(PipelinedChannel channel) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Starts the producer on a thread of its own
+     * @param name String name of the thread
+     * @param capacity int number of chunks that may be waiting to be read
+     * @param producer Producer putting the chunks
+     */
+    public PipelinedChannel(String name, int capacity, Producer producer) {
+        chunks = new ArrayBlockingQueue<>(capacity);
+        thread = new Thread(() -> {
+            Future<byte[]> last = END;
+            try {
+                producer.produce(this);
+            } catch (InterruptedException e) {
+                return; // The channel was closed
+            } catch (Exception e) {
+                last = CompletableFuture.failedFuture(e);
+            }
+            try {
+                chunks.put(last);
+            } catch (InterruptedException ignore) {
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Puts the next chunk, waiting while the queue is full
+     * @param chunk byte[] of decoded bytes
+     * @throws InterruptedException if the channel is closed
+     */
+    public void put(byte[] chunk) throws InterruptedException {
+        put(CompletableFuture.completedFuture(chunk));
+    }
+
+    /**
+     * Puts the next chunk while it is still being decoded, waiting while the queue is full
+     * @param chunk Future of the decoded bytes
+     * @throws InterruptedException if the channel is closed
+     */
+    public void put(Future<byte[]> chunk) throws InterruptedException {
+        chunks.put(chunk);
+    }
+
+    /**
+     * Reads the next bytes, waiting for the producer if the next chunk is not ready
+     * @param destination ByteBuffer
+     * @return int number of bytes read, -1 at the end
+     * @throws IOException if the producer failed
+     */
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        while (!chunk.hasRemaining()) {
+            if (ended) {
+                return -1;
+            }
+            chunk = ByteBuffer.wrap(take());
+        }
+        int length = Math.min(chunk.remaining(), destination.remaining());
+        int limit = chunk.limit();
+        chunk.limit(chunk.position() + length);
+        destination.put(chunk);
+        chunk.limit(limit);
+        return length;
+    }
+
+    /**
+     * Returns whether the channel is open
+     * @return boolean
+     */
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the channel and stops the producer
+     */
+    @Override
+    public void close() {
+        open = false;
+        thread.interrupt();
+        for (Future<byte[]> waiting : chunks) {
+            waiting.cancel(true);
+        }
+    }
+
+
+    // Takes the next chunk, or an empty chunk after the last one
+    private byte[] take() throws IOException {
+        try {
+            Future<byte[]> next = chunks.take();
+            if (next == END) {
+                ended = true;
+            }
+            return next.get();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while waiting for the next chunk");
+        } catch (ExecutionException e) {
+            ended = true;
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package Model;
 
-import javafx.scene.canvas.GraphicsContext;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -18,36 +18,65 @@ public class RelationLinePath extends ArrayList<LinePath> implements Drawable {
         this.type = type;
         for (var way : currentRelation) {
             if (way != null && way.size() != 0) {
-                add(new LinePath(way, type));
+                LinePath path = new LinePath(way, type);
+                path.simplify();
+                add(path);
             }
         }
     }
 
+    /**
+     * Constructor reading a RelationLinePath written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public RelationLinePath(MapInputStream in) throws IOException {
+        type = in.readType();
+        int size = in.readVarInt();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            add(new LinePath(in));
+        }
+    }
+
+    /**
+     * Writes the RelationLinePath and its linepaths to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeType(type);
+        out.writeVarInt(size());
+        for (LinePath path : this) {
+            path.write(out);
+        }
+    }
+
     /**
      * Draw method for the RelationLinePath
-     * @param gc GraphicsContext
+     * @param renderer Renderer
      */
     @Override
-    public void draw(GraphicsContext gc) {
-        gc.beginPath();
+    public void draw(Renderer renderer) {
+        renderer.beginPath();
         for (var line : this) {
-            line.trace(gc, Double.POSITIVE_INFINITY, false);
+            line.trace(renderer, Double.POSITIVE_INFINITY, false);
         }
-        gc.stroke();
+        renderer.stroke();
     }
 
     /**
-     * Draw method for the RelationLinePath with zoom level taking into account to apply poly level
-     * @param gc GraphicsContext
+     * Draw method for the RelationLinePath with zoom level taking into account to apply the simplification level
+     * @param renderer Renderer
      * @param zoom double
      */
     @Override
-    public void draw(GraphicsContext gc, double zoom) {
-        gc.beginPath();
+    public void draw(Renderer renderer, double zoom) {
+        renderer.beginPath();
         for (var line : this) {
-            line.trace(gc, zoom, true);
+            line.trace(renderer, zoom, true);
         }
-        gc.stroke();
+        renderer.stroke();
     }
 
     /**
@@ -0,0 +1,69 @@
+package Model;
+
+import javafx.scene.paint.Color;
+import javafx.scene.text.FontWeight;
+
+/**
+ * Interface for the surface a Drawable draws itself on
+ * Lets the map be drawn both on the JavaFX canvas and, without a display, on images with Java2D
+ * Paths are built with beginPath, moveTo and lineTo and then stroked or filled with the even-odd rule,
+ * all coordinates are map coordinates transformed by the current transform
+ */
+public interface Renderer {
+    void beginPath();
+    void moveTo(double x, double y);
+    void lineTo(double x, double y);
+    void stroke();
+    void fill();
+
+    void setLineWidth(double width);
+    void setStroke(Color color);
+    void setFill(Color color);
+    void fillRect(double x, double y, double width, double height);
+
+    /**
+     * Draws the icon of the type scaled to the given bounds
+     * @param type Type of the icon, the icon is loaded from the MapIcons resources
+     * @param x double
+     * @param y double
+     * @param width double
+     * @param height double
+     */
+    void drawIcon(Type type, double x, double y, double width, double height);
+
+    /**
+     * Sets the font of the text drawn after
+     * @param family String family of the font, null for the default family
+     * @param weight FontWeight
+     * @param size double size of the font in units of the current transform
+     */
+    void setFont(String family, FontWeight weight, double size);
+
+    /**
+     * Draws the text centered horizontally and vertically on the point
+     * @param text String
+     * @param x double
+     * @param y double
+     */
+    void fillCenteredText(String text, double x, double y);
+
+    /**
+     * Measures the width of the text in the current font
+     * @param text String
+     * @return double width in units of the current transform
+     */
+    double getTextWidth(String text);
+
+    /**
+     * Returns the current transform
+     * @return double[] with [mxx, myx, mxy, myy, tx, ty]
+     */
+    double[] getTransform();
+    void setTransform(double mxx, double myx, double mxy, double myy, double tx, double ty);
+
+    /**
+     * Saves the transform, colors, line width and font until restore is called
+     */
+    void save();
+    void restore();
+}
@@ -3,8 +3,10 @@ package Model;
 import Model.AddressParser.Address;
 import Model.AddressParser.AddressParser;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -29,12 +31,45 @@ public class SortedAddressArrayList implements Serializable {
         isSorted = false;
     }
 
+    /**
+     * Constructor reading a list written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public SortedAddressArrayList(MapInputStream in) throws IOException {
+        isSorted = in.readBoolean();
+        size = in.readInt();
+        int count = in.readVarInt();
+        list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Address(in));
+        }
+    }
+
+    /**
+     * Writes the list and its addresses to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeBoolean(isSorted);
+        out.writeInt(size);
+        out.writeVarInt(list.size());
+        for (Address address : list) {
+            address.write(out);
+        }
+    }
+
     /**
      * Sorts the list
      */
     public void sortByAddress() {
         if (!isSorted) {
-            Collections.sort(list);
+            // Sorted in parallel as a map of Denmark has millions of addresses, the sort is stable just like Collections.sort
+            Address[] sorted = list.toArray(new Address[0]);
+            Arrays.parallelSort(sorted);
+            list.clear();
+            Collections.addAll(list, sorted);
             isSorted = true;
         }
     }
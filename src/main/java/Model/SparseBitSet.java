@@ -0,0 +1,114 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * Set of long ids taking a few bytes per id, used for the ids of the nodes kept when loading a map with little memory
+ * The ids are split in blocks of 65536 ids. A block holding few ids keeps them as a sorted array of the low 16 bits,
+ * a block holding many ids keeps them as a bitmap, so ids spread over the whole range of OSM ids and dense runs of ids are both compact
+ */
+public class SparseBitSet {
+    private static final int BLOCK_BITS = 16;
+    private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+    private static final int ARRAY_LIMIT = 4096; // A block with more ids than this takes less memory as a bitmap
+
+    private Object[] blocks = new Object[16]; // char[] of sorted low bits or long[] bitmap
+    private int[] sizes = new int[16];
+    private long size;
+
+    /**
+     * Adds the id to the set
+     * @param id long, may be negative like the ids of elements not yet uploaded to OSM
+     */
+    public void add(long id) {
+        long key = zigzag(id);
+        int index = blockIndex(key);
+        if (index >= blocks.length) {
+            int length = Math.max(index + 1, (int) Math.min(Integer.MAX_VALUE - 8, blocks.length * 2L));
+            blocks = Arrays.copyOf(blocks, length);
+            sizes = Arrays.copyOf(sizes, length);
+        }
+        char low = (char) (key & BLOCK_MASK);
+        Object block = blocks[index];
+        if (block == null) {
+            blocks[index] = new char[] {low};
+            sizes[index] = 1;
+            size++;
+        } else if (block instanceof long[]) {
+            long[] bitmap = (long[]) block;
+            if ((bitmap[low >>> 6] & 1L << low) == 0) {
+                bitmap[low >>> 6] |= 1L << low;
+                sizes[index]++;
+                size++;
+            }
+        } else {
+            char[] array = (char[]) block;
+            int count = sizes[index];
+            int position = Arrays.binarySearch(array, 0, count, low);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (count == ARRAY_LIMIT) {
+                long[] bitmap = new long[1 << (BLOCK_BITS - 6)];
+                for (int i = 0; i < count; i++) {
+                    bitmap[array[i] >>> 6] |= 1L << array[i];
+                }
+                bitmap[low >>> 6] |= 1L << low;
+                blocks[index] = bitmap;
+            } else {
+                if (count == array.length) {
+                    array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, count * 2));
+                    blocks[index] = array;
+                }
+                System.arraycopy(array, position, array, position + 1, count - position);
+                array[position] = low;
+            }
+            sizes[index]++;
+            size++;
+        }
+    }
+
+    /**
+     * Returns whether the id is in the set
+     * @param id long
+     * @return boolean
+     */
+    public boolean contains(long id) {
+        long key = zigzag(id);
+        if ((key >>> BLOCK_BITS) >= blocks.length) {
+            return false;
+        }
+        Object block = blocks[(int) (key >>> BLOCK_BITS)];
+        char low = (char) (key & BLOCK_MASK);
+        if (block == null) {
+            return false;
+        }
+        if (block instanceof long[]) {
+            return (((long[]) block)[low >>> 6] & 1L << low) != 0;
+        }
+        return Arrays.binarySearch((char[]) block, 0, sizes[(int) (key >>> BLOCK_BITS)], low) >= 0;
+    }
+
+    /**
+     * Getter for the number of ids in the set
+     * @return long
+     */
+    public long size() {
+        return size;
+    }
+
+
+    // Maps negative ids to odd numbers and positive ids to even numbers, so small ids of either sign stay small
+    private static long zigzag(long id) {
+        return id << 1 ^ id >> 63;
+    }
+
+    private static int blockIndex(long key) {
+        long index = key >>> BLOCK_BITS;
+        if (index >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Id out of range: " + key);
+        }
+        return (int) index;
+    }
+}
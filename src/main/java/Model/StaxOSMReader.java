@@ -0,0 +1,110 @@
+package Model;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+
+/**
+ * OSMReader reading the elements with a StAX XMLStreamReader
+ * Every attribute is decoded to a String before it is parsed, the OSMScanner gives the same result faster
+ */
+public class StaxOSMReader implements OSMReader {
+    private XMLStreamReader reader;
+
+    /**
+     * Constructor for StaxOSMReader
+     * @param reader XMLStreamReader of the .osm file
+     */
+    public StaxOSMReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns whether there are more events
+     * @return boolean
+     * @throws IOException if the file cannot be read
+     */
+    @Override
+    public boolean hasNext() throws IOException {
+        try {
+            return reader.hasNext();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads the next event
+     * @return int event type
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    @Override
+    public int next() throws IOException {
+        try {
+            return reader.next();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Getter for the type of the current event
+     * @return int
+     */
+    @Override
+    public int getEventType() {
+        return reader.getEventType();
+    }
+
+    /**
+     * Getter for the name of the current element
+     * @return String
+     */
+    @Override
+    public String getLocalName() {
+        return reader.getLocalName();
+    }
+
+    /**
+     * Returns the value of an attribute of the current element
+     * @param name String
+     * @return String or null if the element does not have the attribute
+     */
+    @Override
+    public String getAttribute(String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * Returns the value of an attribute of the current element as a long
+     * @param name String
+     * @return long
+     */
+    @Override
+    public long getLong(String name) {
+        return Long.parseLong(getAttribute(name));
+    }
+
+    /**
+     * Returns the value of an attribute of the current element as a float
+     * @param name String
+     * @return float
+     */
+    @Override
+    public float getFloat(String name) {
+        return Float.parseFloat(getAttribute(name));
+    }
+
+    /**
+     * Closes the XMLStreamReader, the underlying stream is closed by its owner
+     * @throws IOException if the reader cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+}
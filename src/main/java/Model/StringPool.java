@@ -0,0 +1,139 @@
+package Model;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the street and city names on the map
+ * Every name is stored once and Address, Highway and City only hold the int id of their name
+ * Singleton design pattern is implemented to ensure every object of the loaded map shares the same dictionary
+ * Names are only added while a map is loaded, searches look names up with idOf and never add them. Names are read
+ * without locking, so the dictionary can be read by several threads while a map is loaded
+ */
+public class StringPool implements Serializable {
+    public static final int NONE = -1; // id of a missing (null) name
+    public static final int EMPTY = 0; // id of the empty name
+
+    private static StringPool stringPool;
+
+    // A new name is stored before the array is published, so a thread given an id always finds its name
+    private volatile String[] strings;
+    private volatile int size;
+    private transient Map<String, Integer> ids; // Rebuilt from strings when loaded from .bin file
+
+    /**
+     * Constructor for StringPool
+     * Initializes a dictionary only containing the empty name
+     */
+    public StringPool() {
+        strings = new String[16];
+        ids = new ConcurrentHashMap<>();
+        intern("");
+    }
+
+    /**
+     * Constructor reading a StringPool written with write, the lookup map is rebuilt from the names
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public StringPool(MapInputStream in) throws IOException {
+        int size = in.readVarInt();
+        String[] strings = new String[Math.max(size, 16)];
+        ids = new ConcurrentHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            strings[i] = in.readUTF();
+            ids.put(strings[i], i);
+        }
+        this.size = size;
+        this.strings = strings;
+    }
+
+    /**
+     * Writes the names to the stream of a .bin file
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public synchronized void write(MapOutputStream out) throws IOException {
+        out.writeVarInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(strings[i]);
+        }
+    }
+
+    /**
+     * Creates new instance of StringPool if no instance has been instantiated yet
+     * Otherwise returns the already instantiated instance of StringPool
+     * @return StringPool
+     */
+    public static StringPool getInstance() {
+        if (stringPool == null) {
+            stringPool = new StringPool();
+        }
+        return stringPool;
+    }
+
+    /**
+     * Replaces the current dictionary, used when a new map is loaded
+     * @param pool StringPool
+     */
+    public static void setInstance(StringPool pool) {
+        stringPool = pool;
+    }
+
+    /**
+     * Returns the id of the given name and adds it to the dictionary if it is not already in it
+     * Only used for the names of the map while it is loaded, names searched for are looked up with idOf
+     * @param string String
+     * @return int id of the name or NONE if the name is null
+     */
+    public synchronized int intern(String string) {
+        if (string == null) {
+            return NONE;
+        }
+        Integer id = ids.get(string);
+        if (id == null) {
+            id = size;
+            String[] array = size == strings.length ? Arrays.copyOf(strings, size * 2) : strings;
+            array[id] = string;
+            size = id + 1;
+            strings = array;
+            ids.put(string, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given name without adding it to the dictionary
+     * @param string String
+     * @return int id of the name or NONE if the name is null or not on the map
+     */
+    public int idOf(String string) {
+        if (string == null) {
+            return NONE;
+        }
+        return ids.getOrDefault(string, NONE);
+    }
+
+    /**
+     * Returns the name with the given id
+     * @param id int
+     * @return String or null if id is NONE
+     */
+    public String get(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        return strings[id];
+    }
+
+    /**
+     * Returns the number of names in the dictionary
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+}
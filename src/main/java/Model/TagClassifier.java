@@ -0,0 +1,79 @@
+package Model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classifies the keys of the tags read by OSMHandler, so each tag is handled after a single lookup of its key
+ * A key may contain several of the words OSMHandler looks for, for instance "disused:building", so the flags of a key
+ * are found by testing every word the first time the key is seen and then kept for the rest of the file
+ */
+public class TagClassifier {
+    public static final int BUILDING = 1;
+    public static final int NATURAL = 1 << 1;
+    public static final int LANDUSE = 1 << 2;
+    public static final int LEISURE = 1 << 3;
+    public static final int WATERWAY = 1 << 4;
+    public static final int RAILWAY = 1 << 5;
+    public static final int HIGHWAY = 1 << 6;
+    public static final int AMENITY = 1 << 7;
+    public static final int SHOP = 1 << 8;
+    public static final int ROUTING = 1 << 9; // Keys read by the HighwayDecoder
+    public static final int ADDR_CITY = 1 << 10;
+    public static final int ADDR_HOUSENUMBER = 1 << 11;
+    public static final int ADDR_POSTCODE = 1 << 12;
+    public static final int ADDR_STREET = 1 << 13;
+    public static final int NAME = 1 << 14;
+    public static final int PLACE = 1 << 15;
+
+    // The words looked for in the keys, in the order of the flags
+    private static final String[] WORDS = {"building", "natural", "landuse", "leisure", "waterway", "railway", "highway", "amenity", "shop"};
+
+    private Map<String, Integer> keys = new HashMap<>();
+
+    /**
+     * Returns the flags of the key, 0 if it is not used by OSMHandler
+     * @param key String key of a tag
+     * @return int
+     */
+    public int classify(String key) {
+        Integer flags = keys.get(key);
+        if (flags == null) {
+            flags = compute(key);
+            keys.put(key, flags);
+        }
+        return flags;
+    }
+
+
+    private static int compute(String key) {
+        int flags = 0;
+        for (int i = 0; i < WORDS.length; i++) {
+            if (key.contains(WORDS[i])) {
+                flags |= 1 << i;
+            }
+        }
+        if (HighwayDecoder.isRoutingKey(key)) {
+            flags |= ROUTING;
+        }
+        if (key.contains("addr:city")) {
+            flags |= ADDR_CITY;
+        }
+        if (key.contains("addr:housenumber")) {
+            flags |= ADDR_HOUSENUMBER;
+        }
+        if (key.contains("addr:postcode")) {
+            flags |= ADDR_POSTCODE;
+        }
+        if (key.contains("addr:street")) {
+            flags |= ADDR_STREET;
+        }
+        if (key.equals("name")) {
+            flags |= NAME;
+        }
+        if (key.contains("place")) {
+            flags |= PLACE;
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,218 @@
+package Model.Tree;
+
+import Model.AddressParser.Address;
+import Model.SortedAddressArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * KD Tree over the locations of addresses used for reverse geocoding (coordinate to nearest address)
+ * The tree is built once from a list of addresses and is balanced by always splitting on the median.
+ * The nodes are stored in flat arrays: the node of the range [lo, hi) is placed at the middle index of the range,
+ * its left subtree in [lo, mid) and its right subtree in [mid + 1, hi), so no node objects are needed
+ */
+public class AddressKDTree {
+    private Address[] addresses;
+    private float[] xs;
+    private float[] ys;
+    private int size;
+
+    /**
+     * Constructor for AddressKDTree
+     * Builds the tree from every address in the list that has a location
+     * @param list SortedAddressArrayList
+     */
+    public AddressKDTree(SortedAddressArrayList list) {
+        addresses = new Address[list.size()];
+        xs = new float[list.size()];
+        ys = new float[list.size()];
+
+        for (int i = 0; i < list.size(); i++) {
+            Address address = list.get((long) i);
+            if (address.getNode() != null) {
+                addresses[size] = address;
+                xs[size] = address.getNode().getLon();
+                ys[size] = address.getNode().getLat();
+                size++;
+            }
+        }
+        build(0, size, true);
+    }
+
+
+    // Places the median of the range at the middle index and builds the two halves with the other axis
+    private void build(int lo, int hi, boolean vertical) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, vertical);
+        build(lo, mid, !vertical);
+        build(mid + 1, hi, !vertical);
+    }
+
+    // Quickselect: rearranges [lo, hi] so index k holds the element it would hold if the range was sorted
+    private void select(int lo, int hi, int k, boolean vertical) {
+        float[] coords = vertical ? xs : ys;
+        while (hi > lo) {
+            float pivot = coords[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coords[i] < pivot) {
+                    i++;
+                }
+                while (coords[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        Address address = addresses[i];
+        addresses[i] = addresses[j];
+        addresses[j] = address;
+
+        float x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+
+        float y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+    }
+
+
+    /**
+     * Returns the address closest to the given point
+     * @param x float value of the x-coordinate (lon) of the point
+     * @param y float value of the y-coordinate (lat) of the point
+     * @return Address or null if the tree is empty
+     */
+    public Address nearest(float x, float y) {
+        List<Address> result = nearest(x, y, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+
+    /**
+     * Returns the k addresses closest to the given point
+     * @param x float value of the x-coordinate (lon) of the point
+     * @param y float value of the y-coordinate (lat) of the point
+     * @param k int number of addresses to find, no addresses are found if it is 0 or negative
+     * @return List of Address sorted by distance with the closest first, empty if k is 0 or negative
+     */
+    public List<Address> nearest(float x, float y, int k) {
+        Neighbors neighbors = new Neighbors(Math.max(0, Math.min(k, size)));
+        if (neighbors.capacity > 0) {
+            search(0, size, true, x, y, neighbors);
+        }
+
+        List<Address> result = new ArrayList<>(neighbors.count);
+        for (int i = 0; i < neighbors.count; i++) {
+            result.add(addresses[neighbors.indices[i]]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the closest address for every point, used for batches of coordinates such as GPS traces
+     * The points are looked up in parallel as the tree is never modified after it is built
+     * @param x float[] x-coordinates (lon) of the points
+     * @param y float[] y-coordinates (lat) of the points, same length as x
+     * @return Address[] where index i holds the closest address to point i
+     */
+    public Address[] nearest(float[] x, float[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        }
+        Address[] result = new Address[x.length];
+        IntStream.range(0, x.length).parallel().forEach(i -> result[i] = nearest(x[i], y[i]));
+        return result;
+    }
+
+
+    private void search(int lo, int hi, boolean vertical, float x, float y, Neighbors neighbors) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+
+        float dx = x - xs[mid];
+        float dy = y - ys[mid];
+        neighbors.offer(mid, dx * dx + dy * dy);
+
+        // Distance to the splitting line, negative if the point is on the left side
+        float toLine = vertical ? dx : dy;
+
+        if (toLine < 0) {
+            search(lo, mid, !vertical, x, y, neighbors);
+            if (toLine * toLine < neighbors.worst()) {
+                search(mid + 1, hi, !vertical, x, y, neighbors);
+            }
+        } else {
+            search(mid + 1, hi, !vertical, x, y, neighbors);
+            if (toLine * toLine < neighbors.worst()) {
+                search(lo, mid, !vertical, x, y, neighbors);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of addresses in the tree
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+
+    // The k closest nodes found so far, kept sorted by squared distance
+    private static class Neighbors {
+        private int[] indices;
+        private float[] distances;
+        private int capacity;
+        private int count;
+
+        private Neighbors(int capacity) {
+            this.capacity = capacity;
+            indices = new int[capacity];
+            distances = new float[capacity];
+        }
+
+        private float worst() {
+            return count < capacity ? Float.POSITIVE_INFINITY : distances[count - 1];
+        }
+
+        private void offer(int index, float distance) {
+            if (distance >= worst()) {
+                return;
+            }
+            int i = count < capacity ? count++ : count - 1;
+            while (i > 0 && distances[i - 1] > distance) {
+                indices[i] = indices[i - 1];
+                distances[i] = distances[i - 1];
+                i--;
+            }
+            indices[i] = index;
+            distances[i] = distance;
+        }
+    }
+}
@@ -2,14 +2,28 @@ package Model.Tree;
 
 import Model.MapData;
 import Model.MapComponents.Highway;
+import Model.MapInputStream;
+import Model.MapOutputStream;
+import Model.Type;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * KD Tree implemented as a 2d-tree representation of points on a 2D plane.
+ * A tree built with build() is split into strata by the size of its MapData, so a search at a coarse zoom
+ * can leave out every stratum of MapData too small to be seen instead of visiting them
  */
 public class KDTree implements Serializable {
+    private static final int STRATA = 12; // Number of strata, the size of the MapData doubles for every stratum
+    private static final float BASE_SIZE = 1f / 300000; // Size of the MapData in the lowest stratum, a pixel at the highest zoom
+    // Bits of the byte written before every node of the tree telling which of its fields are written
+    private static final int HAS_DATA = 1, HAS_LEFT = 2, HAS_RIGHT = 4, VERTICAL = 8, HAS_STRATA = 16;
+
     private MapData data;
     private float[] point;
 
@@ -17,6 +31,10 @@ public class KDTree implements Serializable {
     private KDTree rightChild;
     private boolean isVertical = true; //If false then horizontal
 
+    private transient List<MapData> pending; // MapData added with add() waiting to be built into the tree
+    private KDTree[] strata; // Only set on the root of a built tree, the MapData is then kept in one tree per stratum
+    private float extent; // Size of the largest MapData in a stratum, only set on the roots of the strata
+
     /**
      * Constructor for new KDTree
      * initializes and empty float[] array for the root point
@@ -26,6 +44,36 @@ public class KDTree implements Serializable {
     }
 
 
+    /**
+     * Constructor reading a tree written with write
+     * @param in MapInputStream
+     * @throws IOException
+     */
+    public KDTree(MapInputStream in) throws IOException {
+        int fields = in.readUnsignedByte();
+        isVertical = (fields & VERTICAL) != 0;
+        point = in.readFloats();
+        extent = in.readFloat();
+        if ((fields & HAS_DATA) != 0) {
+            data = in.readMapData();
+        }
+        if ((fields & HAS_LEFT) != 0) {
+            leftChild = new KDTree(in);
+        }
+        if ((fields & HAS_RIGHT) != 0) {
+            rightChild = new KDTree(in);
+        }
+        if ((fields & HAS_STRATA) != 0) {
+            strata = new KDTree[in.readVarInt()];
+            for (int i = 0; i < strata.length; i++) {
+                if (in.readBoolean()) {
+                    strata[i] = new KDTree(in);
+                }
+            }
+        }
+    }
+
+
     // Sub tree
     private KDTree(MapData data, boolean vertical) {
         this.data = data;
@@ -62,6 +110,16 @@ public class KDTree implements Serializable {
      * @param data MapData
      */
     public void insert(MapData data) {
+        if (strata != null) {
+            int stratum = stratumOf(data);
+            if (strata[stratum] == null) {
+                strata[stratum] = new KDTree();
+            }
+            strata[stratum].extent = Math.max(strata[stratum].extent, sizeOf(data));
+            strata[stratum].insert(data);
+            return;
+        }
+
         // This only happens if root node
         if (this.data == null) {
             this.data = data;
@@ -89,6 +147,231 @@ public class KDTree implements Serializable {
         }
     }
 
+    /**
+     * Writes the tree to the stream of a .bin file, every node followed by its children
+     * @param out MapOutputStream
+     * @throws IOException
+     */
+    public void write(MapOutputStream out) throws IOException {
+        out.writeByte((data != null ? HAS_DATA : 0) | (leftChild != null ? HAS_LEFT : 0) | (rightChild != null ? HAS_RIGHT : 0)
+                | (isVertical ? VERTICAL : 0) | (strata != null ? HAS_STRATA : 0));
+        out.writeFloats(point);
+        out.writeFloat(extent);
+        if (data != null) {
+            out.writeMapData(data);
+        }
+        if (leftChild != null) {
+            leftChild.write(out);
+        }
+        if (rightChild != null) {
+            rightChild.write(out);
+        }
+        if (strata != null) {
+            out.writeVarInt(strata.length);
+            for (KDTree stratum : strata) {
+                out.writeBoolean(stratum != null);
+                if (stratum != null) {
+                    stratum.write(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the given MapData to the tree the next time build() is called
+     * Used while loading, where building the whole tree at once gives a balanced tree and can be done in parallel
+     * @param data MapData
+     */
+    public void add(MapData data) {
+        if (pending == null) {
+            pending = new ArrayList<>();
+        }
+        pending.add(data);
+    }
+
+
+    /**
+     * Builds the MapData added with add() into the tree
+     * An empty tree is split into strata by the size of the MapData, each stratum is built balanced by splitting on the median
+     * and the strata and large subtrees are built in parallel
+     */
+    public void build() {
+        if (pending == null) {
+            return;
+        }
+        List<MapData> list = pending;
+        pending = null;
+
+        // A tree which already has nodes can only be extended by inserting
+        if (data != null || strata != null) {
+            for (MapData mapData : list) {
+                insert(mapData);
+            }
+            return;
+        }
+        if (list.isEmpty()) {
+            return;
+        }
+
+        List<List<MapData>> stratumLists = new ArrayList<>();
+        for (int i = 0; i < STRATA; i++) {
+            stratumLists.add(new ArrayList<>());
+        }
+        for (MapData mapData : list) {
+            stratumLists.get(stratumOf(mapData)).add(mapData);
+        }
+
+        strata = new KDTree[STRATA];
+        List<BuildTask> builds = new ArrayList<>();
+        for (int i = 0; i < STRATA; i++) {
+            List<MapData> stratumList = stratumLists.get(i);
+            if (stratumList.isEmpty()) {
+                continue;
+            }
+            strata[i] = new KDTree();
+
+            MapData[] items = stratumList.toArray(new MapData[0]);
+            float[][] points = new float[items.length][];
+            for (int j = 0; j < items.length; j++) {
+                points[j] = items[j].getAsPoint();
+                strata[i].extent = Math.max(strata[i].extent, sizeOf(items[j]));
+            }
+            builds.add(new BuildTask(strata[i], items, points, 0, items.length));
+        }
+        ForkJoinTask.invokeAll(builds);
+    }
+
+
+    // The stratum of the MapData is given by its size, scaled by the importance of its type
+    private static int stratumOf(MapData data) {
+        float size = sizeOf(data);
+
+        // Points such as map icons and city names have their own rules for when they are drawn
+        if (!(size > 0)) {
+            return STRATA - 1;
+        }
+        double scaled = size * Type.getImportance(data.getType()) / BASE_SIZE;
+        if (scaled < 1) {
+            return 0;
+        }
+        return Math.min(STRATA - 1, Math.getExponent(scaled));
+    }
+
+    // Size of the bounds of the MapData along its longest side
+    private static float sizeOf(MapData data) {
+        return Math.max(data.getMaxX() - data.getMinX(), data.getMaxY() - data.getMinY());
+    }
+
+    // Every MapData of the stratum is smaller than this, the highest stratum has no limit
+    private static float stratumLimit(int stratum) {
+        if (stratum == STRATA - 1) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return BASE_SIZE * (2 << stratum);
+    }
+
+
+    // Builds the range [lo, hi) of the items into the given node with the median as its point
+    private static class BuildTask extends RecursiveAction {
+        private static final int PARALLEL_THRESHOLD = 10000; // Smaller subtrees are built on the current thread
+
+        private KDTree node;
+        private MapData[] items;
+        private float[][] points;
+        private int lo;
+        private int hi;
+
+        private BuildTask(KDTree node, MapData[] items, float[][] points, int lo, int hi) {
+            this.node = node;
+            this.items = items;
+            this.points = points;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            int mid = (lo + hi) >>> 1;
+            select(mid);
+            node.data = items[mid];
+            node.point = points[mid];
+
+            BuildTask left = null;
+            BuildTask right = null;
+            if (mid > lo) {
+                node.leftChild = new KDTree(items[mid], !node.isVertical);
+                left = new BuildTask(node.leftChild, items, points, lo, mid);
+            }
+            if (mid + 1 < hi) {
+                node.rightChild = new KDTree(items[mid], !node.isVertical);
+                right = new BuildTask(node.rightChild, items, points, mid + 1, hi);
+            }
+
+            if (left != null && right != null && hi - lo > PARALLEL_THRESHOLD) {
+                invokeAll(left, right);
+            } else {
+                if (left != null) {
+                    left.compute();
+                }
+                if (right != null) {
+                    right.compute();
+                }
+            }
+        }
+
+        // Quickselect: rearranges the range so index k holds the element it would hold if the range was sorted
+        private void select(int k) {
+            int from = lo;
+            int to = hi - 1;
+            while (to > from) {
+                float[] pivot = points[(from + to) >>> 1];
+                int i = from;
+                int j = to;
+                while (i <= j) {
+                    while (compare(points[i], pivot) < 0) {
+                        i++;
+                    }
+                    while (compare(points[j], pivot) > 0) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i, j);
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    to = j;
+                } else if (k >= i) {
+                    from = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        // Same order as shouldGoLeft: by the coordinate of the node's axis and then by the other coordinate
+        private int compare(float[] a, float[] b) {
+            int firstCoord = node.isVertical ? 0 : 1;
+            int secondCoord = firstCoord == 0 ? 1 : 0;
+            int result = Float.compare(a[firstCoord], b[firstCoord]);
+            if (result != 0) {
+                return result;
+            }
+            return Float.compare(a[secondCoord], b[secondCoord]);
+        }
+
+        private void swap(int i, int j) {
+            MapData item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+
+            float[] point = points[i];
+            points[i] = points[j];
+            points[j] = point;
+        }
+    }
+
     private boolean isInRect(float x1, float y1, float x2, float y2) {
         if (data == null) {
             return false;
@@ -228,6 +511,9 @@ public class KDTree implements Serializable {
      * @return Highway
      */
     public Highway nearestNeighbor(float x, float y, String addressMatch) {
+        if (strata != null) {
+            return nearestInStrata(x, y, addressMatch);
+        }
 
         // Ensures we only find nearest neighbor on KDTrees with Roads
         if (data == null || data.getClassType() != Highway.class) {
@@ -250,6 +536,9 @@ public class KDTree implements Serializable {
      * @return highway
      */
     public Highway nearestNeighbor(float x, float y) {
+        if (strata != null) {
+            return nearestInStrata(x, y, null);
+        }
 
         // Ensures we only find nearest neighbor on KDTrees with Roads
         if (data == null || data.getClassType() != Highway.class) {
@@ -259,6 +548,31 @@ public class KDTree implements Serializable {
     }
 
 
+    // Nearest neighbor of every stratum, the closest highway matching the address wins over a closer one which does not
+    private Highway nearestInStrata(float x, float y, String addressMatch) {
+        float[] p = {x, y};
+        Highway nearest = null;
+        boolean nearestMatches = false;
+        for (KDTree stratum : strata) {
+            if (stratum == null) {
+                continue;
+            }
+            Highway found = addressMatch == null ? stratum.nearestNeighbor(x, y) : stratum.nearestNeighbor(x, y, addressMatch);
+            if (found == null) {
+                continue;
+            }
+            boolean matches = addressMatch != null
+                    && (found.getStreet().contains(addressMatch) || addressMatch.contains(found.getStreet()));
+            if (nearest == null || (matches && !nearestMatches)
+                    || (matches == nearestMatches && distBetweenNodes(found, p) < distBetweenNodes(nearest, p))) {
+                nearest = found;
+                nearestMatches = matches;
+            }
+        }
+        return nearest;
+    }
+
+
     /**
      * Returns a list of all MapData nodes that are within the given 4 points corresponding to a rect to search within.
      * Calculates bounds for each MapData and uses collision check to detect whether it is within the given rect or not
@@ -269,53 +583,73 @@ public class KDTree implements Serializable {
      * @return list of MapData
      */
     public List<MapData> rectSearch(float x1, float y1, float x2, float y2) {
-
         List<MapData> ways = new ArrayList<>();
+        rectSearch(x1, y1, x2, y2, ways);
+        return ways;
+    }
+
+    /**
+     * Adds all MapData nodes that are within the given rect to the list, in the same order as rectSearch returns them
+     * Only the given list is added to, so the search itself allocates nothing
+     * @param x1 float value for point of the rect to search within
+     * @param y1 float value for point of the rect to search within
+     * @param x2 float value for point of the rect to search within
+     * @param y2 float value for point of the rect to search within
+     * @param ways List of MapData the found MapData is added to
+     */
+    public void rectSearch(float x1, float y1, float x2, float y2, List<MapData> ways) {
+        rectSearch(x1, y1, x2, y2, 0, ways);
+    }
+
+    /**
+     * Adds the MapData within the given rect which is at least the given size to the list
+     * Strata of MapData smaller than the size are not searched, so the cost of a search at a coarse zoom stays the same
+     * as at a fine zoom. The larger MapData is added first, so smaller MapData is painted on top of it
+     * @param x1 float value for point of the rect to search within
+     * @param y1 float value for point of the rect to search within
+     * @param x2 float value for point of the rect to search within
+     * @param y2 float value for point of the rect to search within
+     * @param minSize float size in map units below which MapData is not visible, such as the size of a pixel
+     * @param ways List of MapData the found MapData is added to
+     */
+    public void rectSearch(float x1, float y1, float x2, float y2, float minSize, List<MapData> ways) {
+        if (strata != null) {
+            for (int i = STRATA - 1; i >= 0; i--) {
+                if (strata[i] != null && stratumLimit(i) > minSize) {
+                    strata[i].search(x1, y1, x2, y2, strata[i].extent, ways);
+                }
+            }
+            return;
+        }
+        search(x1, y1, x2, y2, 0, ways);
+    }
+
 
+    // Searches the nodes of the tree for MapData overlapping the rect. The point of a MapData lies within its bounds,
+    // so subtrees are only left out if their points are further than the largest MapData of the tree from the rect,
+    // which finds MapData crossing the rect even if its point is far outside, such as in a thin strip
+    private void search(float x1, float y1, float x2, float y2, float extent, List<MapData> ways) {
         if (isInRect(x1, y1, x2, y2)) {
 
             ways.add(data);
 
             if (leftChild != null) {
-                List<MapData> left = leftChild.rectSearch(x1, y1, x2, y2);
-                ways.addAll(left);
+                leftChild.search(x1, y1, x2, y2, extent, ways);
             }
             if (rightChild != null) {
-                List<MapData> right = rightChild.rectSearch(x1, y1, x2, y2);
-                ways.addAll(right);
+                rightChild.search(x1, y1, x2, y2, extent, ways);
             }
+            return;
+        }
 
-        } else {
-
-            List<MapData> left = new ArrayList<>();
-            List<MapData> right = new ArrayList<>();
-
-            // If point is outside rect, check left or right sub-tree
-            int toGo = isOver(x1, y1, x2, y2);
-
-            if (toGo == 2) {
-                if (leftChild != null) {
-                    left = leftChild.rectSearch(x1, y1, x2, y2);
-                }
-                if (rightChild != null) {
-                    right = rightChild.rectSearch(x1, y1, x2, y2);
-                }
-            }
-            if (toGo == 1) {
-                if (rightChild != null) {
-                    right = rightChild.rectSearch(x1, y1, x2, y2);
-                }
-            }
-            if (toGo == 0) {
-                if (leftChild != null) {
-                    left = leftChild.rectSearch(x1, y1, x2, y2);
-                }
-            }
+        // If point is outside rect, check left or right sub-tree
+        int toGo = isOver(x1 - extent, y1 - extent, x2 + extent, y2 + extent);
 
-            ways.addAll(left);
-            ways.addAll(right);
+        if ((toGo == 2 || toGo == 0) && leftChild != null) {
+            leftChild.search(x1, y1, x2, y2, extent, ways);
+        }
+        if ((toGo == 2 || toGo == 1) && rightChild != null) {
+            rightChild.search(x1, y1, x2, y2, extent, ways);
         }
-
-        return ways;
     }
-}
\ No newline at end of file
+}
@@ -261,4 +261,27 @@ public enum Type {
                 return 1;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns how many times its size a feature of the given type counts when deciding from which zoom it is visible
+     * Ways forming networks are more important than areas, as leaving out a short piece of a road leaves a gap in it
+     * @param type Type
+     * @return double
+     */
+    public static double getImportance(Type type) {
+        if (type == null) {
+            return 1;
+        }
+        switch (type) {
+            case HIGHWAY:
+            case TERTIARYWAY:
+            case PRIMARYWAY:
+            case MOTORWAY:
+            case RAILWAY:
+            case WATERWAY:
+                return 4;
+            default:
+                return 1;
+        }
+    }
+}
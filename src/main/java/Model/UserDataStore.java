@@ -0,0 +1,289 @@
+package Model;
+
+import Model.MapComponents.PointOfInterest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the points of interest the user adds to a map, kept in a small file next to the map file
+ * Adding or deleting a point of interest appends one record instead of saving the whole map, so the map file is only
+ * read and can be shared between users. Every record has a checksum so a record cut off by a crash is left out, and
+ * the journal is compacted on a thread of its own once most of its records are of deleted points of interest.
+ * The journal is only created when the first point of interest is added, so maps are opened without writing next to them
+ */
+public class UserDataStore implements Closeable {
+    private static final byte ADD = 1, DELETE = 2;
+    private static final int MIN_RECORDS = 64; // Shorter journals are not worth compacting
+
+    private final Path path;
+    private final List<PointOfInterest> pointsOfInterest = new ArrayList<>();
+    private FileChannel journal; // Opened when the first record is appended, null until then
+    private long length; // Length of the journal up to the last whole record read or written
+    private int records;
+    private List<byte[]> appended; // Records appended while the journal is compacted, null when it is not
+    private Thread compaction;
+    private Consumer<IOException> compactionErrorObserver; // Told when a compaction fails, null if nobody is
+
+    private UserDataStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Opens the journal, reading the points of interest in it if there is one
+     * Nothing is written until a point of interest is added or deleted, so a journal that can not be written is still read
+     * @param path Path of the journal
+     * @return UserDataStore
+     * @throws IOException if the journal cannot be read
+     */
+    public static UserDataStore open(Path path) throws IOException {
+        UserDataStore store = new UserDataStore(path);
+        if (Files.exists(path)) {
+            store.length = store.replay(Files.readAllBytes(path));
+        }
+        return store;
+    }
+
+    /**
+     * Writes a compacted journal holding only the points of interest, replacing any journal at the path
+     * @param path Path of the journal
+     * @param pointsOfInterest List of PointOfInterest
+     * @throws IOException if the journal cannot be written
+     */
+    public static void write(Path path, List<PointOfInterest> pointsOfInterest) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (PointOfInterest point : pointsOfInterest) {
+                write(channel, record(ADD, point));
+            }
+        }
+    }
+
+    /**
+     * Getter for the path of the journal
+     * @return Path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Sets the observer that is given the error when the journal could not be compacted
+     * The observer is called on the thread compacting the journal, the journal then keeps the records it had
+     * @param observer Consumer of IOException
+     */
+    public synchronized void setCompactionErrorObserver(Consumer<IOException> observer) {
+        compactionErrorObserver = observer;
+    }
+
+    /**
+     * Getter for the points of interest in the journal
+     * @return List of PointOfInterest, a copy
+     */
+    public synchronized List<PointOfInterest> getPointsOfInterest() {
+        return new ArrayList<>(pointsOfInterest);
+    }
+
+    /**
+     * Appends the point of interest to the journal, creating the journal if it is the first record
+     * @param point PointOfInterest
+     * @throws IOException if the journal cannot be written, the point of interest is then only kept until the map is closed
+     */
+    public synchronized void add(PointOfInterest point) throws IOException {
+        pointsOfInterest.add(point);
+        append(record(ADD, point));
+    }
+
+    /**
+     * Appends the deletion of the point of interest to the journal, creating the journal if it is the first record
+     * @param point PointOfInterest
+     * @throws IOException if the journal cannot be written, the point of interest is then only deleted until the map is closed
+     */
+    public synchronized void delete(PointOfInterest point) throws IOException {
+        pointsOfInterest.removeIf(p -> p.getName().equals(point.getName()));
+        append(record(DELETE, point));
+    }
+
+    /**
+     * Waits for a compaction that is running and closes the journal
+     * @throws IOException if the journal cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        Thread running;
+        while ((running = runningCompaction()) != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+
+    // The compaction thread, which is replaced when it starts another compaction before it ends
+    private synchronized Thread runningCompaction() {
+        return compaction;
+    }
+
+    // Applies every whole record with a correct checksum and returns the length of the journal up to the last of them
+    private long replay(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt(buffer.position());
+            int crc = buffer.getInt(buffer.position() + 4);
+            if (length < 0 || buffer.remaining() - 8 < length) {
+                break;
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes, buffer.position() + 8, length);
+            if ((int) checksum.getValue() != crc) {
+                break;
+            }
+            apply(new DataInputStream(new ByteArrayInputStream(bytes, buffer.position() + 8, length)));
+            buffer.position(buffer.position() + 8 + length);
+            records++;
+        }
+        return buffer.position();
+    }
+
+    // A point of interest added again under the same name replaces the one before it
+    private void apply(DataInputStream record) throws IOException {
+        byte operation = record.readByte();
+        String name = record.readUTF();
+        pointsOfInterest.removeIf(p -> p.getName().equals(name));
+        if (operation == ADD) {
+            pointsOfInterest.add(new PointOfInterest(record.readFloat(), record.readFloat(), name));
+        }
+    }
+
+    // The record prefixed with its length and checksum
+    private static byte[] record(byte operation, PointOfInterest point) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(operation);
+            out.writeUTF(point.getName());
+            if (operation == ADD) {
+                out.writeFloat(point.getMaxX());
+                out.writeFloat(point.getMaxY());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Not thrown by a ByteArrayOutputStream
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(record, 8, record.length - 8);
+        ByteBuffer.wrap(record).putInt(record.length - 8).putInt((int) checksum.getValue());
+        return record;
+    }
+
+    // Writes the whole record, as a channel may write only a part of it at a time
+    private static void write(FileChannel channel, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Appends the record without forcing it to disk, which would take milliseconds
+    private void append(byte[] record) throws IOException {
+        if (journal == null) {
+            journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // A record cut off at the end is removed, so the next record is appended after the last whole one
+            try {
+                journal.truncate(length);
+                journal.position(length);
+            } catch (IOException e) {
+                journal.close();
+                journal = null;
+                throw e;
+            }
+        }
+        write(journal, record);
+        length += record.length;
+        records++;
+        if (appended != null) {
+            appended.add(record);
+        } else {
+            compactIfLarge();
+        }
+    }
+
+    // Compacts on a thread of its own when the journal has grown to more than twice the records needed
+    private void compactIfLarge() {
+        if (records >= MIN_RECORDS && records > 2 * pointsOfInterest.size()) {
+            List<PointOfInterest> live = new ArrayList<>(pointsOfInterest);
+            appended = new ArrayList<>();
+            compaction = new Thread(() -> compact(live), "Journal compaction");
+            compaction.setDaemon(true);
+            compaction.start();
+        }
+    }
+
+    // Writes the points of interest to a new journal, appends the records appended since, and replaces the journal with it
+    // The journal is opened again by the next record appended, and is compacted again if enough records were appended meanwhile
+    private void compact(List<PointOfInterest> live) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        boolean compacted = false;
+        try {
+            write(temporary, live);
+            synchronized (this) {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    for (byte[] record : appended) {
+                        write(channel, record);
+                    }
+                }
+                long compactedLength = Files.size(temporary);
+                // The journal is not open if nothing was appended since the compaction before
+                if (journal != null) {
+                    try {
+                        journal.close();
+                    } finally {
+                        journal = null;
+                    }
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                length = compactedLength;
+                records = live.size() + appended.size();
+                compacted = true;
+            }
+        } catch (IOException e) {
+            Consumer<IOException> observer;
+            synchronized (this) {
+                observer = compactionErrorObserver;
+            }
+            if (observer != null) {
+                observer.accept(e);
+            }
+        } finally {
+            synchronized (this) {
+                appended = null;
+                compaction = null;
+                if (compacted) {
+                    compactIfLarge();
+                }
+            }
+        }
+    }
+}
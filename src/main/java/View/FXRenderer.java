@@ -0,0 +1,249 @@
+package View;
+
+import Model.ImageHandler;
+import Model.Renderer;
+import Model.Type;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.transform.Affine;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renderer drawing on the GraphicsContext of a JavaFX canvas
+ */
+public class FXRenderer implements Renderer {
+    // Fonts are created once for every family, weight and half pixel of size, as labels are drawn in few sizes
+    private static Map<String, Font> fonts = new ConcurrentHashMap<>();
+
+    private GraphicsContext gc;
+    private long vertices; // Counted for the FrameStats
+    private long texts;
+
+    /**
+     * Constructor for FXRenderer
+     * @param gc GraphicsContext to draw on
+     */
+    public FXRenderer(GraphicsContext gc) {
+        this.gc = gc;
+    }
+
+    /**
+     * Getter for the GraphicsContext drawn on
+     * @return GraphicsContext
+     */
+    public GraphicsContext getGraphicsContext() {
+        return gc;
+    }
+
+    /**
+     * Returns the number of vertices traced since the counts were last reset
+     * @return long
+     */
+    public long getVertexCount() {
+        return vertices;
+    }
+
+    /**
+     * Returns the number of texts drawn since the counts were last reset
+     * @return long
+     */
+    public long getTextCount() {
+        return texts;
+    }
+
+    /**
+     * Resets the number of vertices traced and texts drawn
+     */
+    public void resetCounts() {
+        vertices = 0;
+        texts = 0;
+    }
+
+    /**
+     * Starts a new path
+     */
+    @Override
+    public void beginPath() {
+        gc.beginPath();
+    }
+
+    /**
+     * Moves the start of the next line of the path to the point
+     * @param x double
+     * @param y double
+     */
+    @Override
+    public void moveTo(double x, double y) {
+        vertices++;
+        gc.moveTo(x, y);
+    }
+
+    /**
+     * Adds a line to the point to the path
+     * @param x double
+     * @param y double
+     */
+    @Override
+    public void lineTo(double x, double y) {
+        vertices++;
+        gc.lineTo(x, y);
+    }
+
+    /**
+     * Strokes the current path with the stroke color and line width
+     */
+    @Override
+    public void stroke() {
+        gc.stroke();
+    }
+
+    /**
+     * Fills the current path with the fill color using the even-odd rule
+     */
+    @Override
+    public void fill() {
+        gc.fill();
+    }
+
+    /**
+     * Sets the width of stroked lines
+     * @param width double
+     */
+    @Override
+    public void setLineWidth(double width) {
+        gc.setLineWidth(width);
+    }
+
+    /**
+     * Sets the color of stroked lines
+     * @param color Color
+     */
+    @Override
+    public void setStroke(Color color) {
+        gc.setStroke(color);
+    }
+
+    /**
+     * Sets the color of fills and text
+     * @param color Color
+     */
+    @Override
+    public void setFill(Color color) {
+        gc.setFill(color);
+    }
+
+    /**
+     * Fills the rectangle with the fill color
+     * @param x double
+     * @param y double
+     * @param width double
+     * @param height double
+     */
+    @Override
+    public void fillRect(double x, double y, double width, double height) {
+        gc.fillRect(x, y, width, height);
+    }
+
+    /**
+     * Draws the icon of the type scaled to the given bounds
+     * @param type Type
+     * @param x double
+     * @param y double
+     * @param width double
+     * @param height double
+     */
+    @Override
+    public void drawIcon(Type type, double x, double y, double width, double height) {
+        gc.drawImage(ImageHandler.getInstance().getImage(type), x, y, width, height);
+    }
+
+    /**
+     * Sets the font of the text drawn after
+     * @param family String or null for the default family
+     * @param weight FontWeight
+     * @param size double
+     */
+    @Override
+    public void setFont(String family, FontWeight weight, double size) {
+        int halfPixels = (int) Math.round(size * 2);
+        String key = family + "/" + weight + "/" + halfPixels;
+        gc.setFont(fonts.computeIfAbsent(key, k -> Font.font(family, weight, halfPixels / 2.0)));
+    }
+
+    /**
+     * Draws the text centered on the point with the fill color
+     * @param text String
+     * @param x double
+     * @param y double
+     */
+    @Override
+    public void fillCenteredText(String text, double x, double y) {
+        TextAlignment align = gc.getTextAlign();
+        VPos baseline = gc.getTextBaseline();
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(text, x, y);
+        texts++;
+        gc.setTextAlign(align);
+        gc.setTextBaseline(baseline);
+    }
+
+    /**
+     * Measures the width of the text in the current font
+     * @param text String
+     * @return double
+     */
+    @Override
+    public double getTextWidth(String text) {
+        Text measured = new Text(text);
+        measured.setFont(gc.getFont());
+        return measured.getLayoutBounds().getWidth();
+    }
+
+    /**
+     * Returns the current transform
+     * @return double[] with [mxx, myx, mxy, myy, tx, ty]
+     */
+    @Override
+    public double[] getTransform() {
+        Affine transform = gc.getTransform();
+        return new double[] {transform.getMxx(), transform.getMyx(), transform.getMxy(), transform.getMyy(), transform.getTx(), transform.getTy()};
+    }
+
+    /**
+     * Replaces the current transform
+     * @param mxx double
+     * @param myx double
+     * @param mxy double
+     * @param myy double
+     * @param tx double
+     * @param ty double
+     */
+    @Override
+    public void setTransform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+        gc.setTransform(mxx, myx, mxy, myy, tx, ty);
+    }
+
+    /**
+     * Saves the transform, colors, line width and font
+     */
+    @Override
+    public void save() {
+        gc.save();
+    }
+
+    /**
+     * Restores the state saved by the last call to save
+     */
+    @Override
+    public void restore() {
+        gc.restore();
+    }
+}
@@ -0,0 +1,175 @@
+package View;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the timings and counts of the frames painted by MapCanvas, shown as an overlay and exported as histograms
+ * The KDTree searches are timed on the pipeline's thread and kept in the RenderFrame, they are recorded when the frame is shown.
+ * The painting is timed by MapCanvas. Frame times are also kept by draw level, so the thresholds of the levels can be tuned
+ */
+public class FrameStats {
+    private static final int BUCKETS = 32; // Bucket i holds values from 2^(i-1+MIN_EXPONENT) up to 2^(i+MIN_EXPONENT)
+    private static final int MIN_EXPONENT = -6; // Bucket 0 holds everything below 2^MIN_EXPONENT, about 16 microseconds for times
+    private static final int RECENT = 60; // Number of frames the average frame time is taken over
+
+    private Map<String, long[]> histograms = new LinkedHashMap<>(); // Histograms by name in the order they were first recorded
+    private Map<String, String> units = new LinkedHashMap<>();
+
+    private double[] recent = new double[RECENT];
+    private int frames;
+    private double frameTime;
+    private int level;
+    private long vertices;
+    private long texts;
+    private List<Query> queries = new ArrayList<>(); // Searches of the last frame shown
+
+    /**
+     * A KDTree search done while preparing a RenderFrame
+     */
+    public static class Query {
+        private String layer;
+        private long nanos;
+        private int found;
+
+        /**
+         * Constructor for Query
+         * @param layer String name of the layer the KDTree holds
+         * @param nanos long time of the search in nanoseconds
+         * @param found int number of MapData found
+         */
+        public Query(String layer, long nanos, int found) {
+            this.layer = layer;
+            this.nanos = nanos;
+            this.found = found;
+        }
+
+        /**
+         * Getter for layer
+         * @return String
+         */
+        public String getLayer() {
+            return layer;
+        }
+
+        /**
+         * Getter for the time of the search
+         * @return long nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Getter for the number of MapData found
+         * @return int
+         */
+        public int getFound() {
+            return found;
+        }
+    }
+
+
+    /**
+     * Records the searches of a frame prepared by the pipeline, called when the frame is shown
+     * @param frame RenderFrame
+     */
+    public void recordFrame(RenderFrame frame) {
+        queries = frame.getQueries();
+        long total = 0;
+        for (Query query : queries) {
+            add("Query " + query.getLayer(), "ms", query.getNanos() / 1e6);
+            add("Features " + query.getLayer(), "count", query.getFound());
+            total += query.getNanos();
+        }
+        add("Query total", "ms", total / 1e6);
+    }
+
+    /**
+     * Records the painting of a frame on the canvas
+     * @param nanos long time MapCanvas spent painting the frame
+     * @param level int draw level of the zoom the frame was painted at
+     * @param vertices long number of vertices traced on the canvas
+     * @param texts long number of texts drawn on the canvas
+     */
+    public void recordPaint(long nanos, int level, long vertices, long texts) {
+        frameTime = nanos / 1e6;
+        this.level = level;
+        this.vertices = vertices;
+        this.texts = texts;
+        recent[frames % RECENT] = frameTime;
+        frames++;
+
+        add("Frame", "ms", frameTime);
+        add("Frame level " + level, "ms", frameTime);
+        add("Vertices", "count", vertices);
+        add("Text draws", "count", texts);
+    }
+
+    /**
+     * Returns the lines of text shown in the overlay
+     * @return List of String
+     */
+    public List<String> getLines() {
+        int count = Math.min(frames, RECENT);
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += recent[i];
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Frame: %.3fms (avg %.3fms)", frameTime, count == 0 ? 0 : sum / count));
+        lines.add("Draw level: " + level);
+        lines.add("Vertices: " + vertices + ", text draws: " + texts);
+        for (Query query : queries) {
+            lines.add(String.format("%s: %.3fms, %d found", query.getLayer(), query.getNanos() / 1e6, query.getFound()));
+        }
+        return lines;
+    }
+
+    /**
+     * Writes every histogram as a CSV file with a row for each bucket holding values
+     * @param file File to write
+     * @throws IOException if the file could not be written
+     */
+    public void export(File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("histogram,unit,from,to,count");
+            for (Map.Entry<String, long[]> histogram : histograms.entrySet()) {
+                long[] buckets = histogram.getValue();
+                for (int i = 0; i < BUCKETS; i++) {
+                    if (buckets[i] == 0) {
+                        continue;
+                    }
+                    double from = i == 0 ? 0 : Math.pow(2, i - 1 + MIN_EXPONENT);
+                    double to = Math.pow(2, i + MIN_EXPONENT);
+                    writer.printf("%s,%s,%s,%s,%d\n", histogram.getKey(), units.get(histogram.getKey()), from, to, buckets[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets every recorded frame
+     */
+    public void clear() {
+        histograms.clear();
+        units.clear();
+        frames = 0;
+        queries = new ArrayList<>();
+    }
+
+
+    // Adds the value to the bucket of the histogram holding it
+    private void add(String name, String unit, double value) {
+        long[] buckets = histograms.computeIfAbsent(name, key -> new long[BUCKETS]);
+        units.putIfAbsent(name, unit);
+        int bucket = value < Math.scalb(1.0, MIN_EXPONENT) ? 0 : Math.min(BUCKETS - 1, Math.getExponent(value) + 1 - MIN_EXPONENT);
+        buckets[bucket]++;
+    }
+}
@@ -0,0 +1,272 @@
+package View;
+
+import Model.Renderer;
+import Model.Type;
+import javafx.scene.paint.Color;
+import javafx.scene.text.FontWeight;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renderer drawing on a Java2D Graphics2D, such as the graphics of a BufferedImage
+ * Needs neither a display nor the JavaFX toolkit, so the map can be rendered to images on a server
+ */
+public class Java2DRenderer implements Renderer {
+    // Shared by every renderer, as they are used on many threads at once when exporting
+    private static Map<Type, BufferedImage> icons = new ConcurrentHashMap<>();
+    private static Map<String, Font> fonts = new ConcurrentHashMap<>();
+    private static final FontRenderContext MEASURE_CONTEXT = new FontRenderContext(null, true, true);
+
+    private Graphics2D g;
+    private Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+    private java.awt.Color stroke = java.awt.Color.BLACK;
+    private java.awt.Color fill = java.awt.Color.BLACK;
+    private double lineWidth = 1;
+    private Deque<Object[]> saved = new ArrayDeque<>();
+
+    /**
+     * Constructor for Java2DRenderer
+     * @param g Graphics2D to draw on
+     */
+    public Java2DRenderer(Graphics2D g) {
+        this.g = g;
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+
+    /**
+     * Starts a new path
+     */
+    @Override
+    public void beginPath() {
+        path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+    }
+
+    /**
+     * Moves the start of the next line of the path to the point
+     * @param x double
+     * @param y double
+     */
+    @Override
+    public void moveTo(double x, double y) {
+        path.moveTo(x, y);
+    }
+
+    /**
+     * Adds a line to the point to the path
+     * @param x double
+     * @param y double
+     */
+    @Override
+    public void lineTo(double x, double y) {
+        // Like the JavaFX canvas a path may start with a line
+        if (path.getCurrentPoint() == null) {
+            path.moveTo(x, y);
+        } else {
+            path.lineTo(x, y);
+        }
+    }
+
+    /**
+     * Strokes the current path with the stroke color and line width
+     */
+    @Override
+    public void stroke() {
+        g.setColor(stroke);
+        g.setStroke(new BasicStroke((float) lineWidth, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
+        g.draw(path);
+    }
+
+    /**
+     * Fills the current path with the fill color using the even-odd rule
+     */
+    @Override
+    public void fill() {
+        g.setColor(fill);
+        g.fill(path);
+    }
+
+    /**
+     * Sets the width of stroked lines
+     * @param width double
+     */
+    @Override
+    public void setLineWidth(double width) {
+        lineWidth = width;
+    }
+
+    /**
+     * Sets the color of stroked lines
+     * @param color Color
+     */
+    @Override
+    public void setStroke(Color color) {
+        stroke = toAWT(color);
+    }
+
+    /**
+     * Sets the color of fills and text
+     * @param color Color
+     */
+    @Override
+    public void setFill(Color color) {
+        fill = toAWT(color);
+    }
+
+    /**
+     * Fills the rectangle with the fill color
+     * @param x double
+     * @param y double
+     * @param width double
+     * @param height double
+     */
+    @Override
+    public void fillRect(double x, double y, double width, double height) {
+        g.setColor(fill);
+        g.fill(new java.awt.geom.Rectangle2D.Double(x, y, width, height));
+    }
+
+    /**
+     * Draws the icon of the type scaled to the given bounds
+     * @param type Type
+     * @param x double
+     * @param y double
+     * @param width double
+     * @param height double
+     */
+    @Override
+    public void drawIcon(Type type, double x, double y, double width, double height) {
+        BufferedImage icon = icons.computeIfAbsent(type, Java2DRenderer::loadIcon);
+        if (icon == null) {
+            return;
+        }
+        AffineTransform transform = new AffineTransform();
+        transform.translate(x, y);
+        transform.scale(width / icon.getWidth(), height / icon.getHeight());
+        g.drawImage(icon, transform, null);
+    }
+
+    /**
+     * Sets the font of the text drawn after
+     * @param family String or null for the default family
+     * @param weight FontWeight
+     * @param size double
+     */
+    @Override
+    public void setFont(String family, FontWeight weight, double size) {
+        int halfPixels = (int) Math.round(size * 2);
+        String key = family + "/" + weight + "/" + halfPixels;
+        g.setFont(fonts.computeIfAbsent(key, k -> {
+            int style = weight.getWeight() >= FontWeight.BOLD.getWeight() ? Font.BOLD : Font.PLAIN;
+            return new Font(family == null ? Font.SANS_SERIF : family, style, 1).deriveFont(halfPixels / 2f);
+        }));
+    }
+
+    /**
+     * Draws the text centered on the point with the fill color
+     * @param text String
+     * @param x double
+     * @param y double
+     */
+    @Override
+    public void fillCenteredText(String text, double x, double y) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.setColor(fill);
+        g.drawString(text, (float) (x - metrics.stringWidth(text) / 2.0), (float) (y + (metrics.getAscent() - metrics.getDescent()) / 2.0));
+    }
+
+    /**
+     * Measures the width of the text in the current font
+     * @param text String
+     * @return double
+     */
+    @Override
+    public double getTextWidth(String text) {
+        // Measured without the transform, which may scale the font far beyond what glyphs can be made for
+        return g.getFont().getStringBounds(text, MEASURE_CONTEXT).getWidth();
+    }
+
+    /**
+     * Returns the current transform
+     * @return double[] with [mxx, myx, mxy, myy, tx, ty]
+     */
+    @Override
+    public double[] getTransform() {
+        double[] matrix = new double[6];
+        g.getTransform().getMatrix(matrix);
+        return matrix;
+    }
+
+    /**
+     * Replaces the current transform
+     * @param mxx double
+     * @param myx double
+     * @param mxy double
+     * @param myy double
+     * @param tx double
+     * @param ty double
+     */
+    @Override
+    public void setTransform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+        g.setTransform(new AffineTransform(mxx, myx, mxy, myy, tx, ty));
+    }
+
+    /**
+     * Saves the transform, colors, line width and font
+     */
+    @Override
+    public void save() {
+        saved.push(new Object[] {g.getTransform(), stroke, fill, lineWidth, g.getFont()});
+    }
+
+    /**
+     * Restores the state saved by the last call to save
+     */
+    @Override
+    public void restore() {
+        Object[] state = saved.poll();
+        if (state == null) {
+            return;
+        }
+        g.setTransform((AffineTransform) state[0]);
+        stroke = (java.awt.Color) state[1];
+        fill = (java.awt.Color) state[2];
+        lineWidth = (double) state[3];
+        g.setFont((Font) state[4]);
+    }
+
+
+    // Converts a JavaFX color to the matching AWT color
+    private static java.awt.Color toAWT(Color color) {
+        return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(), (float) color.getOpacity());
+    }
+
+    // Loads the icon from the same resources as the ImageHandler, null if there is no icon for the type
+    private static BufferedImage loadIcon(Type type) {
+        try (InputStream in = Java2DRenderer.class.getClassLoader().getResourceAsStream("MapIcons/" + type.name().toLowerCase() + ".png")) {
+            if (in == null) {
+                return null;
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package View;
+
+import Model.MapComponents.City;
+import Model.MapComponents.Highway;
+import Model.MapData;
+import Model.OSMNode;
+import Model.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which labels are drawn on the map so no two labels overlap
+ * Labels are placed in order of priority and a label is only placed if the cells of a screen space collision grid
+ * it covers are free of other labels. The layouts are kept while the zoom stays within the same bucket,
+ * so labels keep their place while the map is panned and are only laid out the first time they are seen
+ */
+public class LabelEngine {
+    private static final int BUCKETS_PER_OCTAVE = 4; // Zoom buckets every time the zoom doubles
+    private static final double CELL_SIZE = 64; // Size of a cell of the collision grid in pixels
+    private static final double PADDING = 3; // Pixels kept free around every label
+    private static final int MAX_LAYOUTS = 20000; // The layouts are forgotten when more labels than this have been seen
+    private static final MapLabel REJECTED = new MapLabel(MapLabel.Style.CITY, "", 0, 0, 0, 0, 0);
+
+    private int bucket = Integer.MIN_VALUE;
+    private double bucketZoom;
+    private double width;
+    private int metricsVersion;
+
+    private Map<MapData, MapLabel> layouts = new HashMap<>(); // Placed label, or REJECTED, of every MapData seen in the bucket
+    private Map<Long, List<double[]>> grid = new HashMap<>(); // Boxes [x1, y1, x2, y2] of the placed labels by cell
+
+    /**
+     * Places the labels of the given MapData, higher priority labels are placed first
+     * Cities have the highest priority, then villages and then streets by the size of the road and its length
+     * @param zoom double scale of the view
+     * @param width double width of the view in pixels
+     * @param cities List of MapData containing Cities or null
+     * @param villages List of MapData containing Cities or null
+     * @param streets List of MapData containing Highways or null
+     * @return List of MapLabel to draw
+     */
+    public List<MapLabel> place(double zoom, double width, List<MapData> cities, List<MapData> villages, List<MapData> streets) {
+        int zoomBucket = (int) Math.floor(Math.log(zoom) / Math.log(2) * BUCKETS_PER_OCTAVE);
+        if (zoomBucket != bucket || width != this.width || metricsVersion != MapLabel.Style.getMetricsVersion()
+                || layouts.size() > MAX_LAYOUTS) {
+            clear();
+            bucket = zoomBucket;
+            bucketZoom = Math.pow(2, (zoomBucket + 0.5) / BUCKETS_PER_OCTAVE);
+            this.width = width;
+            metricsVersion = MapLabel.Style.getMetricsVersion();
+        }
+
+        List<MapLabel> labels = new ArrayList<>();
+        List<MapData> unseen = new ArrayList<>();
+        List<MapLabel> candidates = new ArrayList<>();
+        collect(cities, 3000, labels, unseen, candidates);
+        collect(villages, 2000, labels, unseen, candidates);
+        collect(streets, 0, labels, unseen, candidates);
+
+        // Sorts the new labels by priority, keeping track of the MapData they belong to
+        Integer[] order = new Integer[candidates.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(candidates.get(b).getPriority(), candidates.get(a).getPriority()));
+
+        for (int i : order) {
+            MapLabel label = candidates.get(i);
+            if (label != REJECTED && tryPlace(label)) {
+                layouts.put(unseen.get(i), label);
+                labels.add(label);
+            } else {
+                layouts.put(unseen.get(i), REJECTED);
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Forgets every placed label, used when the map is replaced
+     */
+    public void clear() {
+        layouts.clear();
+        grid.clear();
+        bucket = Integer.MIN_VALUE;
+    }
+
+
+    // Adds the placed labels of MapData already seen and lays out the labels of MapData not seen before
+    private void collect(List<MapData> mapData, double priority, List<MapLabel> labels, List<MapData> unseen, List<MapLabel> candidates) {
+        if (mapData == null) {
+            return;
+        }
+        for (MapData data : mapData) {
+            MapLabel label = layouts.get(data);
+            if (label == REJECTED) {
+                continue;
+            }
+            if (label != null) {
+                labels.add(label);
+                continue;
+            }
+            label = data instanceof Highway ? layoutStreet((Highway) data) : layoutCity((City) data, priority);
+            unseen.add(data);
+            candidates.add(label == null ? REJECTED : label);
+        }
+    }
+
+    // Lays out the name of the city at the node of the city
+    private MapLabel layoutCity(City city, double priority) {
+        String name = city.getCity();
+        if (name == null || name.isEmpty() || city.getNode() == null) {
+            return null;
+        }
+        return new MapLabel(MapLabel.Style.CITY, name, city.getNode().getLon(), city.getNode().getLat(), 0, 12, priority);
+    }
+
+    // Lays out the name of the street along the middle of the highway, if the highway is long enough for it
+    private MapLabel layoutStreet(Highway highway) {
+        String street = highway.getStreet();
+        if (street.isEmpty() || highway.getOSMWay().size() < 2) {
+            return null;
+        }
+
+        // The font grows when less than about half a kilometer is shown
+        double size = Type.getFontSize(highway.getType()) * Math.max(1, 1 / ((width / bucketZoom) * 110.574 * 1.6));
+
+        double highwayLength = Math.hypot(highway.getMaxX() - highway.getMinX(), highway.getMaxY() - highway.getMinY()) * bucketZoom;
+        if (highwayLength < MapLabel.Style.STREET.getWidth(street, size)) {
+            return null;
+        }
+
+        int nodes = highway.getOSMWay().size();
+        OSMNode lowerMid = highway.getOSMWay().get(nodes / 2 - 1);
+        OSMNode higherMid = highway.getOSMWay().get(nodes / 2);
+
+        double angle = Math.toDegrees(Math.atan2(higherMid.getLat() - lowerMid.getLat(), higherMid.getLon() - lowerMid.getLon()));
+        if (angle < -90) {
+            angle += 180;
+        }
+        if (angle > 90) {
+            angle -= 180;
+        }
+
+        double priority;
+        switch (highway.getType()) {
+            case MOTORWAY:
+            case PRIMARYWAY:
+                priority = 1000;
+                break;
+            case TERTIARYWAY:
+                priority = 500;
+                break;
+            default:
+                priority = 0;
+        }
+        priority += Math.min(highwayLength, 499);
+
+        float x = (lowerMid.getLon() + higherMid.getLon()) / 2;
+        float y = (lowerMid.getLat() + higherMid.getLat()) / 2;
+        return new MapLabel(MapLabel.Style.STREET, street, x, y, angle, size, priority);
+    }
+
+    // Places the label if its box does not overlap the box of a placed label
+    private boolean tryPlace(MapLabel label) {
+        double radians = Math.toRadians(label.getAngle());
+        double cos = Math.abs(Math.cos(radians));
+        double sin = Math.abs(Math.sin(radians));
+        double halfWidth = label.getWidth() / 2 + PADDING;
+        double halfHeight = label.getSize() * 0.6 + PADDING;
+
+        // Bounds of the rotated label in pixels at the zoom of the bucket
+        double centerX = label.getX() * bucketZoom;
+        double centerY = label.getY() * bucketZoom;
+        double extentX = cos * halfWidth + sin * halfHeight;
+        double extentY = sin * halfWidth + cos * halfHeight;
+        double[] box = {centerX - extentX, centerY - extentY, centerX + extentX, centerY + extentY};
+
+        long cellX1 = (long) Math.floor(box[0] / CELL_SIZE);
+        long cellY1 = (long) Math.floor(box[1] / CELL_SIZE);
+        long cellX2 = (long) Math.floor(box[2] / CELL_SIZE);
+        long cellY2 = (long) Math.floor(box[3] / CELL_SIZE);
+
+        for (long cellX = cellX1; cellX <= cellX2; cellX++) {
+            for (long cellY = cellY1; cellY <= cellY2; cellY++) {
+                List<double[]> boxes = grid.get(cell(cellX, cellY));
+                if (boxes == null) {
+                    continue;
+                }
+                for (double[] other : boxes) {
+                    if (box[0] < other[2] && other[0] < box[2] && box[1] < other[3] && other[1] < box[3]) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        for (long cellX = cellX1; cellX <= cellX2; cellX++) {
+            for (long cellY = cellY1; cellY <= cellY2; cellY++) {
+                grid.computeIfAbsent(cell(cellX, cellY), key -> new ArrayList<>()).add(box);
+            }
+        }
+        return true;
+    }
+
+    // Key of the cell in the grid
+    private static long cell(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xffffffffL);
+    }
+}
@@ -6,19 +6,19 @@ import Model.MapComponents.*;
 import Model.Type;
 import Model.LinePath;
 import Model.OSMWay;
-import Model.OSMNode;
 import Model.Model;
 import Model.Drawable;
-import Model.Tree.KDTree;
-import Model.MapData;
+import javafx.application.Platform;
 import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.FillRule;
 import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
 import javafx.scene.transform.Affine;
 import javafx.scene.transform.NonInvertibleTransformException;
 
@@ -37,12 +37,22 @@ public class MapCanvas extends Canvas {
 
     // Responsible for storing graphical content on canvas
     private GraphicsContext gc;
+    private FXRenderer renderer; // Lets the map data draw itself on gc
 
     // Responsible for all mathematical mapping for canvas
     private Affine trans;
     private Viewport viewport;
     private Address searchedAddress;
 
+    private MapPainter painter;
+    private TileRenderer tileRenderer; // Renders the base layers into cached tiles
+    private PanBuffer panBuffer = new PanBuffer(); // Keeps the base layers while panning without tiles
+    private boolean panning; // True if the view has only been panned since the last zoom
+    private RenderPipeline pipeline; // Prepares the layers drawn on top of the tiles, or every layer without tiles
+    private RenderFrame frame; // The last frame prepared by the pipeline
+    private boolean repaintRequested;
+    private FrameStats frameStats = new FrameStats(); // Timings and counts of the painted frames
+
 
     /**
      * Initializes the Canvas
@@ -51,9 +61,22 @@ public class MapCanvas extends Canvas {
     public void initialize(AnchorPane mainAnchorPane) {
         model = Model.getInstance();
         this.gc = getGraphicsContext2D();
+        renderer = new FXRenderer(gc);
         this.trans = new Affine();
         viewport = new Viewport();
         viewport.update(this, trans);
+        painter = new MapPainter(renderer);
+
+        // Tiles of the previous map are thrown away, the renderer and its threads are kept
+        if (tileRenderer == null) {
+            tileRenderer = new TileRenderer(this::requestRepaint);
+            pipeline = new RenderPipeline(this::showFrame);
+        } else {
+            tileRenderer.clear();
+            pipeline.invalidate();
+        }
+        panBuffer.invalidate();
+        frame = null;
 
         // Adds repaint function to observer
         model.addObserver(this::repaint);
@@ -78,11 +101,23 @@ public class MapCanvas extends Canvas {
 
     }
 
+    /**
+     * Throws away the tiles and frames painted from the map data and repaints, keeping the view
+     * Used when a layer of the map being loaded has been read, so it is painted together with the layers read before it
+     */
+    public void refresh() {
+        tileRenderer.clear();
+        pipeline.invalidate();
+        panBuffer.invalidate();
+        repaint();
+    }
+
     /**
      * Sets the initial rectangle view accordingly to the bounds from model
      */
     public void resetView() {
         trans = new Affine();
+        panning = false;
 
         double canvasRatio = getWidth() / getHeight();
 
@@ -155,6 +190,8 @@ public class MapCanvas extends Canvas {
      * responsible for painting (& repainting) everything on canvas
      */
     public void repaint() {
+        long time = -System.nanoTime();
+        renderer.resetCounts();
 
         // setTransform defines the current viewport
         gc.setTransform(new Affine());
@@ -173,11 +210,37 @@ public class MapCanvas extends Canvas {
 
         gc.setFillRule(FillRule.EVEN_ODD);
 
-        // Paints list of drawable containing islands
-        paintIslands(Type.ISLAND);
+        float[] rect = viewport.getRect();
+        painter.setView(getZoom(), getWidth(), rect);
+
+        // Tiles are not used when illustrating the KDTree as only the smaller illustration rect should be drawn
+        boolean useTiles = model.shouldUseTileCache() && !model.shouldDrawKDTreeIllustration();
+        // Panning without tiles shifts the base layers painted last, every other change of the view is painted by the pipeline
+        boolean usePanBuffer = !useTiles && panning && model.shouldUsePanBuffer() && !model.shouldDrawKDTreeIllustration();
+        if (usePanBuffer && !updatePanBuffer()) {
+            // Until the pipeline has painted the whole buffer, the view is drawn like a zoomed view
+            usePanBuffer = false;
+        }
+        if (useTiles) {
+            // Draws the base layers from the tile cache, so the frames only contain the labels
+            paintTiles();
+        } else if (usePanBuffer) {
+            paintPanBuffer();
+        } else if (frame == null || !frame.hasBase()) {
+            // Until the pipeline has painted the base layers of a zoomed view, the pan buffer is shown scaled
+            paintPanBuffer();
+        }
+
+        // The KDTrees are searched on the pipeline's thread, until the frame of this view is ready the last frame is drawn
+        boolean base = !useTiles && !usePanBuffer;
+        pipeline.request(getZoom(), getWidth(), rect, base, true);
+        if (frame != null && (base || !frame.hasBase())) {
+            frame.replay(painter);
+        }
 
-        // responsible for painting all kdtrees
-        paintKDTrees();
+        if (model.shouldDrawKDTreeIllustration()) {
+            paintKDIllustrationBox();
+        }
 
         // Draws the searched edges/osmways for dijkstra if enabled
         if (model.shouldDrawDijkstraIllustration()) {
@@ -194,324 +257,142 @@ public class MapCanvas extends Canvas {
         }
 
         paintRoutePins();
-    }
-
 
-
-    private void paintPointOfInterests() {
-        for (PointOfInterest p : model.getPointsOfInterest()) {
-            p.draw(gc, 50/getZoom(), 50/getZoom());
+        time += System.nanoTime();
+        frameStats.recordPaint(time, painter.getDrawLevel(), renderer.getVertexCount(), renderer.getTextCount());
+        if (model.shouldDrawFrameStats()) {
+            paintFrameStats();
         }
     }
 
-    /**
-     * paints the POI pins used for Source and destination of the computed path
-     */
-    public void paintRoutePins() {
-        if (model.getRoutePOI()[0] == null || model.getRoutePOI()[1] == null) {
-            return;
-        }
-        for (PointOfInterest poi : model.getRoutePOI()) {
-            poi.draw(gc, 50/getZoom(), 50/getZoom());
-        }
-    }
-
-
-    /**
-     * Order of painting is important!
-     * current order: Area > Heath > Farm > meadow > Forest > Park > Water > Waterway > buildings > Railway > highways
-     * > tertiaryways > Tertiary street names > primaryways > mapicons > highway street names > City names > Village names
-     */
-    private void paintKDTrees() {
-        // Draws world in order - sequence below is important to not draw over other elements
-
-        if (calculateDrawLevel() <= 7) {
-            paintKDTree(model.getAreaTree());
-        }
-
-        if (calculateDrawLevel() <= 3) {
-            paintKDTree(model.getHeathTree());
-            paintKDTree(model.getFarmTree());
-            paintKDTree(model.getMeadowTree());
-            paintKDTree(model.getForestTree());
-        }
-
-        if (calculateDrawLevel() <= 5) {
-            paintKDTree(model.getParkTree());
-            paintKDTree(model.getWaterTree());
-            paintKDTree(model.getWaterwayTree());
-        }
-
-        if (calculateDrawLevel() <= 0) {
-            paintKDTree(model.getBuildingTree());
-        }
-
-        // Used for drawing highway names as well instead of rect searching multiple times
-        List<MapData> highways = null;
-        if (calculateDrawLevel() <= 2) {
-            paintKDTree(model.getRailwayTree());
-            float[] rect = viewport.getRect();
-            highways = model.getHighwayTree().rectSearch(rect[0], rect[1], rect[2], rect[3]);
-            paintMapDataList(highways);
-        }
-
-        List<MapData> tertiary = null;
-        if (calculateDrawLevel() <= 7) {
-            float[] rect = viewport.getRect();
-            tertiary = model.getTertiarywayTree().rectSearch(rect[0], rect[1], rect[2], rect[3]);
-            paintMapDataList(tertiary);
-        }
-
-        if (calculateDrawLevel() <= 2) {
-
-            drawStreetNames(tertiary);
-        }
-
-        if (calculateDrawLevel() <= 10) {
-            paintKDTree(model.getPrimarywayTree());
-        }
-
-        if (calculateDrawLevel() <= -1) {
-            paintKDTree(model.getMapIconTree());
-        }
 
-        if (calculateDrawLevel() <= 1) {
-            drawStreetNames(highways);
-        }
-
-        if ((calculateDrawLevel() > 2) && (calculateDrawLevel() <= 9)) {
-            paintCityNames(model.getCityNamesTree());
-        }
 
-        if ((calculateDrawLevel() >= 2) && (calculateDrawLevel() <= 4)) {
-            paintCityNames(model.getVillageNamesTree());
-        }
-
-        if (model.shouldDrawKDTreeIllustration()) {
-            paintKDIllustrationBox();
-        }
+    // Called on the JavaFX thread when the pipeline has prepared a frame
+    private void showFrame(RenderFrame frame) {
+        this.frame = frame;
+        frameStats.recordFrame(frame);
+        repaint();
     }
 
 
+    // Draws the timings and counts of the last frame in the top left corner of the canvas
+    private void paintFrameStats() {
+        List<String> lines = frameStats.getLines();
+        double lineHeight = 15;
 
-    private int calculateDrawLevel() {
-        double zoom = trans.getMyy();
-        if (zoom > 300000) {
-            return -1;
-        }
-        if (zoom > 190000) {
-            return 0;
-        }
-        if (zoom > 130000) {
-            return 1;
-        }
-        if (zoom > 30000) {
-            return 2;
-        }
-        if (zoom > 12000) {
-            return 3;
-        }
-        if (zoom > 7700) {
-            return 4;
-        }
-        if (zoom > 5700) {
-            return 5;
-        }
-        if (zoom > 900) {
-            return 7;
-        }
-        if (zoom > 600) {
-            return 9;
-        }
-        if (zoom > 500) {
-            return 10;
+        gc.setTransform(new Affine());
+        gc.setFill(Color.rgb(0, 0, 0, 0.6));
+        gc.fillRect(5, 5, 290, lines.size() * lineHeight + 10);
+        gc.setFill(Color.WHITE);
+        gc.setFont(Font.font(12));
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        for (int i = 0; i < lines.size(); i++) {
+            gc.fillText(lines.get(i), 10, 10 + i * lineHeight);
         }
-        return 10;
-    }
-
-
-    // Fetches the KDTree data and calls paintMapDataList
-    private void paintKDTree(KDTree tree) {
-        float[] rect = viewport.getRect();
-        List<MapData> ways = tree.rectSearch(rect[0], rect[1], rect[2], rect[3]);
-
-        paintMapDataList(ways);
+        gc.setTransform(trans);
     }
 
 
-    // Converts the list of Mapdata into a list of linepaths(drawables) and calls the paintDrawables method
-    private void paintMapDataList(List<MapData> mapData) {
-
-        List<Drawable> drawWays = new ArrayList<>();
-
-        for (MapData way : mapData) {
-            if (way.getClassType() == MapIcon.class) {
-                MapIcon icon = (MapIcon) way;
-                drawWays.add(icon);
-                continue;
-            }
-
-            Type type = way.getType();
-
-            LinePath path;
-            if (way.getClassType() == Highway.class) {
-                path = new LinePath(((Highway) way).getOSMWay(), type);
-
-            } else if (way.getClassType() == Relations.class) {
-                drawWays.add((Relations) way);
-                path = null;
-            } else {
-                path = new LinePath((OSMWay) way, type);
-            }
-
-            if (path != null) {
-                drawWays.add(path);
-            }
+    // Repaints once on the JavaFX thread no matter how many tiles were finished since the last repaint
+    private void requestRepaint() {
+        if (repaintRequested) {
+            return;
         }
-        paintDrawables(drawWays);
+        repaintRequested = true;
+        Platform.runLater(() -> {
+            repaintRequested = false;
+            repaint();
+        });
     }
 
 
-    // Main method responsible for drawing a list of drawables
-    private void paintDrawables(List<Drawable> drawables) {
-        Type lastType = null;
-        boolean fill = false;
-
-        for (Drawable drawable : drawables) {
-            Type type = drawable.getType();
-
-            if (type != lastType) {
-                fill = Type.getFill(type);
-                double lineWidth = Type.getLineWidth(type) / getZoom();
-
-                double scaledLineWidth = lineWidth;
-
-                Color color = Type.getColor(type);
-
-                if (type == Type.HIGHWAY || type == Type.TERTIARYWAY || type == Type.PRIMARYWAY || type == Type.MOTORWAY) {
-                    // Scales line width according to kilometers on screen instead of zoom level
-                    scaledLineWidth = lineWidth / ((getWidth() / getZoom()) * 110.574); // 110.574 is km/lat
+    // Draws the tiles covering the canvas, tiles not rendered yet are replaced by a part of a rendered tile of a lower level
+    private void paintTiles() {
+        tileRenderer.update(getWidth(), getHeight(), model.getColorScheme());
+
+        double zoom = getZoom();
+        int level = TileRenderer.levelFor(zoom);
+        double span = TileRenderer.tileSpan(level);
+        double seam = 1 / zoom; // Tiles overlap by a pixel to hide the seams between them
+
+        double left = -trans.getTx() / zoom;
+        double top = -trans.getTy() / zoom;
+        int minX = (int) Math.floor(left / span);
+        int minY = (int) Math.floor(top / span);
+        int maxX = (int) Math.floor((left + getWidth() / zoom) / span);
+        int maxY = (int) Math.floor((top + getHeight() / zoom) / span);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                Image tile = tileRenderer.getTile(level, x, y);
+                if (tile != null) {
+                    gc.drawImage(tile, x * span, y * span, span + seam, span + seam);
+                    continue;
+                }
 
-                    if (type == Type.PRIMARYWAY || type == Type.MOTORWAY) {
-                        if (scaledLineWidth < lineWidth / 4) {
-                            scaledLineWidth = lineWidth / 4;
-                        }
+                for (int parentLevel = level - 1; parentLevel >= Math.max(0, level - 4); parentLevel--) {
+                    int scale = 1 << (level - parentLevel);
+                    Image parent = tileRenderer.getCachedTile(parentLevel, Math.floorDiv(x, scale), Math.floorDiv(y, scale));
+                    if (parent != null) {
+                        double size = (double) TileRenderer.TILE_SIZE / scale;
+                        double sourceX = Math.floorMod(x, scale) * size;
+                        double sourceY = Math.floorMod(y, scale) * size;
+                        gc.drawImage(parent, sourceX, sourceY, size, size, x * span, y * span, span + seam, span + seam);
+                        break;
                     }
                 }
-
-                gc.setLineWidth(scaledLineWidth);
-                gc.setStroke(color);
-                gc.setFill(color);
-                lastType = type;
-            }
-
-            // Draw
-            drawable.draw(gc, getZoom());
-            if (fill) {
-                gc.fill();
             }
         }
     }
 
 
-    // Draws street names
-    private void drawStreetNames(List<MapData> ways) {
-
-        if (ways == null || ways.size() == 0) {
-            return;
+    // Shifts the pan buffer to the view, or has the pipeline paint the whole view when the buffer can not be shifted
+    // Returns whether the buffer shows the view
+    private boolean updatePanBuffer() {
+        int width = (int) Math.ceil(getWidth());
+        int height = (int) Math.ceil(getHeight());
+        if (panBuffer.update(getZoom(), trans.getTx(), trans.getTy(), width, height, model.getColorScheme())) {
+            return true;
         }
-
-        gc.setStroke(Type.getColor(Type.STREETNAME));
-
-        for (MapData way : ways) {
-
-            Highway highway = (Highway)way;
-
-            if (highway.getStreet().isEmpty() || highway.getOSMWay().size() < 2) {
-                continue;
-            }
-
-
-
-            double fontSize = Type.getFontSize(highway.getType()) / getZoom();
-
-
-            double calculatedFontSize = fontSize / ((getWidth() / getZoom()) * 110.574 * 1.6);
-
-            if (calculatedFontSize < fontSize) {
-                calculatedFontSize = fontSize;
-            }
-
-            // Stored as meters on map
-            double nameLength = highway.getStreet().length() * calculatedFontSize * 0.5;
-
-            double highwayLength = Math.sqrt(Math.pow(highway.getMaxX() - highway.getMinX(), 2) + Math.pow(highway.getMaxY() - highway.getMinY(), 2));
-            if (highwayLength < nameLength) {
-                continue;
-            }
-
-
-            gc.setFont(Font.font("Verdana", FontWeight.EXTRA_LIGHT, calculatedFontSize));
-            gc.setFill(Type.getColor(Type.STREETNAME));
-
-
-            int size = highway.getOSMWay().size();
-            OSMNode lowerMid = highway.getOSMWay().get(size / 2 - 1);
-            OSMNode higherMid = highway.getOSMWay().get(size / 2);
-
-            double angle = Math.toDegrees(Math.atan2(higherMid.getLat() - lowerMid.getLat(), higherMid.getLon() - lowerMid.getLon()));
-
-            if (angle < -90) {
-                angle += 180;
-            }
-
-            if (angle > 90) {
-                angle -= 180;
-            }
-
-
-            double averageLon = (lowerMid.getLon() + higherMid.getLon())/2;
-            double averageLat = (lowerMid.getLat() + higherMid.getLat())/2;
-
-            gc.save();
-
-            gc.translate(averageLon, averageLat);
-            gc.rotate(angle);
-
-            gc.fillText(highway.getStreet(), -0.8 * nameLength, 0);
-
-            gc.restore();
+        PanBuffer.FullPaint paint = panBuffer.requestFullPaint(getZoom(), trans.getTx(), trans.getTy(), width, height, model.getColorScheme());
+        if (paint != null) {
+            pipeline.paint(panBuffer, paint, this::requestRepaint);
         }
+        return false;
     }
 
 
-    // Draws islands
-    private void paintIslands(Type type) {
-        gc.setLineWidth(1 / getZoom()); // Defines pixelwidth
-        gc.setFill(Type.getColor(type)); // Changes color so islands are drawn in color lightgreen
-        for (Drawable island : model.getIslands()) {
-            island.draw(gc, getZoom());
-            gc.fill();
+    // Draws the base layers painted by the pan buffer, scaled if they were painted at another zoom
+    private void paintPanBuffer() {
+        Image image = panBuffer.getImage();
+        if (image == null) {
+            return;
         }
+        double zoom = panBuffer.getZoom();
+        gc.drawImage(image, -panBuffer.getTx() / zoom, -panBuffer.getTy() / zoom, image.getWidth() / zoom, image.getHeight() / zoom);
     }
 
 
-    // Draws city names
-    private void paintCityNames(KDTree tree) {
-        float[] rect = viewport.getRect();
-
-        List<MapData> ways = tree.rectSearch(rect[0], rect[1], rect[2], rect[3]);
-
-        for (MapData city : ways) {
-            City currentCity = (City) city;
-            String cityName = currentCity.getCity();
+    private void paintPointOfInterests() {
+        for (PointOfInterest p : model.getPointsOfInterest()) {
+            p.draw(renderer, 50/getZoom(), 50/getZoom());
+        }
+    }
 
-            gc.setFill(Type.getColor(Type.CITYNAME));
-            gc.setFont(new Font(12 / getZoom()));
-            gc.fillText(cityName, currentCity.getNode().getLon(), currentCity.getNode().getLat());
+    /**
+     * paints the POI pins used for Source and destination of the computed path
+     */
+    public void paintRoutePins() {
+        if (model.getRoutePOI()[0] == null || model.getRoutePOI()[1] == null) {
+            return;
+        }
+        for (PointOfInterest poi : model.getRoutePOI()) {
+            poi.draw(renderer, 50/getZoom(), 50/getZoom());
         }
     }
 
+
     // Draws circle
     private void drawDot(double x, double y) {
         gc.setStroke(Color.RED);
@@ -568,6 +449,7 @@ public class MapCanvas extends Canvas {
             return;
         }
         trans.prependScale(factor, factor, x, y);
+        panning = false;
         repaint();
     }
 
@@ -578,6 +460,7 @@ public class MapCanvas extends Canvas {
      */
     public void pan(double dx, double dy) {
         trans.prependTranslation(dx, dy);
+        panning = true;
         repaint();
     }
 
@@ -588,7 +471,7 @@ public class MapCanvas extends Canvas {
             List<Drawable> path = new ArrayList<>();
             LinePath p = new LinePath(model.getRoute(), type);
             path.add(p);
-            paintDrawables(path);
+            painter.paintDrawables(path);
         }
     }
 
@@ -602,7 +485,7 @@ public class MapCanvas extends Canvas {
                 LinePath p = new LinePath(way, Type.ILLUSTRATE);
                 marked.add(p);
             }
-            paintDrawables(marked);
+            painter.paintDrawables(marked);
         }
     }
 
@@ -614,7 +497,7 @@ public class MapCanvas extends Canvas {
         gc.setStroke(Type.getColor(Type.ILLUSTRATE));
         LinePath path = new LinePath(createRect(rect[0], rect[1], rect[2], rect[3]), Type.ILLUSTRATE);
         gc.setLineWidth(2/getZoom());
-        path.draw(gc);
+        path.draw(renderer);
     }
 
 
@@ -643,6 +526,14 @@ public class MapCanvas extends Canvas {
         return trans.getMyy();
     }
 
+    /**
+     * Returns the timings and counts of the painted frames
+     * @return FrameStats
+     */
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
     /**
      * Returns Viewport
      * @return Viewport
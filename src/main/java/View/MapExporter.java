@@ -0,0 +1,209 @@
+package View;
+
+import Model.Drawable;
+import Model.LinePath;
+import Model.Model;
+import Model.OSMNode;
+import Model.OSMWay;
+import Model.Type;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the loaded map to PNG images without a display, using the Java2DRenderer instead of a JavaFX canvas
+ * Tiles use the same levels and grid as the TileRenderer, so an exported tile looks like the tile painted in the application
+ * Can be run from the command line: MapExporter map-file output-directory level [threads]
+ */
+public class MapExporter {
+    private static final double VIEW_WIDTH = 1280; // Width of the view line widths are scaled for, like a window of the application
+
+    private Model model;
+    private int threads;
+
+    /**
+     * Constructor for MapExporter, the map has to be loaded into the Model before exporting
+     * @param threads int number of images rendered at the same time
+     */
+    public MapExporter(int threads) {
+        this.threads = Math.max(1, threads);
+        model = Model.getInstance();
+    }
+
+    /**
+     * Renders every tile of the level covering the bounds of the map and writes them as level/x_y.png in the directory
+     * @param level int level of the TileRenderer to render
+     * @param directory File to write the tiles to
+     * @return int number of tiles written
+     * @throws IOException if a tile could not be written, InterruptedIOException if interrupted before every tile was written
+     */
+    public int exportTiles(int level, File directory) throws IOException {
+        double span = TileRenderer.tileSpan(level);
+        int x1 = (int) Math.floor(model.getMinLon() / span);
+        int y1 = (int) Math.floor(model.getMinLat() / span);
+        int x2 = (int) Math.floor(model.getMaxLon() / span);
+        int y2 = (int) Math.floor(model.getMaxLat() / span);
+
+        File levelDirectory = new File(directory, String.valueOf(level));
+        if (!levelDirectory.isDirectory() && !levelDirectory.mkdirs()) {
+            throw new IOException("Could not create " + levelDirectory);
+        }
+
+        long time = -System.nanoTime();
+        AtomicInteger written = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tiles = new ArrayList<>();
+            for (int x = x1; x <= x2; x++) {
+                for (int y = y1; y <= y2; y++) {
+                    int tileX = x;
+                    int tileY = y;
+                    tiles.add(executor.submit(() -> {
+                        ImageIO.write(renderTile(level, tileX, tileY), "png", new File(levelDirectory, tileX + "_" + tileY + ".png"));
+                        written.incrementAndGet();
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> tile : tiles) {
+                tile.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted after " + written.get() + " tiles were written");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not export a tile", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        time += System.nanoTime();
+
+        System.out.printf("Export time: %.3fms\n", time / 1e6);
+        System.out.printf("Tiles: %d, %.1f tiles/s on %d threads\n", written.get(), written.get() / (time / 1e9), threads);
+        return written.get();
+    }
+
+    /**
+     * Renders the base layers of a tile, the labels are left out as they would be cut at the edges of the tile
+     * @param level int
+     * @param x int column of the tile
+     * @param y int row of the tile
+     * @return BufferedImage of TileRenderer.TILE_SIZE pixels
+     */
+    public BufferedImage renderTile(int level, int x, int y) {
+        double zoom = TileRenderer.zoomAt(level);
+        double span = TileRenderer.tileSpan(level);
+
+        // Searched with half a view around the tile like the TileRenderer, so ways crossing the edges are found
+        float pad = (float) (VIEW_WIDTH / zoom * 0.5 + span * 0.1);
+        float[] rect = {(float) (x * span) - pad, (float) (y * span) - pad, (float) ((x + 1) * span) + pad, (float) ((y + 1) * span) + pad};
+        return render(zoom, -x * span, -y * span, TileRenderer.TILE_SIZE, TileRenderer.TILE_SIZE, rect, false);
+    }
+
+    /**
+     * Renders every layer, labels included, of the given rectangle of the map scaled to fit the image
+     * @param rect float[] rectangle [x1, y1, x2, y2] of the map to render
+     * @param width int width of the image in pixels
+     * @param height int height of the image in pixels
+     * @param route boolean true if the computed route should be drawn on top
+     * @return BufferedImage
+     */
+    public BufferedImage renderView(float[] rect, int width, int height, boolean route) {
+        double zoom = Math.min(width / (rect[2] - rect[0]), height / (rect[3] - rect[1]));
+
+        // Centers the rectangle in the image
+        double left = (rect[0] + rect[2]) / 2.0 - width / zoom / 2;
+        double top = (rect[1] + rect[3]) / 2.0 - height / zoom / 2;
+        float[] view = {(float) left, (float) top, (float) (left + width / zoom), (float) (top + height / zoom)};
+        return render(zoom, -left, -top, width, height, view, route);
+    }
+
+    /**
+     * Renders a snapshot of the computed route with some of the map around it
+     * @param width int width of the image in pixels
+     * @param height int height of the image in pixels
+     * @return BufferedImage or null if no route has been computed
+     */
+    public BufferedImage renderRoute(int width, int height) {
+        OSMWay route = model.getRoute();
+        if (route.size() == 0) {
+            return null;
+        }
+        float[] rect = {Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (OSMNode node : route) {
+            rect[0] = Math.min(rect[0], node.getLon());
+            rect[1] = Math.min(rect[1], node.getLat());
+            rect[2] = Math.max(rect[2], node.getLon());
+            rect[3] = Math.max(rect[3], node.getLat());
+        }
+        float margin = Math.max(Math.max(rect[2] - rect[0], rect[3] - rect[1]) * 0.1f, 0.001f);
+        return renderView(new float[] {rect[0] - margin, rect[1] - margin, rect[2] + margin, rect[3] + margin}, width, height, true);
+    }
+
+
+    // Paints the map at the zoom translated by (dx, dy) map coordinates on a new image
+    private BufferedImage render(double zoom, double dx, double dy, int width, int height, float[] rect, boolean labels) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        Java2DRenderer renderer = new Java2DRenderer(g);
+        renderer.setFill(Type.getColor(Type.BACKGROUND));
+        renderer.fillRect(0, 0, width, height);
+        renderer.setTransform(zoom, 0, 0, zoom, dx * zoom, dy * zoom);
+
+        MapPainter painter = new MapPainter(renderer);
+        painter.setView(zoom, labels ? width : VIEW_WIDTH, rect);
+        if (labels) {
+            // The route is drawn below the labels like in the application
+            painter.paintLayers(true, false);
+            paintRoute(painter);
+            painter.paintLayers(false, true);
+        } else {
+            painter.paintLayers(true, false);
+        }
+        g.dispose();
+        return image;
+    }
+
+    // Paints the computed route, if there is one
+    private void paintRoute(MapPainter painter) {
+        if (model.getRoute().size() > 0) {
+            List<Drawable> path = new ArrayList<>();
+            path.add(new LinePath(model.getRoute(), Type.ROUTE));
+            painter.paintDrawables(path);
+        }
+    }
+
+
+    /**
+     * Loads a map and exports the tiles of a level
+     * @param args String[] map file (.bin .osm or .zip), output directory, level and optionally the number of threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: MapExporter <map file> <output directory> <level> [threads]");
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+        try {
+            Model.getInstance().load(new File(args[0]));
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            new MapExporter(threads).exportTiles(Integer.parseInt(args[2]), new File(args[1]));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package View;
+
+import Model.Renderer;
+import Model.Type;
+import javafx.scene.text.FontWeight;
+
+/**
+ * A label placed on the map by the LabelEngine
+ * The label is anchored at a point of the map, but its size is given in pixels as labels are drawn in screen space
+ */
+public class MapLabel {
+
+    /**
+     * The look of a label, every style keeps the metrics used to estimate the width of its labels
+     */
+    public enum Style {
+        STREET("Verdana", FontWeight.EXTRA_LIGHT, Type.STREETNAME),
+        CITY(null, FontWeight.NORMAL, Type.CITYNAME);
+
+        private static final String SAMPLE = "Rued Langgaards Vej Østerbro Århus";
+        private static volatile int metricsVersion; // Increased every time a style has been measured
+
+        private final String family;
+        private final FontWeight weight;
+        private final Type type;
+        private volatile double advance = 0.55; // Average width of a character in ems until the style is measured
+        private volatile boolean measured;
+
+        Style(String family, FontWeight weight, Type type) {
+            this.family = family;
+            this.weight = weight;
+            this.type = type;
+        }
+
+        /**
+         * Getter for the font family, null for the default family
+         * @return String
+         */
+        public String getFamily() {
+            return family;
+        }
+
+        /**
+         * Getter for the font weight
+         * @return FontWeight
+         */
+        public FontWeight getWeight() {
+            return weight;
+        }
+
+        /**
+         * Estimates the width of a text in the style
+         * @param text String
+         * @param size double size of the font in pixels
+         * @return double width in pixels
+         */
+        public double getWidth(String text, double size) {
+            return text.length() * size * advance;
+        }
+
+        /**
+         * Getter for the Type whose color the style is drawn in
+         * @return Type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Measures the average width of a character of the style the first time it is called
+         * Needs fonts, which is why it is done with the Renderer the first label is drawn on. Changes the font of the Renderer
+         * @param renderer Renderer to measure with
+         */
+        public void measure(Renderer renderer) {
+            if (measured) {
+                return;
+            }
+            renderer.setFont(family, weight, 100);
+            double width = renderer.getTextWidth(SAMPLE);
+            if (width > 0) { // Keeps the estimate where no fonts are installed
+                advance = width / SAMPLE.length() / 100;
+            }
+            measured = true;
+            metricsVersion++;
+        }
+
+        /**
+         * Returns a number that changes every time a style has been measured, so layouts using estimated widths can be redone
+         * @return int
+         */
+        public static int getMetricsVersion() {
+            return metricsVersion;
+        }
+    }
+
+    private Style style;
+    private String text;
+    private float x;
+    private float y;
+    private double angle;
+    private double size;
+    private double width;
+    private double priority;
+
+    /**
+     * Constructor for MapLabel
+     * @param style Style
+     * @param text String
+     * @param x float x-coordinate of the center of the label on the map
+     * @param y float y-coordinate of the center of the label on the map
+     * @param angle double rotation of the label in degrees
+     * @param size double size of the font in pixels
+     * @param priority double labels with a higher priority are placed first
+     */
+    public MapLabel(Style style, String text, float x, float y, double angle, double size, double priority) {
+        this.style = style;
+        this.text = text;
+        this.x = x;
+        this.y = y;
+        this.angle = angle;
+        this.size = size;
+        this.priority = priority;
+        width = style.getWidth(text, size);
+    }
+
+    /**
+     * Getter for style
+     * @return Style
+     */
+    public Style getStyle() {
+        return style;
+    }
+
+    /**
+     * Getter for text
+     * @return String
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Getter for the x-coordinate of the center of the label on the map
+     * @return float
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * Getter for the y-coordinate of the center of the label on the map
+     * @return float
+     */
+    public float getY() {
+        return y;
+    }
+
+    /**
+     * Getter for angle
+     * @return double rotation in degrees
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Getter for the size of the font
+     * @return double size in pixels
+     */
+    public double getSize() {
+        return size;
+    }
+
+    /**
+     * Getter for the estimated width of the label
+     * @return double width in pixels
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Getter for priority
+     * @return double
+     */
+    public double getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,338 @@
+package View;
+
+import Model.Drawable;
+import Model.MapData;
+import Model.Model;
+import Model.Renderer;
+import Model.Tree.KDTree;
+import Model.Type;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Paints the map data of the model onto a Renderer
+ * Used by MapCanvas to paint the map directly, by TileRenderer to paint tiles on other threads
+ * and by MapExporter to paint images without a display,
+ * so everything it needs to know about the view is given with setView instead of read from the canvas
+ */
+public class MapPainter {
+    private Model model;
+    private Renderer renderer;
+
+    private double zoom;
+    private double width;
+    private float[] rect;
+    private BooleanSupplier cancelled = () -> false;
+    private RenderFrame preparing; // The frame being prepared, the searches are recorded in it
+    private LabelEngine labelEngine = new LabelEngine();
+
+    /**
+     * Constructor for MapPainter
+     * @param renderer Renderer to paint on, its transform has to be set to the view. May be null if the painter only prepares frames
+     */
+    public MapPainter(Renderer renderer) {
+        this.renderer = renderer;
+        model = Model.getInstance();
+    }
+
+    /**
+     * Sets the LabelEngine placing the labels, a painter created for every frame should be given one that lives longer
+     * so the labels keep their place between frames
+     * @param labelEngine LabelEngine
+     */
+    public void setLabelEngine(LabelEngine labelEngine) {
+        this.labelEngine = labelEngine;
+    }
+
+    /**
+     * Sets the view to paint
+     * @param zoom double scale of the view
+     * @param width double width of the view in pixels, line widths and font sizes are scaled by it
+     * @param rect float[] rectangle [x1, y1, x2, y2] to search the KDTrees within
+     */
+    public void setView(double zoom, double width, float[] rect) {
+        this.zoom = zoom;
+        this.width = width;
+        this.rect = rect;
+    }
+
+
+    /**
+     * Order of painting is important!
+     * current order: Islands > Area > Heath > Farm > meadow > Forest > Park > Water > Waterway > buildings > Railway > highways
+     * > tertiaryways > primaryways > mapicons > labels (city, village and street names placed by the LabelEngine)
+     * The base layers (areas and ways) and the labels (names and map icons) can be painted separately,
+     * so the base layers can be painted into tiles while the labels are painted on top of the tiles
+     * @param base boolean true if the base layers should be painted
+     * @param labels boolean true if the labels should be painted
+     */
+    public void paintLayers(boolean base, boolean labels) {
+        prepareLayers(base, labels, 0, () -> false).replay(this);
+    }
+
+
+    /**
+     * Runs the KDTree searches and prepares the geometry of the layers without painting anything,
+     * so it can be done on another thread than the one painting the returned frame
+     * @param base boolean true if the base layers should be prepared
+     * @param labels boolean true if the labels should be prepared
+     * @param levelBias int added to the draw level, a positive bias leaves out the details of the current zoom
+     * @param cancelled BooleanSupplier returning true if the frame is no longer needed, the rest of the searches are then skipped
+     * @return RenderFrame with the layers in the order they should be painted
+     */
+    public RenderFrame prepareLayers(boolean base, boolean labels, int levelBias, BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        RenderFrame frame = new RenderFrame(levelBias == 0, base);
+        preparing = frame;
+        int level = calculateDrawLevel() + levelBias;
+
+        // Draws world in order - sequence below is important to not draw over other elements
+
+        if (base) {
+            frame.addIslands(model.getIslands());
+
+            if (level <= 7) {
+                frame.addDrawables(toDrawables(search("Area", model.getAreaTree())));
+            }
+
+            if (level <= 3) {
+                frame.addDrawables(toDrawables(search("Heath", model.getHeathTree())));
+                frame.addDrawables(toDrawables(search("Farm", model.getFarmTree())));
+                frame.addDrawables(toDrawables(search("Meadow", model.getMeadowTree())));
+                frame.addDrawables(toDrawables(search("Forest", model.getForestTree())));
+            }
+
+            if (level <= 5) {
+                frame.addDrawables(toDrawables(search("Park", model.getParkTree())));
+                frame.addDrawables(toDrawables(search("Water", model.getWaterTree())));
+                frame.addDrawables(toDrawables(search("Waterway", model.getWaterwayTree())));
+            }
+
+            if (level <= 0) {
+                frame.addDrawables(toDrawables(search("Building", model.getBuildingTree())));
+            }
+        }
+
+        // Used for drawing highway names as well instead of rect searching multiple times
+        List<MapData> highways = null;
+        if (level <= 2 && (base || level <= 1)) {
+            highways = search("Highway", model.getHighwayTree());
+            if (base) {
+                frame.addDrawables(toDrawables(search("Railway", model.getRailwayTree())));
+                frame.addDrawables(toDrawables(highways));
+            }
+        }
+
+        List<MapData> tertiary = null;
+        if (level <= 7 && (base || level <= 2)) {
+            tertiary = search("Tertiaryway", model.getTertiarywayTree());
+            if (base) {
+                frame.addDrawables(toDrawables(tertiary));
+            }
+        }
+
+        if (base && level <= 10) {
+            frame.addDrawables(toDrawables(search("Primaryway", model.getPrimarywayTree())));
+        }
+
+        if (!labels) {
+            return frame;
+        }
+
+        if (level <= -1) {
+            frame.addDrawables(toDrawables(search("Map icon", model.getMapIconTree())));
+        }
+
+        // Every label is placed at once, so labels of different kinds never overlap
+        List<MapData> streets = new ArrayList<>();
+        if (level <= 2 && tertiary != null) {
+            streets.addAll(tertiary);
+        }
+        if (level <= 1 && highways != null) {
+            streets.addAll(highways);
+        }
+        List<MapData> cities = null;
+        if ((level > 2) && (level <= 9)) {
+            cities = search("City name", model.getCityNamesTree());
+        }
+        List<MapData> villages = null;
+        if ((level >= 2) && (level <= 4)) {
+            villages = search("Village name", model.getVillageNamesTree());
+        }
+        if (!cancelled.getAsBoolean()) {
+            frame.addLabels(labelEngine.place(zoom, width, cities, villages, streets));
+        }
+        return frame;
+    }
+
+
+
+    /**
+     * Returns the draw level of the zoom of the view, lower levels draw more details
+     * @return int from -1 to 10
+     */
+    public int getDrawLevel() {
+        return calculateDrawLevel();
+    }
+
+
+    private int calculateDrawLevel() {
+        if (zoom > 300000) {
+            return -1;
+        }
+        if (zoom > 190000) {
+            return 0;
+        }
+        if (zoom > 130000) {
+            return 1;
+        }
+        if (zoom > 30000) {
+            return 2;
+        }
+        if (zoom > 12000) {
+            return 3;
+        }
+        if (zoom > 7700) {
+            return 4;
+        }
+        if (zoom > 5700) {
+            return 5;
+        }
+        if (zoom > 900) {
+            return 7;
+        }
+        if (zoom > 600) {
+            return 9;
+        }
+        if (zoom > 500) {
+            return 10;
+        }
+        return 10;
+    }
+
+
+    // Searches the KDTree within the rect of the view for MapData large enough to be seen at the zoom,
+    // nothing is found once the frame has been cancelled. The search is recorded in the frame by the name of the layer
+    private List<MapData> search(String layer, KDTree tree) {
+        List<MapData> found = new ArrayList<>();
+        if (!cancelled.getAsBoolean()) {
+            long time = -System.nanoTime();
+            tree.rectSearch(rect[0], rect[1], rect[2], rect[3], (float) (1 / zoom), found);
+            time += System.nanoTime();
+            preparing.addQuery(new FrameStats.Query(layer, time, found.size()));
+        }
+        return found;
+    }
+
+
+    // Every MapData in the drawn KDTrees is drawable itself (Feature, Highway, Relations and MapIcon),
+    // so they are drawn directly instead of copying the geometry of every way into a new LinePath on every frame
+    private List<Drawable> toDrawables(List<MapData> mapData) {
+        List<Drawable> drawables = new ArrayList<>(mapData.size());
+        for (MapData data : mapData) {
+            drawables.add((Drawable) data);
+        }
+        return drawables;
+    }
+
+
+    /**
+     * Main method responsible for drawing a list of drawables
+     * @param drawables List of Drawable
+     */
+    public void paintDrawables(List<Drawable> drawables) {
+        Type lastType = null;
+        boolean fill = false;
+
+        for (Drawable drawable : drawables) {
+            Type type = drawable.getType();
+
+            if (type != lastType) {
+                fill = Type.getFill(type);
+                double lineWidth = Type.getLineWidth(type) / zoom;
+
+                double scaledLineWidth = lineWidth;
+
+                Color color = Type.getColor(type);
+
+                if (type == Type.HIGHWAY || type == Type.TERTIARYWAY || type == Type.PRIMARYWAY || type == Type.MOTORWAY) {
+                    // Scales line width according to kilometers on screen instead of zoom level
+                    scaledLineWidth = lineWidth / ((width / zoom) * 110.574); // 110.574 is km/lat
+
+                    if (type == Type.PRIMARYWAY || type == Type.MOTORWAY) {
+                        if (scaledLineWidth < lineWidth / 4) {
+                            scaledLineWidth = lineWidth / 4;
+                        }
+                    }
+                }
+
+                renderer.setLineWidth(scaledLineWidth);
+                renderer.setStroke(color);
+                renderer.setFill(color);
+                lastType = type;
+            }
+
+            // Draw
+            drawable.draw(renderer, zoom);
+            if (fill) {
+                renderer.fill();
+            }
+        }
+    }
+
+
+    /**
+     * Draws the labels in screen space, so the fonts of the labels are the same at every zoom and can be cached
+     * @param labels List of MapLabel placed by the LabelEngine
+     */
+    public void drawLabels(List<MapLabel> labels) {
+        double[] view = renderer.getTransform();
+        renderer.save();
+
+        MapLabel.Style fontStyle = null;
+        double fontSize = 0;
+        Type type = null;
+        for (MapLabel label : labels) {
+            MapLabel.Style style = label.getStyle();
+            style.measure(renderer);
+
+            if (style != fontStyle || label.getSize() != fontSize) {
+                renderer.setFont(style.getFamily(), style.getWeight(), label.getSize());
+                fontStyle = style;
+                fontSize = label.getSize();
+            }
+            if (style.getType() != type) {
+                renderer.setFill(Type.getColor(style.getType()));
+                type = style.getType();
+            }
+
+            // Rotates around the point of the label on screen
+            double x = view[0] * label.getX() + view[2] * label.getY() + view[4];
+            double y = view[1] * label.getX() + view[3] * label.getY() + view[5];
+            double angle = Math.toRadians(label.getAngle());
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            renderer.setTransform(cos, sin, -sin, cos, x, y);
+            renderer.fillCenteredText(label.getText(), 0, 0);
+        }
+        renderer.restore();
+    }
+
+
+    /**
+     * Draws the given islands
+     * @param islands List of Drawable
+     * @param type Type the islands are drawn as
+     */
+    public void paintIslands(List<Drawable> islands, Type type) {
+        renderer.setLineWidth(1 / zoom); // Defines pixelwidth
+        renderer.setFill(Type.getColor(type)); // Changes color so islands are drawn in color lightgreen
+        for (Drawable island : islands) {
+            island.draw(renderer, zoom);
+            renderer.fill();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package View;
+
+import Model.Type;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Keeps the base layers of the last view as an image, so panning only has to paint what is new
+ * When the view is panned the pixels of the image are shifted by the distance panned and only the strips exposed
+ * along the edges are painted, each searching the KDTrees within the strip only. When the zoom, the size of the view
+ * or the content changes the whole view is painted again as a FullPaint on the RenderPipeline's thread, so the KDTrees
+ * are never searched for the whole view on the JavaFX thread, and the buffer is seeded with it when it is done
+ */
+public class PanBuffer {
+    private static final double SEARCH_PADDING = 0.1; // Strips are searched with this part of the view around them, like the Viewport
+
+    private BufferedImage buffer;
+    private int[] pixels;
+    private WritableImage image;
+    private boolean uploaded; // True if the image shows the pixels of the buffer
+
+    private boolean valid;
+    private double zoom;
+    private int colorScheme;
+    private double tx; // Translation of the view the buffer is painted for, in pixels
+    private double ty;
+    private FullPaint pending; // The full paint the buffer waits for, null if none
+
+    /**
+     * The base layers of a whole view painted into an image of their own on the RenderPipeline's thread
+     */
+    public static class FullPaint {
+        private final double zoom;
+        private final double tx;
+        private final double ty;
+        private final int width;
+        private final int height;
+        private final int colorScheme;
+        private BufferedImage painted;
+
+        private FullPaint(double zoom, double tx, double ty, int width, int height, int colorScheme) {
+            this.zoom = zoom;
+            this.tx = tx;
+            this.ty = ty;
+            this.width = width;
+            this.height = height;
+            this.colorScheme = colorScheme;
+        }
+
+        /**
+         * Paints the base layers of the whole view, searching the KDTrees on the thread calling it
+         */
+        public void paint() {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            paintStrip(image, zoom, tx, ty, 0, 0, width, height);
+            painted = image;
+        }
+
+        // Whether the paint is of the view at the zoom, size and color scheme
+        private boolean isOf(double zoom, int width, int height, int colorScheme) {
+            return zoom == this.zoom && width == this.width && height == this.height && colorScheme == this.colorScheme;
+        }
+    }
+
+    /**
+     * Shifts the buffer to the view and paints the exposed strips
+     * Nothing is painted if the buffer can not be shifted to the view, it then has to be seeded with a FullPaint
+     * @param zoom double scale of the view
+     * @param tx double x translation of the view in pixels
+     * @param ty double y translation of the view in pixels
+     * @param width int width of the view in pixels
+     * @param height int height of the view in pixels
+     * @param colorScheme int color scheme the map is painted in
+     * @return boolean true if the buffer shows the view, false if it has to be painted again
+     */
+    public boolean update(double zoom, double tx, double ty, int width, int height, int colorScheme) {
+        if (width <= 0 || height <= 0) {
+            return true;
+        }
+
+        // Panning by whole pixels keeps the painted pixels where they belong, the rest of a pixel is left to drawing the image
+        int dx = (int) Math.round(tx - this.tx);
+        int dy = (int) Math.round(ty - this.ty);
+        if (!valid || buffer.getWidth() != width || buffer.getHeight() != height || zoom != this.zoom
+                || colorScheme != this.colorScheme || Math.abs(dx) >= width || Math.abs(dy) >= height) {
+            return false;
+        }
+        if (dx == 0 && dy == 0) {
+            return true;
+        }
+
+        shift(dx, dy);
+        this.tx += dx;
+        this.ty += dy;
+
+        // The columns exposed on the left or right, then the rows exposed above or below in the rest of the width
+        int stripX = dx > 0 ? 0 : width + dx;
+        if (dx != 0) {
+            paintStrip(stripX, 0, Math.abs(dx), height);
+        }
+        if (dy != 0) {
+            int restX = dx > 0 ? dx : 0;
+            paintStrip(restX, dy > 0 ? 0 : height + dy, width - Math.abs(dx), Math.abs(dy));
+        }
+        uploaded = false;
+        return true;
+    }
+
+    /**
+     * Creates the full paint of the view the buffer should be seeded with, unless the same view is already being painted
+     * @param zoom double scale of the view
+     * @param tx double x translation of the view in pixels
+     * @param ty double y translation of the view in pixels
+     * @param width int width of the view in pixels
+     * @param height int height of the view in pixels
+     * @param colorScheme int color scheme the map is painted in
+     * @return FullPaint to paint on the RenderPipeline's thread, or null if a paint of the view is pending
+     */
+    public FullPaint requestFullPaint(double zoom, double tx, double ty, int width, int height, int colorScheme) {
+        if (pending != null && pending.isOf(zoom, width, height, colorScheme)) {
+            return null;
+        }
+        pending = new FullPaint(zoom, tx, ty, width, height, colorScheme);
+        return pending;
+    }
+
+    /**
+     * Replaces the buffer with the full paint, unless the map changed or another view was requested since it was requested
+     * The buffer is shifted to the current view and the strips exposed meanwhile are painted by the next update
+     * @param paint FullPaint that has been painted
+     * @return boolean true if the buffer was seeded
+     */
+    public boolean seed(FullPaint paint) {
+        if (paint != pending || paint.painted == null) {
+            return false;
+        }
+        pending = null;
+        if (buffer == null || buffer.getWidth() != paint.width || buffer.getHeight() != paint.height) {
+            image = null;
+        }
+        buffer = paint.painted;
+        pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+        zoom = paint.zoom;
+        colorScheme = paint.colorScheme;
+        tx = paint.tx;
+        ty = paint.ty;
+        valid = true;
+        uploaded = false;
+        return true;
+    }
+
+    /**
+     * Forgets the painted map and the full paint being painted, used when the content of the map changes
+     */
+    public void invalidate() {
+        valid = false;
+        pending = null;
+    }
+
+    /**
+     * Returns the painted base layers as an image to draw on the canvas
+     * The pixel (0, 0) of the image is at the translation given by getTx and getTy
+     * @return WritableImage or null if nothing has been painted
+     */
+    public WritableImage getImage() {
+        if (!valid) {
+            return null;
+        }
+        if (image == null) {
+            image = new WritableImage(buffer.getWidth(), buffer.getHeight());
+            uploaded = false;
+        }
+        if (!uploaded) {
+            image.getPixelWriter().setPixels(0, 0, buffer.getWidth(), buffer.getHeight(), PixelFormat.getIntArgbPreInstance(), pixels, 0, buffer.getWidth());
+            uploaded = true;
+        }
+        return image;
+    }
+
+    /**
+     * Returns the image the buffer paints on, which unlike getImage can be read without the JavaFX toolkit
+     * @return BufferedImage or null if nothing has been painted
+     */
+    public BufferedImage getBuffer() {
+        return valid ? buffer : null;
+    }
+
+    /**
+     * Getter for the zoom the buffer is painted at
+     * @return double
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Getter for the x translation of the view the buffer is painted for
+     * @return double x translation in pixels
+     */
+    public double getTx() {
+        return tx;
+    }
+
+    /**
+     * Getter for the y translation of the view the buffer is painted for
+     * @return double y translation in pixels
+     */
+    public double getTy() {
+        return ty;
+    }
+
+
+    // Moves the pixels of the buffer by (dx, dy), the pixels moved out are dropped and the exposed pixels are left as they are
+    private void shift(int dx, int dy) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        int rowLength = width - Math.abs(dx);
+        int fromX = Math.max(0, -dx);
+        int toX = Math.max(0, dx);
+
+        // Rows are copied in the order that never overwrites a row before it has been copied
+        if (dy > 0) {
+            for (int y = height - 1; y >= dy; y--) {
+                System.arraycopy(pixels, (y - dy) * width + fromX, pixels, y * width + toX, rowLength);
+            }
+        } else {
+            for (int y = 0; y < height + dy; y++) {
+                System.arraycopy(pixels, (y - dy) * width + fromX, pixels, y * width + toX, rowLength);
+            }
+        }
+    }
+
+    // Paints the base layers within the strip of pixels of the buffer
+    private void paintStrip(int x, int y, int width, int height) {
+        paintStrip(buffer, zoom, tx, ty, x, y, width, height);
+    }
+
+    // Paints the base layers within the strip of pixels of the image, searching the KDTrees within the strip and a bit around it
+    private static void paintStrip(BufferedImage buffer, double zoom, double tx, double ty, int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Graphics2D g = buffer.createGraphics();
+        g.setClip(x, y, width, height);
+        Java2DRenderer renderer = new Java2DRenderer(g);
+        renderer.setFill(Type.getColor(Type.BACKGROUND));
+        renderer.fillRect(x, y, width, height);
+        renderer.setTransform(zoom, 0, 0, zoom, tx, ty);
+
+        double padding = Math.max(buffer.getWidth(), buffer.getHeight()) * SEARCH_PADDING;
+        float[] rect = {
+                (float) ((x - padding - tx) / zoom),
+                (float) ((y - padding - ty) / zoom),
+                (float) ((x + width + padding - tx) / zoom),
+                (float) ((y + height + padding - ty) / zoom)
+        };
+
+        MapPainter painter = new MapPainter(renderer);
+        painter.setView(zoom, buffer.getWidth(), rect);
+        painter.paintLayers(true, false);
+        g.dispose();
+    }
+}
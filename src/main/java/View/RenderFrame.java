@@ -0,0 +1,130 @@
+package View;
+
+import Model.Drawable;
+import Model.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The layers of the map prepared for painting, in the order they should be painted
+ * A frame is prepared by MapPainter on a worker thread, where the KDTrees are searched and the geometry is built,
+ * and replayed on the JavaFX thread, which then only has to paint
+ */
+public class RenderFrame {
+    private enum Kind {
+        ISLANDS, DRAWABLES, LABELS
+    }
+
+    private List<Kind> kinds = new ArrayList<>();
+    private List<List<?>> layers = new ArrayList<>();
+    private boolean complete;
+    private boolean base;
+    private List<FrameStats.Query> queries = new ArrayList<>();
+
+    /**
+     * Constructor for RenderFrame
+     * @param complete boolean true if the frame contains every detail of the zoom it was prepared for
+     * @param base boolean true if the frame contains the base layers
+     */
+    public RenderFrame(boolean complete, boolean base) {
+        this.complete = complete;
+        this.base = base;
+    }
+
+
+    /**
+     * Adds the islands to the frame
+     * @param islands List of Drawable
+     */
+    public void addIslands(List<Drawable> islands) {
+        add(Kind.ISLANDS, islands);
+    }
+
+    /**
+     * Adds a layer of drawables to the frame
+     * @param drawables List of Drawable
+     */
+    public void addDrawables(List<Drawable> drawables) {
+        add(Kind.DRAWABLES, drawables);
+    }
+
+    /**
+     * Adds the labels placed by the LabelEngine to the frame
+     * @param labels List of MapLabel
+     */
+    public void addLabels(List<MapLabel> labels) {
+        add(Kind.LABELS, labels);
+    }
+
+    private void add(Kind kind, List<?> layer) {
+        if (layer == null || layer.isEmpty()) {
+            return;
+        }
+        kinds.add(kind);
+        layers.add(layer);
+    }
+
+
+    /**
+     * Paints every layer of the frame in order
+     * @param painter MapPainter with the view the frame should be painted in
+     */
+    @SuppressWarnings("unchecked")
+    public void replay(MapPainter painter) {
+        for (int i = 0; i < kinds.size(); i++) {
+            switch (kinds.get(i)) {
+                case ISLANDS:
+                    painter.paintIslands((List<Drawable>) layers.get(i), Type.ISLAND);
+                    break;
+                case DRAWABLES:
+                    painter.paintDrawables((List<Drawable>) layers.get(i));
+                    break;
+                case LABELS:
+                    painter.drawLabels((List<MapLabel>) layers.get(i));
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Returns whether the frame contains every detail of the zoom it was prepared for
+     * @return boolean false if it is a coarse frame shown until the complete frame is ready
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Adds a KDTree search done while preparing the frame
+     * @param query FrameStats.Query
+     */
+    public void addQuery(FrameStats.Query query) {
+        queries.add(query);
+    }
+
+    /**
+     * Getter for the KDTree searches done while preparing the frame
+     * @return List of FrameStats.Query
+     */
+    public List<FrameStats.Query> getQueries() {
+        return queries;
+    }
+
+    /**
+     * Returns whether the frame contains the base layers
+     * @return boolean false if the base layers are drawn from tiles or the PanBuffer
+     */
+    public boolean hasBase() {
+        return base;
+    }
+
+    /**
+     * Returns the number of layers in the frame
+     * @return int
+     */
+    public int size() {
+        return kinds.size();
+    }
+}
@@ -0,0 +1,137 @@
+package View;
+
+import javafx.application.Platform;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Prepares RenderFrames on a worker thread so the JavaFX thread never waits for KDTree searches
+ * Every new view cancels the frames of the previous views, and every view is prepared twice:
+ * first a coarse frame without the details of the zoom, then the complete frame
+ */
+public class RenderPipeline {
+    private static final int COARSE_LEVEL_BIAS = 3; // Draw levels left out of the coarse frame
+
+    private ExecutorService worker;
+    private Consumer<RenderFrame> onFrame;
+    private AtomicInteger generation = new AtomicInteger(); // Increased for every requested view
+    private LabelEngine labelEngine = new LabelEngine(); // Only used on the worker thread, keeps the labels in place between frames
+
+    // The last requested view
+    private double zoom;
+    private double width;
+    private float[] rect;
+    private boolean base;
+    private boolean labels;
+
+    /**
+     * Constructor for RenderPipeline
+     * @param onFrame Consumer called on the JavaFX thread with every frame that is ready and still wanted
+     */
+    public RenderPipeline(Consumer<RenderFrame> onFrame) {
+        this.onFrame = onFrame;
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Render pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Starts preparing frames for the view unless it is the view that was last requested
+     * @param zoom double
+     * @param width double width of the view in pixels
+     * @param rect float[] rectangle [x1, y1, x2, y2] to search the KDTrees within
+     * @param base boolean true if the base layers should be prepared
+     * @param labels boolean true if the labels should be prepared
+     * @return boolean true if new frames are being prepared
+     */
+    public boolean request(double zoom, double width, float[] rect, boolean base, boolean labels) {
+        if (zoom == this.zoom && width == this.width && Arrays.equals(rect, this.rect) && base == this.base && labels == this.labels) {
+            return false;
+        }
+        this.zoom = zoom;
+        this.width = width;
+        this.rect = rect;
+        this.base = base;
+        this.labels = labels;
+
+        int frameGeneration = generation.incrementAndGet();
+        worker.execute(() -> {
+            try {
+                prepare(frameGeneration, zoom, width, rect, base, labels);
+            } catch (Exception e) {
+                // The map can be replaced while a frame is prepared
+                e.printStackTrace();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Paints the whole view of the PanBuffer on the worker thread and seeds the buffer with it on the JavaFX thread
+     * @param panBuffer PanBuffer to seed
+     * @param paint PanBuffer.FullPaint requested from the buffer
+     * @param onSeeded Runnable called on the JavaFX thread if the buffer was seeded
+     */
+    public void paint(PanBuffer panBuffer, PanBuffer.FullPaint paint, Runnable onSeeded) {
+        worker.execute(() -> {
+            try {
+                paint.paint();
+            } catch (Exception e) {
+                // The map can be replaced while the view is painted
+                e.printStackTrace();
+                return;
+            }
+            Platform.runLater(() -> {
+                if (panBuffer.seed(paint)) {
+                    onSeeded.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancels the frames being prepared and forgets the last view and the placed labels, used when a new map is loaded
+     */
+    public void invalidate() {
+        rect = null;
+        generation.incrementAndGet();
+        worker.execute(labelEngine::clear);
+    }
+
+
+    private void prepare(int frameGeneration, double zoom, double width, float[] rect, boolean base, boolean labels) {
+        BooleanSupplier cancelled = () -> generation.get() != frameGeneration;
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+
+        MapPainter painter = new MapPainter(null);
+        painter.setLabelEngine(labelEngine);
+        painter.setView(zoom, width, rect);
+
+        // The coarse frame only contains the base layers, labels would jump around when the complete frame replaces it
+        if (base) {
+            publish(painter.prepareLayers(true, false, COARSE_LEVEL_BIAS, cancelled), cancelled);
+        }
+        publish(painter.prepareLayers(base, labels, 0, cancelled), cancelled);
+    }
+
+    private void publish(RenderFrame frame, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (!cancelled.getAsBoolean()) {
+                onFrame.accept(frame);
+            }
+        });
+    }
+}
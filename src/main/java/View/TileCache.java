@@ -0,0 +1,90 @@
+package View;
+
+import javafx.scene.image.Image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of rendered map tiles, bounded by the memory the tile images use
+ * Tiles are identified by their level and x and y index packed into a single long
+ */
+public class TileCache {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private long maxBytes;
+    private long bytes;
+    private LinkedHashMap<Long, Image> tiles = new LinkedHashMap<>(64, 0.75f, true); // Access order, least recently used first
+
+    /**
+     * Constructor for TileCache
+     * @param maxBytes long maximum number of bytes the cached images may use
+     */
+    public TileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Packs the level and x and y index of a tile into a key
+     * @param level int
+     * @param x int
+     * @param y int
+     * @return long key of the tile
+     */
+    public static long key(int level, int x, int y) {
+        return ((long) level << 56) | ((x & 0xFFFFFFFL) << 28) | (y & 0xFFFFFFFL);
+    }
+
+    /**
+     * Returns the tile with the given key and marks it as the most recently used
+     * @param key long
+     * @return Image or null if the tile is not in the cache
+     */
+    public synchronized Image get(long key) {
+        return tiles.get(key);
+    }
+
+    /**
+     * Adds the tile to the cache and removes the least recently used tiles until the cache is within its memory bound
+     * @param key long
+     * @param tile Image
+     */
+    public synchronized void put(long key, Image tile) {
+        Image old = tiles.put(key, tile);
+        if (old != null) {
+            bytes -= sizeOf(old);
+        }
+        bytes += sizeOf(tile);
+
+        Iterator<Map.Entry<Long, Image>> iterator = tiles.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Image eldest = iterator.next().getValue();
+            if (eldest == tile) {
+                break;
+            }
+            bytes -= sizeOf(eldest);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes every tile from the cache
+     */
+    public synchronized void clear() {
+        tiles.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of bytes used by the cached tiles
+     * @return long
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL;
+    }
+}
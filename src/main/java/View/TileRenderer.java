@@ -0,0 +1,198 @@
+package View;
+
+import Model.Type;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.shape.FillRule;
+import javafx.scene.transform.Affine;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the base layers of the map (islands, areas and ways) into a pyramid of square raster tiles
+ * Level 0 is drawn at the lowest zoom of MapCanvas and every following level doubles the zoom.
+ * Tiles are painted on background threads onto detached canvases and turned into images on the JavaFX thread,
+ * after which they are kept in a TileCache so panning only has to draw images
+ */
+public class TileRenderer {
+    public static final int TILE_SIZE = 256; // Width and height of a tile in pixels
+    private static final double BASE_ZOOM = 100; // Zoom of level 0, the lowest zoom of MapCanvas
+    private static final long CACHE_BYTES = 128L * 1024 * 1024;
+
+    private TileCache cache = new TileCache(CACHE_BYTES);
+    private Set<Long> pending = ConcurrentHashMap.newKeySet(); // Tiles being rendered for the current generation
+    private ExecutorService executor;
+    private Runnable onTileReady;
+
+    // Tiles rendered for an older generation are thrown away, the generation changes whenever the tiles would look different
+    private volatile int generation;
+    private double viewWidth;
+    private double viewHeight;
+    private int colorScheme = -1;
+
+    /**
+     * Constructor for TileRenderer
+     * @param onTileReady Runnable called on the JavaFX thread whenever a tile has been rendered
+     */
+    public TileRenderer(Runnable onTileReady) {
+        this.onTileReady = onTileReady;
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        // The most recently requested tiles are rendered first as they are the ones currently on screen
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingDeque<>() {
+            @Override
+            public boolean offer(Runnable runnable) {
+                return offerFirst(runnable);
+            }
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "Tile renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Returns the level of tiles to use at the given zoom
+     * Tiles are never scaled up, only scaled down by at most half
+     * @param zoom double
+     * @return int level
+     */
+    public static int levelFor(double zoom) {
+        return Math.max(0, (int) Math.ceil(Math.log(zoom / BASE_ZOOM) / Math.log(2) - 1e-9));
+    }
+
+    /**
+     * Returns the zoom the tiles of the given level are drawn at
+     * @param level int
+     * @return double
+     */
+    public static double zoomAt(int level) {
+        return BASE_ZOOM * Math.pow(2, level);
+    }
+
+    /**
+     * Returns the width and height of a tile of the given level in map coordinates
+     * @param level int
+     * @return double
+     */
+    public static double tileSpan(int level) {
+        return TILE_SIZE / zoomAt(level);
+    }
+
+
+    /**
+     * Updates the view the tiles are rendered for and throws away every tile if it changed
+     * Line widths and font sizes depend on the size of the view and the colors on the color scheme
+     * @param width double width of the view in pixels
+     * @param height double height of the view in pixels
+     * @param colorScheme int
+     */
+    public void update(double width, double height, int colorScheme) {
+        if (width != viewWidth || height != viewHeight || colorScheme != this.colorScheme) {
+            viewWidth = width;
+            viewHeight = height;
+            this.colorScheme = colorScheme;
+            clear();
+        }
+    }
+
+    /**
+     * Throws away every rendered tile, used when a new map is loaded
+     */
+    public void clear() {
+        generation++;
+        pending = ConcurrentHashMap.newKeySet();
+        cache.clear();
+    }
+
+
+    /**
+     * Returns the tile if it has been rendered, otherwise starts rendering it
+     * @param level int
+     * @param x int index of the tile
+     * @param y int index of the tile
+     * @return Image or null if the tile is not rendered yet
+     */
+    public Image getTile(int level, int x, int y) {
+        long key = TileCache.key(level, x, y);
+        Image tile = cache.get(key);
+        Set<Long> tilesPending = pending;
+        if (tile == null && tilesPending.add(key)) {
+            int tileGeneration = generation;
+            executor.execute(() -> {
+                try {
+                    render(level, x, y, key, tileGeneration, tilesPending);
+                } catch (Exception e) {
+                    // The map can be replaced while a tile is rendered
+                    e.printStackTrace();
+                    tilesPending.remove(key);
+                }
+            });
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the tile if it has been rendered without rendering it otherwise
+     * @param level int
+     * @param x int index of the tile
+     * @param y int index of the tile
+     * @return Image or null if the tile is not rendered
+     */
+    public Image getCachedTile(int level, int x, int y) {
+        return cache.get(TileCache.key(level, x, y));
+    }
+
+
+    // Paints the tile on the current thread and turns it into an image on the JavaFX thread
+    private void render(int level, int x, int y, long key, int tileGeneration, Set<Long> tilesPending) {
+        if (tileGeneration != generation) {
+            tilesPending.remove(key);
+            return;
+        }
+
+        double zoom = zoomAt(level);
+        double span = tileSpan(level);
+
+        // A canvas that is not part of a scene may be drawn on from any thread
+        Canvas canvas = new Canvas(TILE_SIZE, TILE_SIZE);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(Type.getColor(Type.BACKGROUND));
+        gc.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+
+        Affine trans = new Affine();
+        trans.appendScale(zoom, zoom);
+        trans.appendTranslation(-x * span, -y * span);
+        gc.setTransform(trans);
+        gc.setFillRule(FillRule.EVEN_ODD);
+
+        // The KDTrees are searched by the position of the center of each way, so the tile is searched
+        // with half a view around it to find every way crossing it that would be found when painting the view
+        float padX = (float) (viewWidth / zoom * 0.5 + span * 0.1);
+        float padY = (float) (viewHeight / zoom * 0.5 + span * 0.1);
+        float[] rect = {(float) (x * span) - padX, (float) (y * span) - padY, (float) ((x + 1) * span) + padX, (float) ((y + 1) * span) + padY};
+
+        MapPainter painter = new MapPainter(new FXRenderer(gc));
+        painter.setView(zoom, viewWidth, rect);
+        painter.paintLayers(true, false);
+
+        Platform.runLater(() -> {
+            tilesPending.remove(key);
+            if (tileGeneration != generation) {
+                return;
+            }
+            WritableImage image = canvas.snapshot(null, null);
+            cache.put(key, image);
+            onTileReady.run();
+        });
+    }
+}
@@ -0,0 +1,104 @@
+import Model.AddressParser.Address;
+import Model.OSMNode;
+import Model.SortedAddressArrayList;
+import Model.Tree.AddressKDTree;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class AddressKDTreeTest {
+
+    /**
+     * Tests that the nearest address is found for points placed on and next to addresses
+     */
+    @Test
+    public void nearestTest() {
+        SortedAddressArrayList list = new SortedAddressArrayList();
+        Address first = createAddress("Langagervej", "25", 1, 1);
+        Address second = createAddress("Langagervej", "27", 5, 5);
+        Address third = createAddress("Rued Langgaards Vej", "7", 10, 2);
+        list.add(first);
+        list.add(second);
+        list.add(third);
+
+        AddressKDTree tree = new AddressKDTree(list);
+
+        assertEquals(3, tree.size());
+        assertEquals(first, tree.nearest(1, 1));
+        assertEquals(second, tree.nearest(4, 6));
+        assertEquals(third, tree.nearest(20, 0));
+    }
+
+
+    /**
+     * Tests that an empty tree returns no addresses
+     */
+    @Test
+    public void emptyTest() {
+        AddressKDTree tree = new AddressKDTree(new SortedAddressArrayList());
+
+        assertNull(tree.nearest(1, 1));
+        assertEquals(0, tree.nearest(1, 1, 5).size());
+    }
+
+
+    /**
+     * Tests k nearest and the batch lookup against a linear search over random addresses
+     */
+    @Test
+    public void kNearestTest() {
+        Random random = new Random(27);
+        SortedAddressArrayList list = new SortedAddressArrayList();
+        List<Address> addresses = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Address address = createAddress("Vej", "" + i, random.nextFloat() * 100, random.nextFloat() * 100);
+            list.add(address);
+            addresses.add(address);
+        }
+        AddressKDTree tree = new AddressKDTree(list);
+
+        float[] xs = new float[200];
+        float[] ys = new float[200];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextFloat() * 100;
+            ys[i] = random.nextFloat() * 100;
+
+            float x = xs[i];
+            float y = ys[i];
+            addresses.sort(Comparator.comparingDouble(a -> distance(a, x, y)));
+
+            List<Address> nearest = tree.nearest(x, y, 5);
+            assertEquals(5, nearest.size());
+            for (int j = 0; j < 5; j++) {
+                assertEquals(distance(addresses.get(j), x, y), distance(nearest.get(j), x, y));
+            }
+        }
+
+        Address[] batch = tree.nearest(xs, ys);
+        for (int i = 0; i < xs.length; i++) {
+            assertEquals(tree.nearest(xs[i], ys[i]), batch[i]);
+        }
+
+        assertEquals(0, tree.nearest(50, 50, 0).size());
+        assertEquals(0, tree.nearest(50, 50, -3).size());
+    }
+
+
+    private Address createAddress(String street, String house, float x, float y) {
+        Address address = new Address(street, house, "2300", "København");
+        address.setNode(new OSMNode(x, y));
+        return address;
+    }
+
+    private double distance(Address address, float x, float y) {
+        float dx = address.getNode().getLon() - x;
+        float dy = address.getNode().getLat() - y;
+        return dx * dx + dy * dy;
+    }
+}
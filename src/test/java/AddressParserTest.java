@@ -1,8 +1,12 @@
 import Model.AddressParser.Address;
 import Model.AddressParser.AddressParser;
 import Model.SortedAddressArrayList;
+import Model.StringPool;
 import org.junit.Test;
 
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -82,7 +86,85 @@ public class AddressParserTest {
         assertNotEquals(AddressParser.upperCaseEveryFirstLetter(testAddress.getStreet()), testAddress.getStreet());
     }
 
-    
+
+    /**
+     * Tests that parsed addresses only look their names up in the StringPool of the map and never add to it
+     */
+    @Test
+    public void parseLooksUpNamesTest() {
+        StringPool previous = StringPool.getInstance();
+        StringPool pool = new StringPool();
+        StringPool.setInstance(pool);
+        try {
+            int street = pool.intern("Langagervej");
+            int size = pool.size();
+
+            Address known = AddressParser.parseAddress("Langagervej 25, 2500 Valby");
+            Address unknown = AddressParser.parseAddress("Fantasivej 3 1234 Nowhere");
+
+            assertEquals(size, pool.size());
+            assertEquals(street, known.getStreetId());
+            assertEquals(StringPool.NONE, unknown.getStreetId());
+            assertEquals("Fantasivej", unknown.getStreet());
+            assertEquals("Nowhere", unknown.getCity());
+        } finally {
+            StringPool.setInstance(previous);
+        }
+    }
+
+
+    /**
+     * Tests that the parser splits random inputs exactly like the regex and capitalizer it replaced, without adding the
+     * random names to the StringPool shared by the rest of the tests.
+     * The one intended difference is a name with more than one space between its words or a space before it, which the
+     * old capitalizer could not split into words so the address was not parsed. Its words are now separated by a space
+     */
+    @Test
+    public void regexEquivalenceTest() {
+        Pattern pattern = Pattern.compile("^ *(?<street>[0-9]{0,3}[\\p{L} .\\-]+)? *(?<house>[0-9]{1,3}[A-z]*)? *(?<postcode>[0-9]{1,4})? *(?<city>[\\p{L} .\\-]+)? *$");
+        String alphabet = "aBæø .-_[,01239";
+        Random random = new Random(29);
+        int names = StringPool.getInstance().size();
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            Matcher matcher = pattern.matcher(input.toString().replace(",", ""));
+            Address parsed = AddressParser.parseAddress(input.toString());
+            if (!matcher.matches()) {
+                assertNull(parsed, input.toString());
+                continue;
+            }
+            assertEquals(oldUpperCaseEveryFirstLetter(matcher.group("street")), parsed.getStreet(), input.toString());
+            assertEquals(oldUpperCaseEveryFirstLetter(matcher.group("house")), parsed.getHouse(), input.toString());
+            assertEquals(oldUpperCaseEveryFirstLetter(matcher.group("postcode")), parsed.getPostcode(), input.toString());
+            assertEquals(oldUpperCaseEveryFirstLetter(matcher.group("city")), parsed.getCity(), input.toString());
+        }
+        assertEquals(names, StringPool.getInstance().size());
+    }
+
+    /**
+     * Tests that a name with more than one space between its words is parsed with a single space between them
+     */
+    @Test
+    public void spacesInNameTest() {
+        StringPool previous = StringPool.getInstance();
+        StringPool.setInstance(new StringPool());
+        try {
+            Address address = AddressParser.parseAddress("rued  langgaards vej 7,  2300 københavn  s");
+
+            assertEquals("Rued Langgaards Vej", address.getStreet());
+            assertEquals("7", address.getHouse());
+            assertEquals("2300", address.getPostcode());
+            assertEquals("København S", address.getCity());
+        } finally {
+            StringPool.setInstance(previous);
+        }
+    }
 
 
     private void insertToAddressList(Address addr) {
@@ -91,4 +173,23 @@ public class AddressParserTest {
     private SortedAddressArrayList getAddrList() {
         return addrList;
     }
+
+    // The capitalizer of the regex parser, which threw on the empty word before a space that follows another space or
+    // starts the name, so such a name has its words separated by a single space as the new parser does
+    private static String oldUpperCaseEveryFirstLetter(String input) {
+        if (input == null) {
+            return input;
+        }
+        if (input.contains("  ") || input.startsWith(" ")) {
+            input = input.trim().replaceAll(" +", " ");
+        }
+        String[] words = input.split("\\s");
+        String capitalizeWord = "";
+        for (String w : words) {
+            String first = w.substring(0, 1);
+            String afterfirst = w.substring(1);
+            capitalizeWord += first.toUpperCase() + afterfirst + " ";
+        }
+        return capitalizeWord.trim();
+    }
 }
@@ -0,0 +1,83 @@
+import Model.AddressParser.Address;
+import Model.AddressParser.BatchGeocoder;
+import Model.AddressParser.BatchGeocoder.MatchQuality;
+import Model.OSMNode;
+import Model.SortedAddressArrayList;
+import Model.StringPool;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchGeocoderTest {
+
+    private SortedAddressArrayList createAddressList() {
+        SortedAddressArrayList addrList = new SortedAddressArrayList();
+
+        addrList.add(mapAddress("Langagervej", "25", "2500", "Valby", new OSMNode(0.56f * 12.5f, -55.6f)));
+        addrList.add(mapAddress("Langdalen", "11", "8305", "Samso", new OSMNode(0.56f * 10.6f, -55.8f)));
+
+        addrList.sortByAddress();
+        return addrList;
+    }
+
+
+    /**
+     * Tests the match quality of single addresses
+     */
+    @Test
+    public void geocodeTest() {
+        BatchGeocoder geocoder = new BatchGeocoder(createAddressList());
+
+        assertEquals("Langagervej", geocoder.geocode("Langagervej 25, 2500 Valby").getStreet());
+        assertEquals("11", geocoder.geocode("\"langdalen 11, 8305 Samso\"").getHouse());
+        assertEquals("Langdalen", geocoder.geocode("Langdalen 99").getStreet());
+        assertNull(geocoder.geocode("Ukendtvej 1"));
+        assertNull(geocoder.geocode("#!?"));
+    }
+
+
+    /**
+     * Tests that a file is geocoded line by line in order with the match quality of each line
+     * @throws IOException
+     */
+    @Test
+    public void geocodeFileTest() throws IOException {
+        BatchGeocoder geocoder = new BatchGeocoder(createAddressList());
+        int names = StringPool.getInstance().size();
+
+        String input = "Langagervej 25, 2500 Valby\nLangdalen 99\nUkendtvej 1\n#!?\n";
+        StringWriter output = new StringWriter();
+        geocoder.geocode(new StringReader(input), output);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[1].startsWith("EXACT,55.6,12.5"));
+        assertTrue(lines[2].startsWith("STREET,"));
+        assertTrue(lines[3].startsWith("NOT_FOUND,,,"));
+        assertTrue(lines[4].startsWith("UNPARSEABLE,,,"));
+        assertTrue(lines[4].endsWith("\"#!?\""));
+
+        assertEquals(1, geocoder.getStatistics().get(MatchQuality.EXACT));
+        assertEquals(1, geocoder.getStatistics().get(MatchQuality.STREET));
+        assertEquals(1, geocoder.getStatistics().get(MatchQuality.NOT_FOUND));
+        assertEquals(1, geocoder.getStatistics().get(MatchQuality.UNPARSEABLE));
+        // The lines are only looked up, so no names are added to the dictionary of the map
+        assertEquals(names, StringPool.getInstance().size());
+    }
+
+
+    // An address with its names in the StringPool, like the addresses of a loaded map
+    private Address mapAddress(String street, String house, String postcode, String city, OSMNode node) {
+        Address address = new Address(null, house, postcode, null);
+        address.setStreetId(StringPool.getInstance().intern(street));
+        address.setCityId(StringPool.getInstance().intern(city));
+        address.setNode(node);
+        return address;
+    }
+}
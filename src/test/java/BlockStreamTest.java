@@ -0,0 +1,95 @@
+import Model.BlockInputStream;
+import Model.BlockOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BlockStreamTest {
+
+    /**
+     * Tests that bytes of several blocks read back the same after being compressed
+     * @throws Exception
+     */
+    @Test
+    public void roundTripTest() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool();
+        byte[] bytes = bytes(BlockOutputStream.BLOCK_SIZE * 3 + 1234);
+
+        assertArrayEquals(bytes, read(write(bytes, pool), pool));
+        pool.shutdown();
+    }
+
+    /**
+     * Tests that a block changed after it was written is refused by its checksum
+     * @throws Exception
+     */
+    @Test
+    public void corruptBlockTest() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool();
+        byte[] file = write(bytes(BlockOutputStream.BLOCK_SIZE + 10), pool);
+        // The checksum of the first block is changed, after its compressed length and length, so the block inflates to
+        // the length it was written with and only the checksum tells that it is corrupt
+        file[8]++;
+
+        IOException e = assertThrows(IOException.class, () -> read(file, pool));
+        assertEquals("Corrupt block, its checksum does not match", e.getMessage());
+        pool.shutdown();
+    }
+
+    /**
+     * Tests that an error writing to the stream is thrown by writeTo instead of it waiting for the end of the blocks
+     */
+    @Test
+    public void abortTest() {
+        ForkJoinPool pool = new ForkJoinPool();
+        BlockOutputStream blocks = new BlockOutputStream(pool);
+        blocks.abort(new IOException("The section could not be written"));
+
+        IOException e = assertThrows(IOException.class, () -> blocks.writeTo(new DataOutputStream(new ByteArrayOutputStream())));
+        assertEquals("The section could not be written", e.getMessage());
+        pool.shutdown();
+    }
+
+
+    // Random bytes of a small alphabet, so they compress
+    private static byte[] bytes(int length) {
+        Random random = new Random(42);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return bytes;
+    }
+
+    // The bytes are written on a thread of their own while the blocks are written to the file, like a section is saved
+    private static byte[] write(byte[] bytes, ForkJoinPool pool) throws Exception {
+        BlockOutputStream blocks = new BlockOutputStream(pool);
+        FutureTask<Void> writer = new FutureTask<>(() -> {
+            blocks.write(bytes, 0, bytes.length);
+            blocks.close();
+            return null;
+        });
+        new Thread(writer).start();
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        blocks.writeTo(out);
+        out.flush();
+        writer.get();
+        return file.toByteArray();
+    }
+
+    private static byte[] read(byte[] file, ForkJoinPool pool) throws IOException {
+        return BlockInputStream.read(new DataInputStream(new ByteArrayInputStream(file)), pool).readAllBytes();
+    }
+}
@@ -287,4 +287,32 @@ public class ConfigDecoderTest {
         assertTrue(decoder.isDrivable(highwayType, highwayValues));
     }
 
+
+    /**
+     * This test depicts the following scenario, read tag by tag into packed flags like OSMHandler does:
+     * <way>
+     * <tag k="highway" v="service"/>
+     * <tag k="maxspeed" v="DK:urban 30"/>
+     * <tag k="junction" v="roundabout"/>
+     * <tag k="motorcar" v="no"/>
+     * <tag k="foot" v="permissive"/>
+     * </way>
+     */
+    @Test
+    public void packedFlagsTest() {
+        int flags = HighwayDecoder.setType(0, "service");
+        flags = HighwayDecoder.addTag(flags, "maxspeed", "DK:urban 30");
+        flags = HighwayDecoder.addTag(flags, "junction", "roundabout");
+        flags = HighwayDecoder.addTag(flags, "motorcar", "no");
+        flags = HighwayDecoder.addTag(flags, "foot", "permissive");
+        flags = HighwayDecoder.addTag(flags, "surface", "asphalt");
+
+        assertEquals(30, decoder.getMaxSpeed(flags));
+        assertTrue(decoder.isRoundabout(flags));
+        assertTrue(decoder.isOneWay(flags));
+        assertFalse(decoder.isDrivable(flags));
+        assertTrue(decoder.isBikable(flags));
+        assertTrue(decoder.isWalkable(flags));
+        assertEquals(50, decoder.getMaxSpeed(HighwayDecoder.setType(0, "service")));
+    }
 }
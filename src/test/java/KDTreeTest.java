@@ -0,0 +1,92 @@
+import Model.MapData;
+import Model.OSMNode;
+import Model.OSMWay;
+import Model.Tree.KDTree;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KDTreeTest {
+
+    /**
+     * Tests that a tree built at once finds the same MapData in random rects as a tree built by inserting one at a time
+     */
+    @Test
+    public void buildTest() {
+        Random random = new Random(30);
+        KDTree inserted = new KDTree();
+        KDTree built = new KDTree();
+        for (int i = 0; i < 30000; i++) {
+            // Coordinates are rounded so some points share x or y
+            OSMNode node = new OSMNode(random.nextInt(1000) / 10f, random.nextInt(1000) / 10f);
+            inserted.insert(node);
+            built.add(node);
+        }
+        built.build();
+
+        for (int i = 0; i < 200; i++) {
+            float x = random.nextFloat() * 100;
+            float y = random.nextFloat() * 100;
+            float size = random.nextFloat() * 20;
+
+            HashSet<MapData> expected = new HashSet<>(inserted.rectSearch(x, y, x + size, y + size));
+            HashSet<MapData> actual = new HashSet<>(built.rectSearch(x, y, x + size, y + size));
+            assertEquals(expected, actual);
+        }
+        assertEquals(30000, built.rectSearch(-1, -1, 101, 101).size());
+    }
+
+
+    /**
+     * Tests that building an empty tree leaves it empty
+     */
+    @Test
+    public void emptyBuildTest() {
+        KDTree tree = new KDTree();
+        tree.build();
+
+        assertEquals(0, tree.rectSearch(0, 0, 100, 100).size());
+    }
+
+
+    /**
+     * Tests that a search for MapData of a minimum size finds all MapData of that size and leaves out MapData less than half of it
+     */
+    @Test
+    public void minSizeTest() {
+        Random random = new Random(35);
+        KDTree tree = new KDTree();
+        for (int i = 0; i < 5000; i++) {
+            float x = random.nextFloat() * 10;
+            float y = random.nextFloat() * 10;
+            float size = (float) Math.pow(10, -1 - random.nextFloat() * 5);
+            OSMWay way = new OSMWay();
+            way.add(new OSMNode(x, y));
+            way.add(new OSMNode(x + size, y + size * random.nextFloat()));
+            tree.add(way);
+        }
+        tree.build();
+
+        float minSize = 0.001f;
+        List<MapData> list = new ArrayList<>();
+        tree.rectSearch(-1, -1, 12, 12, minSize, list);
+        HashSet<MapData> found = new HashSet<>(list);
+
+        for (MapData data : tree.rectSearch(-1, -1, 12, 12)) {
+            float size = data.getMaxX() - data.getMinX();
+            if (size >= minSize) {
+                assertTrue(found.contains(data));
+            } else if (size < minSize / 2) {
+                assertFalse(found.contains(data));
+            }
+        }
+        assertEquals(5000, tree.rectSearch(-1, -1, 12, 12).size());
+    }
+}
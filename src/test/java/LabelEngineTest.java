@@ -0,0 +1,57 @@
+import Model.MapComponents.City;
+import Model.MapData;
+import Model.OSMNode;
+import View.LabelEngine;
+import View.MapLabel;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LabelEngineTest {
+
+    /**
+     * Tests that overlapping labels are left out in order of priority while labels apart from each other are all placed
+     */
+    @Test
+    public void collisionTest() {
+        LabelEngine engine = new LabelEngine();
+        double zoom = 1000;
+
+        City city = city("Aarhus", 10, -56);
+        City village = city("Viby", 10.001f, -56); // One pixel from the city
+        City farAway = city("Odense", 10.5f, -56);
+
+        List<MapLabel> labels = engine.place(zoom, 1000, List.of(city, farAway), List.of(village), null);
+        assertEquals(2, labels.size());
+        assertEquals("Aarhus", labels.get(0).getText());
+        assertEquals("Odense", labels.get(1).getText());
+    }
+
+    /**
+     * Tests that placed labels keep their place while the zoom stays in the same bucket, even if a label with a higher priority shows up
+     */
+    @Test
+    public void cacheTest() {
+        LabelEngine engine = new LabelEngine();
+        City village = city("Viby", 10.001f, -56);
+        City city = city("Aarhus", 10, -56);
+
+        engine.place(1000, 1000, null, List.of(village), null);
+        List<MapLabel> labels = engine.place(1010, 1000, List.of(city), List.<MapData>of(village), null);
+        assertEquals(1, labels.size());
+        assertEquals("Viby", labels.get(0).getText());
+
+        // A new zoom bucket lays out the labels again by priority
+        labels = engine.place(4000, 1000, List.of(city), List.<MapData>of(village), null);
+        assertEquals("Aarhus", labels.get(0).getText());
+    }
+
+
+    private City city(String name, float x, float y) {
+        City city = new City(name);
+        city.setNode(new OSMNode(x, y));
+        return city;
+    }
+}
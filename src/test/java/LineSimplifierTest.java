@@ -0,0 +1,67 @@
+import Model.LineSimplifier;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LineSimplifierTest {
+
+    /**
+     * Tests that every point left out at a level lies within the tolerance of the level from the simplified line
+     */
+    @Test
+    public void toleranceTest() {
+        Random random = new Random(33);
+        float[] coords = new float[2000];
+        float x = 10, y = -55;
+        for (int i = 0; i < coords.length; i += 2) {
+            x += random.nextFloat() * 0.0001f;
+            y += (random.nextFloat() - 0.5f) * 0.0002f;
+            coords[i] = x;
+            coords[i + 1] = y;
+        }
+
+        byte[] significance = LineSimplifier.significance(coords);
+        assertEquals(LineSimplifier.LEVELS, significance[0]);
+        assertEquals(LineSimplifier.LEVELS, significance[significance.length - 1]);
+
+        for (int level = 0; level < LineSimplifier.LEVELS; level++) {
+            int kept = 0;
+            int previous = 0;
+            for (int i = 1; i < significance.length; i++) {
+                if (significance[i] > level) {
+                    for (int j = previous + 1; j < i; j++) {
+                        assertTrue(distance(coords, j, previous, i) <= LineSimplifier.tolerance(level) + 1e-9);
+                    }
+                    previous = i;
+                    kept++;
+                }
+            }
+            assertTrue(kept < significance.length - 1);
+        }
+    }
+
+    /**
+     * Tests that points on a straight line are left out at every level while the corner is kept
+     */
+    @Test
+    public void cornerTest() {
+        float[] coords = {0, 0, 1, 0, 2, 0, 2, 1, 2, 2};
+        byte[] significance = LineSimplifier.significance(coords);
+        assertEquals(0, significance[1]);
+        assertEquals(LineSimplifier.LEVELS, significance[2]);
+        assertEquals(0, significance[3]);
+        assertEquals(-1, LineSimplifier.levelFor(Double.POSITIVE_INFINITY));
+    }
+
+
+    private double distance(float[] coords, int i, int first, int last) {
+        double dx = coords[last * 2] - coords[first * 2];
+        double dy = coords[last * 2 + 1] - coords[first * 2 + 1];
+        double t = ((coords[i * 2] - coords[first * 2]) * dx + (coords[i * 2 + 1] - coords[first * 2 + 1]) * dy) / (dx * dx + dy * dy);
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(coords[first * 2] + t * dx - coords[i * 2], coords[first * 2 + 1] + t * dy - coords[i * 2 + 1]);
+    }
+}
@@ -0,0 +1,142 @@
+import Model.Drawable;
+import Model.LinePath;
+import Model.MapComponents.Highway;
+import Model.MapComponents.MapIcon;
+import Model.MapData;
+import Model.MapInputStream;
+import Model.MapOutputStream;
+import Model.OSMNode;
+import Model.OSMWay;
+import Model.Pathfinding.Edge;
+import Model.Pathfinding.Graph;
+import Model.Type;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MapStreamTest {
+
+    /**
+     * Tests that varints of every length and parts of the map read back the same as they were written
+     * @throws IOException
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MapOutputStream out = new MapOutputStream(bytes);
+        int[] values = {0, 127, 128, 16384, Integer.MAX_VALUE, -1};
+        for (int value : values) {
+            out.writeVarInt(value);
+        }
+        // An int under 128 takes one byte and a negative int five
+        out.flush();
+        assertEquals(1 + 1 + 2 + 3 + 5 + 5, bytes.size());
+        out.writeMapData(new MapIcon(12.5f, -55.25f, Type.PARK));
+        out.writeDrawable(null);
+        out.writeDrawable(new LinePath(new float[] {1, 2, 3, 4}, Type.WATERWAY));
+        out.close();
+
+        MapInputStream in = new MapInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int value : values) {
+            assertEquals(value, in.readVarInt());
+        }
+        MapData icon = in.readMapData();
+        assertEquals(12.5f, icon.getMaxX());
+        assertEquals(-55.25f, icon.getMaxY());
+        assertEquals(Type.PARK, ((MapIcon) icon).getType());
+        assertNull(in.readDrawable());
+        Drawable path = in.readDrawable();
+        assertEquals(LinePath.class, path.getClass());
+        assertEquals(Type.WATERWAY, path.getType());
+        assertEquals(-1, in.read());
+    }
+
+    /**
+     * Tests that highways sharing a node and the graph of their edges read back with the node and the edges shared
+     * @throws IOException
+     */
+    @Test
+    public void graphRoundTripTest() throws IOException {
+        OSMNode shared = new OSMNode(2, 2);
+        Highway road = highway(new OSMNode(1, 1), shared, new OSMNode(3, 1));
+        Highway roundabout = highway(new OSMNode(2, 3), shared);
+        Graph graph = new Graph();
+        graph.insert(road);
+        graph.addEdges(road, false, false, 80, true, true, false);
+        graph.insert(roundabout);
+        graph.addEdges(roundabout, true, true, 50, true, false, false);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MapOutputStream out = new MapOutputStream(bytes);
+        out.shareNodes(graph);
+        out.writeMapData(road);
+        out.writeMapData(roundabout);
+        graph.write(out);
+        out.close();
+
+        MapInputStream in = new MapInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.shareNodes();
+        Highway readRoad = (Highway) in.readMapData();
+        Highway readRoundabout = (Highway) in.readMapData();
+        Graph read = new Graph(in);
+        assertEquals(-1, in.read());
+
+        OSMNode readShared = readRoad.getOSMWay().get(1);
+        assertSame(readShared, readRoundabout.getOSMWay().get(1));
+        assertEquals(graph.numberOfVertices(), read.numberOfVertices());
+        assertEquals(graph.getEdges().size(), read.getEdges().size());
+        for (int i = 0; i < graph.numberOfVertices(); i++) {
+            assertEquals(graph.getVertexFromIndex(i).getEdges().size(), read.getVertexFromIndex(i).getEdges().size());
+        }
+
+        // The shared node is a vertex of both edges of the road and the edge of the roundabout
+        int index = read.getIndexFromNode(readShared);
+        assertEquals(3, read.getVertexFromIndex(index).getEdges().size());
+        Edge first = read.getVertexFromIndex(read.getIndexFromNode(readRoad.getOSMWay().get(0))).getEdges().get(0);
+        assertSame(first, read.getVertexFromIndex(index).getEdges().get(0));
+        assertSame(readShared, first.getOther());
+        assertSame(readRoad, first.getHighway());
+        assertEquals(1, read.getVertexFromIndex(index).getEdges().get(1).getSegment());
+        assertFalse(first.isOneWay());
+        assertEquals(80, first.getSpeedLimit());
+
+        Edge edge = read.getEdges().get(0);
+        assertSame(edge, read.getVertexFromIndex(index).getEdges().get(2));
+        assertSame(readRoundabout, edge.getHighway());
+        assertEquals(0, edge.getSegment());
+        assertTrue(edge.isOneWay() && edge.isRoundabout() && edge.isDrivable());
+        assertFalse(edge.isBikable() || edge.isWalkable());
+        assertEquals(50, edge.getSpeedLimit());
+    }
+
+    /**
+     * Tests that a part of the map the stream has no tag for is refused when written
+     */
+    @Test
+    public void unknownClassTest() {
+        MapOutputStream out = new MapOutputStream(new ByteArrayOutputStream());
+        LinePath subclass = new LinePath(new float[] {1, 2}, Type.UNKNOWN) {};
+
+        assertThrows(NotSerializableException.class, () -> out.writeDrawable(subclass));
+    }
+
+
+    private static Highway highway(OSMNode... nodes) {
+        OSMWay way = new OSMWay();
+        way.setType(Type.HIGHWAY);
+        for (OSMNode node : nodes) {
+            way.add(node);
+        }
+        return new Highway(way);
+    }
+}
@@ -0,0 +1,118 @@
+import Model.OSMReader;
+import Model.OSMScanner;
+import Model.StaxOSMReader;
+import org.junit.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OSMScannerTest {
+    private static final String[] ATTRIBUTES = {"id", "lat", "lon", "ref", "k", "v", "type", "minlat", "maxlat", "minlon", "maxlon", "role"};
+
+    /**
+     * Tests that the scanner reads the same elements and values as StAX, with comments, references, quotes and whitespace
+     */
+    @Test
+    public void staxEquivalenceTest() throws Exception {
+        assertSameAsStax("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE osm>\n<!-- <node id=\"9\"/> -->\n"
+                + "<osm version='0.6'>\n<bounds minlat=\"54.5\" minlon=\"-8.0762\" maxlat=\"57.7525170\" maxlon=\"15.1972\"/>\n"
+                + "<node id=\"-12\" lat = '55.6761' lon=\"12.5683\" >\n"
+                + "<tag k=\"name\" v=\"K&#248;benhavn &amp; &quot;Frederiksberg&quot; &#x263A;\"/>\n"
+                + "<tag k=\"note\" v=\"line\nbreak\ttab\"/><tag k=\"a>b\" v=\"Århus\"/>\n</node>\n"
+                + "<node id=\"1\" lat=\"1e-3\" lon=\"+5.25\"/><node id=\"2\" lat=\"-0\" lon=\"55.12345678901234567\"/>\n"
+                + "<way id=\"5\"><nd ref=\"-12\"/><nd ref=\"1\"/><tag k=\"highway\" v=\"residential\"/></way>\n"
+                + "<relation id=\"7\"><member type=\"way\" ref=\"5\" role=\"outer\"/></relation>\n</osm>\n");
+    }
+
+    /**
+     * Tests that coordinates parsed from the bytes are the same floats as Float.parseFloat gives
+     */
+    @Test
+    public void coordinateTest() throws Exception {
+        Random random = new Random(42);
+        StringBuilder osm = new StringBuilder("<osm>\n");
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder number = new StringBuilder(random.nextBoolean() ? "-" : "");
+            int digits = 1 + random.nextInt(15);
+            int point = random.nextInt(digits + 1);
+            for (int j = 0; j < digits; j++) {
+                if (j == point) {
+                    number.append(j == 0 ? "0." : ".");
+                }
+                number.append(random.nextInt(10));
+            }
+            osm.append("<node id=\"").append(random.nextLong()).append("\" lat=\"").append(number)
+                    .append("\" lon=\"").append(random.nextDouble() * 360 - 180).append("\"/>\n");
+        }
+        assertSameAsStax(osm.append("</osm>\n").toString());
+    }
+
+
+    /**
+     * Tests that comments, processing instructions, CDATA and doctypes starting just before the end of the buffer of the
+     * scanner are skipped and the elements after them are read
+     */
+    @Test
+    public void bufferBoundaryTest() throws Exception {
+        int bufferSize = 1 << 22; // OSMScanner.BUFFER_SIZE
+        for (int before = 1; before <= 3; before++) {
+            assertSameAsStax(straddling(bufferSize - before, "<osm>", "<!-- comment -->"));
+            assertSameAsStax(straddling(bufferSize - before, "<osm>", "<?instruction data?>"));
+            assertSameAsStax(straddling(bufferSize - before, "<osm>", "<![CDATA[ text ]]>"));
+            assertSameAsStax(straddling(bufferSize - before, "", "<!DOCTYPE osm>"));
+        }
+    }
+
+
+    // Reads the document with both readers and compares every event, name and value
+    private void assertSameAsStax(String osm) throws Exception {
+        OSMReader stax = new StaxOSMReader(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(osm)));
+        OSMReader scanner = new OSMScanner(Channels.newChannel(new ByteArrayInputStream(osm.getBytes(StandardCharsets.UTF_8))));
+        while (stax.hasNext()) {
+            int event = stax.next();
+            if (event != START_ELEMENT && event != END_ELEMENT && event != END_DOCUMENT) {
+                continue;
+            }
+            assertEquals(event, scanner.next());
+            if (event == END_DOCUMENT) {
+                break;
+            }
+            assertEquals(stax.getLocalName(), scanner.getLocalName());
+            if (event != START_ELEMENT) {
+                continue;
+            }
+            for (String attribute : ATTRIBUTES) {
+                String value = stax.getAttribute(attribute);
+                assertEquals(value, scanner.getAttribute(attribute));
+                if (value != null && (attribute.equals("id") || attribute.equals("ref"))) {
+                    assertEquals(stax.getLong(attribute), scanner.getLong(attribute));
+                }
+                if (value != null && (attribute.endsWith("lat") || attribute.endsWith("lon"))) {
+                    assertEquals(stax.getFloat(attribute), scanner.getFloat(attribute), value);
+                }
+            }
+        }
+        assertEquals(END_DOCUMENT, scanner.getEventType());
+    }
+
+
+    // A document with the markup starting at the index, followed by nodes to read after it
+    // The markup is in the osm element after the start, or before the osm element if the start is empty
+    private String straddling(int index, String start, String markup) {
+        StringBuilder osm = new StringBuilder(start);
+        osm.append(" ".repeat(index - osm.length())).append(markup).append(start.isEmpty() ? "<osm>\n" : "\n");
+        for (int i = 0; i < 1000; i++) {
+            osm.append("<node id=\"").append(i).append("\" lat=\"55.5\" lon=\"12.5\"/>\n");
+        }
+        return osm.append("</osm>\n").toString();
+    }
+}
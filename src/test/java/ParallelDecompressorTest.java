@@ -0,0 +1,125 @@
+import Model.ParallelDecompressor;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class ParallelDecompressorTest {
+
+    /**
+     * Tests that a file of two bzip2 streams of several blocks each, like pbzip2 writes, decodes to the original bytes
+     * @throws IOException
+     */
+    @Test
+    public void bzip2Test() throws IOException {
+        byte[] first = text(450_000, 1);
+        byte[] second = text(250_000, 2);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (byte[] part : new byte[][] {first, second}) {
+            // Blocks of 100 kB so each stream has several blocks
+            try (BZip2CompressorOutputStream out = new BZip2CompressorOutputStream(compressed, 1)) {
+                out.write(part);
+            }
+        }
+
+        assertArrayEquals(concat(first, second), read(ParallelDecompressor.bzip2(new ByteArrayInputStream(compressed.toByteArray()))));
+    }
+
+    /**
+     * Tests that gzip files of BGZF members and of ordinary members both decode to the original bytes
+     * @throws IOException
+     */
+    @Test
+    public void gzipTest() throws IOException {
+        byte[] text = text(700_000, 3);
+
+        ByteArrayOutputStream bgzf = new ByteArrayOutputStream();
+        for (int start = 0; start < text.length; start += 65280) {
+            bgzf.write(bgzfMember(text, start, Math.min(text.length, start + 65280)));
+        }
+        bgzf.write(bgzfMember(text, 0, 0)); // The empty member ending a BGZF file
+        assertArrayEquals(text, read(ParallelDecompressor.gzip(new ByteArrayInputStream(bgzf.toByteArray()))));
+
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        for (int start = 0; start < text.length; start += 300_000) {
+            try (GZIPOutputStream out = new GZIPOutputStream(new NonClosingStream(members))) {
+                out.write(text, start, Math.min(text.length - start, 300_000));
+            }
+        }
+        assertArrayEquals(text, read(ParallelDecompressor.gzip(new ByteArrayInputStream(members.toByteArray()))));
+    }
+
+
+    // Lines looking like an .osm file, with random numbers so the text does not compress too well
+    private static byte[] text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length) {
+            text.append("  <node id=\"").append(random.nextInt(1_000_000_000)).append("\" lat=\"55.")
+                    .append(random.nextInt(10_000_000)).append("\" lon=\"12.").append(random.nextInt(10_000_000)).append("\"/>\n");
+        }
+        return text.substring(0, length).getBytes();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    private static byte[] read(ReadableByteChannel channel) throws IOException {
+        try (InputStream in = Channels.newInputStream(channel)) {
+            return in.readAllBytes();
+        }
+    }
+
+    // A gzip member with the BC extra field holding the size of the member, as bgzip writes it
+    private static byte[] bgzfMember(byte[] data, int start, int end) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data, start, end - start);
+        deflater.finish();
+        byte[] deflated = new byte[end - start + 1024];
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(deflated, length, deflated.length - length);
+        }
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(data, start, end - start);
+
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        int size = 18 + length + 8 - 1;
+        member.writeBytes(new byte[] {0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0, (byte) size, (byte) (size >> 8)});
+        member.write(deflated, 0, length);
+        for (int i = 0; i < 4; i++) {
+            member.write((int) (crc.getValue() >> 8 * i));
+        }
+        for (int i = 0; i < 4; i++) {
+            member.write((end - start) >> 8 * i);
+        }
+        return member.toByteArray();
+    }
+
+    // Lets a GZIPOutputStream be closed to finish its member without closing the stream the members are written to
+    private static class NonClosingStream extends java.io.FilterOutputStream {
+        NonClosingStream(ByteArrayOutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import Model.SparseBitSet;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SparseBitSetTest {
+
+    /**
+     * Tests that the set holds the same ids as a HashSet, with sparse and dense blocks and negative ids
+     */
+    @Test
+    public void containsTest() {
+        Random random = new Random(44);
+        SparseBitSet set = new SparseBitSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 50000; i++) {
+            long id;
+            if (i % 2 == 0) {
+                id = random.nextInt(20000); // Dense ids turning the first blocks into bitmaps
+            } else if (i % 5 == 1) {
+                id = -random.nextInt(1000);
+            } else {
+                id = (long) (random.nextDouble() * 12_000_000_000L); // Sparse ids like the node ids of a country
+            }
+            set.add(id);
+            expected.add(id);
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long id : expected) {
+            assertEquals(true, set.contains(id));
+        }
+        for (int i = 0; i < 50000; i++) {
+            long id = (long) (random.nextDouble() * 12_000_000_000L) - 1000;
+            assertEquals(expected.contains(id), set.contains(id));
+        }
+    }
+}
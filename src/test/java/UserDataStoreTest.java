@@ -0,0 +1,127 @@
+import Model.MapComponents.PointOfInterest;
+import Model.UserDataStore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserDataStoreTest {
+
+    /**
+     * Tests that the points of interest added and deleted are read back when the journal is opened again, also when the
+     * last record was cut off
+     * @throws IOException
+     */
+    @Test
+    public void reopenTest() throws IOException {
+        Path path = Files.createTempFile("journal", ".poi");
+        UserDataStore store = UserDataStore.open(path);
+        store.add(new PointOfInterest(1, 2, "home"));
+        store.add(new PointOfInterest(3, 4, "work"));
+        store.delete(new PointOfInterest(1, 2, "home"));
+        store.close();
+        // Half a record, as if the program stopped while writing it
+        Files.write(path, new byte[] {0, 0, 0, 20, 1, 2}, StandardOpenOption.APPEND);
+
+        store = UserDataStore.open(path);
+        store.add(new PointOfInterest(5, 6, "gym"));
+        store.close();
+
+        List<PointOfInterest> points = UserDataStore.open(path).getPointsOfInterest();
+        assertEquals(2, points.size());
+        assertEquals("work", points.get(0).getName());
+        assertEquals(3, points.get(0).getMaxX());
+        assertEquals("gym", points.get(1).getName());
+        Files.delete(path);
+    }
+
+    /**
+     * Tests that a journal of mostly deleted points of interest is compacted and keeps the points of interest left
+     * @throws IOException
+     */
+    @Test
+    public void compactionTest() throws IOException {
+        Path path = Files.createTempFile("journal", ".poi");
+        UserDataStore store = UserDataStore.open(path);
+        for (int i = 0; i < 100; i++) {
+            store.add(new PointOfInterest(i, i, "point " + i));
+            if (i % 10 != 0) {
+                store.delete(new PointOfInterest(i, i, "point " + i));
+            }
+        }
+        store.close();
+
+        // The 190 records written take 4.4 kB, the compacted journal less than half of that
+        assertTrue(Files.size(path) < 2000);
+        assertEquals(10, UserDataStore.open(path).getPointsOfInterest().size());
+        Files.delete(path);
+    }
+
+
+    /**
+     * Tests that points of interest added after a compaction are appended after the records of the compacted journal
+     * @throws Exception
+     */
+    @Test
+    public void appendAfterCompactionTest() throws Exception {
+        Path path = Files.createTempFile("journal", ".poi");
+        UserDataStore store = UserDataStore.open(path);
+        List<IOException> errors = new ArrayList<>();
+        store.setCompactionErrorObserver(errors::add);
+        for (int i = 0; i < 100; i++) {
+            store.add(new PointOfInterest(i, i, "point " + i));
+            if (i % 10 != 0) {
+                store.delete(new PointOfInterest(i, i, "point " + i));
+            }
+        }
+        // The journal is opened again by the next point of interest once it has been replaced by the compacted journal
+        for (int wait = 0; wait < 500 && Files.size(path) > 2000; wait++) {
+            Thread.sleep(10);
+        }
+        store.add(new PointOfInterest(1, 2, "after"));
+        store.close();
+
+        List<PointOfInterest> points = UserDataStore.open(path).getPointsOfInterest();
+        assertEquals(11, points.size());
+        assertEquals("after", points.get(10).getName());
+        assertTrue(errors.isEmpty());
+        Files.delete(path);
+    }
+
+    /**
+     * Tests that no journal is created until a point of interest is added, and that a journal that can not be written
+     * is reported while the point of interest is still kept
+     * @throws IOException
+     */
+    @Test
+    public void lazyCreationTest() throws IOException {
+        Path directory = Files.createTempDirectory("map");
+        Path path = directory.resolve("map.poi");
+        UserDataStore store = UserDataStore.open(path);
+        store.close();
+        assertFalse(Files.exists(path));
+
+        store = UserDataStore.open(path);
+        store.add(new PointOfInterest(1, 2, "home"));
+        store.close();
+        assertTrue(Files.exists(path));
+
+        // A journal in a directory that does not exist can be opened but not written
+        UserDataStore unwritable = UserDataStore.open(directory.resolve("missing").resolve("map.poi"));
+        assertThrows(IOException.class, () -> unwritable.add(new PointOfInterest(3, 4, "work")));
+        assertEquals(1, unwritable.getPointsOfInterest().size());
+        unwritable.close();
+
+        Files.delete(path);
+        Files.delete(directory);
+    }
+}